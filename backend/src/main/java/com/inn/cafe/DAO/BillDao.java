@@ -1,9 +1,13 @@
 package com.inn.cafe.DAO;
 
 import com.inn.cafe.POJO.Bill;
+import com.inn.cafe.Wrapper.BillWrapper;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 
@@ -11,4 +15,17 @@ public interface BillDao extends JpaRepository<Bill, Integer> {
     List<Bill> getAllBills();
 
     List<Bill> getBillByUserName(@Param("username") String currentUser);
+
+    List<Bill> getBillsByUuids(@Param("uuids") Collection<String> uuids);
+
+    List<String> getExistingUuids(@Param("uuids") Collection<String> uuids);
+
+    List<Bill> getBillsByCreatedDate(@Param("fromDate") LocalDateTime fromDate, @Param("toDate") LocalDateTime toDate,
+                                      @Param("createdBy") String createdBy, Pageable pageable);
+
+    List<BillWrapper> getBillPage(@Param("cursor") Integer cursor, @Param("createdBy") String createdBy,
+                                  @Param("fromDate") LocalDateTime fromDate, @Param("toDate") LocalDateTime toDate,
+                                  Pageable pageable);
+
+    List<Bill> getBillsWithoutItems(@Param("lastId") Integer lastId, Pageable pageable);
 }
@@ -0,0 +1,45 @@
+package com.inn.cafe.DAO;
+
+import com.inn.cafe.POJO.BillItem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+
+/**
+ * Writes the bill_item rows with plain JDBC: all items of a bill go to the database in one batch
+ * (one multi-row insert with rewriteBatchedStatements=true) instead of one insert per item through JPA.
+ * Called inside the transaction of the bill insert, so a bill is never saved without its items.
+ */
+@Repository
+public class BillItemDao {
+
+    private static final String INSERT_ITEM = "insert into bill_item (bill_id, product_id, name, category, quantity, price, total) "
+            + "values (?, ?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+
+    public void insertItems(List<BillItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_ITEM, items, items.size(), (ps, item) -> {
+            ps.setInt(1, item.getBillId());
+            ps.setObject(2, item.getProductId());
+            ps.setString(3, item.getName());
+            ps.setString(4, item.getCategory());
+            ps.setObject(5, item.getQuantity());
+            ps.setObject(6, item.getPrice());
+            ps.setObject(7, item.getTotal());
+        });
+    }
+
+
+    public int deleteByBillId(Integer billId) {
+        return jdbcTemplate.update("delete from bill_item where bill_id = ?", billId);
+    }
+}
@@ -0,0 +1,110 @@
+package com.inn.cafe.DAO;
+
+import com.inn.cafe.Events.ChangeType;
+import com.inn.cafe.Wrapper.CatalogChangeEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Reads and writes the catalog_change log (see CatalogChange).
+ *
+ * Versions come from the one row of catalog_version. Appending increments it, which locks the row until the
+ * transaction ends: appends of all instances take turns, the next one gets its version only after the previous one
+ * committed (or rolled back, then its versions are handed out again). So a version is only ever visible after every
+ * lower one, a client reading the log never skips a change which commits later. Must run in the transaction of the
+ * change, as late as possible, to hold the lock briefly.
+ */
+@Repository
+public class CatalogChangeDao {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+
+    private static final String APPEND_CHANGE = "insert into catalog_change (id, entity, entity_id, change_type, changed_at) "
+            + "values (?, ?, ?, ?, ?)";
+
+
+    /** @return the version of the change. */
+    public long append(String entity, Integer entityId, ChangeType type, LocalDateTime changedAt) {
+        long version = nextVersions(1);
+        jdbcTemplate.update(APPEND_CHANGE, version, entity, entityId, type.name(), Timestamp.valueOf(changedAt));
+        return version;
+    }
+
+
+    /** Appends the same change of many entities as one batch, their versions follow the order of the ids. */
+    public void appendAll(String entity, List<Integer> entityIds, ChangeType type, LocalDateTime changedAt) {
+        if (entityIds.isEmpty()) {
+            return;
+        }
+        long first = nextVersions(entityIds.size()) - entityIds.size() + 1;
+        AtomicLong version = new AtomicLong(first);
+        jdbcTemplate.batchUpdate(APPEND_CHANGE, entityIds, 1000, (statement, entityId) -> {
+            statement.setLong(1, version.getAndIncrement());
+            statement.setString(2, entity);
+            statement.setInt(3, entityId);
+            statement.setString(4, type.name());
+            statement.setTimestamp(5, Timestamp.valueOf(changedAt));
+        });
+    }
+
+
+    /**
+     * Reserves the next count versions, locking the version row until the transaction ends.
+     * @return the last of them.
+     */
+    private long nextVersions(int count) {
+        if (jdbcTemplate.update("update catalog_version set version = version + ? where id = 1", count) == 0) {
+            try {
+                // the first change: continue after the versions logged before there was a catalog_version row
+                jdbcTemplate.update("insert into catalog_version (id, version) "
+                        + "select 1, coalesce(max(id), 0) + ? from catalog_change", count);
+            } catch (DuplicateKeyException ex) {
+                // inserted by another instance meanwhile
+                jdbcTemplate.update("update catalog_version set version = version + ? where id = 1", count);
+            }
+        }
+        return jdbcTemplate.queryForObject("select version from catalog_version where id = 1", Long.class);
+    }
+
+
+    /** The changes after the given version, oldest first. */
+    public List<CatalogChangeEntry> getChangesSince(long version) {
+        return jdbcTemplate.query("select id, entity, entity_id, change_type from catalog_change where id > ? order by id",
+                (rs, rowNum) -> new CatalogChangeEntry(rs.getLong("id"), rs.getString("entity"), rs.getInt("entity_id"),
+                        ChangeType.valueOf(rs.getString("change_type"))),
+                version);
+    }
+
+    /** @return {version, time in epoch milliseconds} of the latest change, {0, 0} when the log is empty. */
+    public long[] getLatestChange() {
+        List<long[]> latest = jdbcTemplate.query("select id, changed_at from catalog_change order by id desc limit 1",
+                (rs, rowNum) -> new long[]{rs.getLong("id"), rs.getTimestamp("changed_at").getTime()});
+        return latest.isEmpty() ? new long[]{0, 0} : latest.get(0);
+    }
+
+    /** @return {oldest version, latest version} of the log, {0, 0} when it is empty. */
+    public long[] getVersionRange() {
+        return jdbcTemplate.queryForObject("select coalesce(min(id), 0), coalesce(max(id), 0) from catalog_change",
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+    }
+
+
+    /**
+     * Removes the changes made before the given time, except the latest one: it keeps the latest version known, and
+     * with it which versions were removed.
+     */
+    public int deleteBefore(LocalDateTime time) {
+        long latest = getVersionRange()[1];
+        return jdbcTemplate.update("delete from catalog_change where changed_at < ? and id < ?", time, latest);
+    }
+}
@@ -0,0 +1,128 @@
+package com.inn.cafe.DAO;
+
+import com.inn.cafe.POJO.Bill;
+import com.inn.cafe.Utils.CafeUtils;
+import com.inn.cafe.Wrapper.SalesWrapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Reads and writes the daily_sales rollup (see DailySales).
+ * addBill / removeBill must be called in the transaction which inserts / deletes the bill, so the rollup always
+ * matches the bill table.
+ */
+@Repository
+public class DailySalesDao {
+
+    /**
+     * Upsert: the first bill of a day / creator / payment method inserts the row, later bills add to it. The count and
+     * revenue are bound twice instead of read with values(), which MySQL deprecated (H2 has no row alias either).
+     */
+    private static final String ADD_SALES = "insert into daily_sales (sales_date, created_by, payment_method, bill_count, revenue) "
+            + "values (?, ?, ?, ?, ?) on duplicate key update bill_count = bill_count + ?, revenue = revenue + ?";
+
+    private static final String REBUILD_SALES = "insert into daily_sales (sales_date, created_by, payment_method, bill_count, revenue) "
+            + "select cast(createddate as date), coalesce(createdby, ''), coalesce(paymentmethod, ''), count(*), coalesce(sum(total), 0) "
+            + "from bill where createddate is not null "
+            + "group by cast(createddate as date), coalesce(createdby, ''), coalesce(paymentmethod, '')";
+
+    /** Report groupings, the column comes from this map only (never from the request). */
+    private static final Map<String, String> GROUP_COLUMNS = Map.of(
+            "day", "sales_date",
+            "createdBy", "created_by",
+            "paymentMethod", "payment_method");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+
+    public void addBill(Bill bill) {
+        add(bill, 1);
+    }
+
+    public void removeBill(Bill bill) {
+        add(bill, -1);
+    }
+
+
+    /**
+     * Gives the bills saved before the createddate column existed the date of the timestamp in their uuid, for at
+     * most limit undated bills with an id above afterId, in id order. The caller walks all of them batch by batch
+     * (keyset pagination), each batch in its own transaction; bills whose uuid has no timestamp stay undated.
+     * @return the id of the last bill read, null if there are no more.
+     */
+    public Integer dateUndatedBills(int afterId, int limit) {
+        List<Object[]> dates = new ArrayList<>();
+        Integer[] lastId = {null};
+        jdbcTemplate.query("select id, uuid from bill where createddate is null and id > ? order by id limit ?", rs -> {
+            lastId[0] = rs.getInt("id");
+            Long timestamp = CafeUtils.getTimestampFromUUID(rs.getString("uuid"));
+            if (timestamp != null) {
+                dates.add(new Object[]{Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault()).toLocalDateTime(), lastId[0]});
+            }
+        }, afterId, limit);
+        jdbcTemplate.batchUpdate("update bill set createddate = ? where id = ?", dates);
+        return lastId[0];
+    }
+
+    /**
+     * Recomputes the whole rollup from the dated bills (see dateUndatedBills) in one statement. Must run in a
+     * transaction.
+     * @return the number of rollup rows.
+     */
+    public int rebuild() {
+        jdbcTemplate.update("delete from daily_sales");
+        return jdbcTemplate.update(REBUILD_SALES);
+    }
+
+
+    /**
+     * Sales between two days (both included) grouped by "day", "createdBy" or "paymentMethod",
+     * optionally only of the bills of one user. Reads at most one rollup row per day, user and payment method.
+     */
+    public List<SalesWrapper> getSales(LocalDate fromDate, LocalDate toDate, String groupBy, String createdBy) {
+        String column = GROUP_COLUMNS.get(groupBy);
+        if (column == null) {
+            throw new IllegalArgumentException("Unknown grouping: " + groupBy);
+        }
+        String sql = "select " + column + " as sales_key, sum(bill_count) as bill_count, sum(revenue) as revenue "
+                + "from daily_sales where sales_date between ? and ?"
+                + (createdBy == null ? "" : " and created_by = ?")
+                + " group by " + column + " order by " + column;
+        Object[] args = createdBy == null ? new Object[]{fromDate, toDate} : new Object[]{fromDate, toDate, createdBy};
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new SalesWrapper(rs.getString("sales_key"),
+                rs.getLong("bill_count"), rs.getLong("revenue")), args);
+    }
+
+
+    private void add(Bill bill, int sign) {
+        LocalDate day = getSalesDate(bill);
+        if (day == null) {
+            return;  // bill without any date, rebuild() can't place it either
+        }
+        long total = bill.getTotal() == null ? 0 : bill.getTotal();
+        jdbcTemplate.update(ADD_SALES, day, nullToEmpty(bill.getCreatedBy()), nullToEmpty(bill.getPaymentMethod()),
+                sign, sign * total, sign, sign * total);
+    }
+
+    private LocalDate getSalesDate(Bill bill) {
+        if (bill.getCreatedDate() != null) {
+            return bill.getCreatedDate().toLocalDate();
+        }
+        Long timestamp = CafeUtils.getTimestampFromUUID(bill.getUuid());
+        return timestamp == null ? null : Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    private String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import javax.transaction.Transactional;
+import java.util.Collection;
 import java.util.List;
 
 public interface ProductDao extends JpaRepository<Product, Integer> {
@@ -49,6 +50,8 @@ public interface ProductDao extends JpaRepository<Product, Integer> {
 
     ProductWrapper getProductById(@Param("id") Integer id);
 
+    List<ProductWrapper> getProductsByIds(@Param("ids") Collection<Integer> ids);
+
 
     // Get the latest product ID from the database and increment it for the new entry
     Product findTopByOrderByIdDesc();  // Fetch the last inserted product
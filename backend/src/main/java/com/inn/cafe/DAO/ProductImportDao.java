@@ -0,0 +1,101 @@
+package com.inn.cafe.DAO;
+
+import com.inn.cafe.POJO.Product;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+
+/**
+ * Bulk reads and writes of the menu import (see ProductImporter): the existing categories and products in one query
+ * each, new categories and products as one JDBC batch per call.
+ *
+ * The inserts leave the ids to the auto increment columns of the Category and Product entities and read them back
+ * from the generated keys of the batch. With rewriteBatchedStatements=true (spring.datasource.url) MySQL Connector/J
+ * sends a batch as multi-row inserts.
+ */
+@Repository
+public class ProductImportDao {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+
+    /** Id of every category by its name. */
+    public Map<String, Integer> getCategoryIds() {
+        Map<String, Integer> ids = new HashMap<>();
+        jdbcTemplate.query("select id, name from category", rs -> {
+            ids.put(rs.getString("name"), rs.getInt("id"));
+        });
+        return ids;
+    }
+
+    /** Calls the consumer with the name and category id of every product. */
+    public void forEachProduct(ObjIntConsumer<String> nameAndCategoryId) {
+        jdbcTemplate.query("select name, category_fk from product", rs -> {
+            nameAndCategoryId.accept(rs.getString("name"), rs.getInt("category_fk"));
+        });
+    }
+
+
+    /** @return the ids of the new categories, in the order of the names. */
+    public List<Integer> insertCategories(List<String> names) {
+        return insert("insert into category (name, version) values (?, 0)", names,
+                (statement, name) -> statement.setString(1, name));
+    }
+
+    /** @return the ids of the new products, in the order of the products. Their category must have an id. */
+    public List<Integer> insertProducts(List<Product> products) {
+        return insert("insert into product (name, category_fk, description, price, status) values (?, ?, ?, ?, ?)", products,
+                (statement, product) -> {
+                    statement.setString(1, product.getName());
+                    statement.setInt(2, product.getCategory().getId());
+                    statement.setString(3, product.getDescription());
+                    if (product.getPrice() == null) {
+                        statement.setNull(4, Types.INTEGER);
+                    } else {
+                        statement.setInt(4, product.getPrice());
+                    }
+                    statement.setString(5, product.getStatus());
+                });
+    }
+
+
+    private <T> List<Integer> insert(String sql, List<T> items, ParameterizedPreparedStatementSetter<T> setter) {
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        // JdbcTemplate.batchUpdate does not return generated keys, the connection is the one of the current transaction
+        return jdbcTemplate.execute((ConnectionCallback<List<Integer>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (T item : items) {
+                    setter.setValues(statement, item);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                List<Integer> ids = new ArrayList<>(items.size());
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getInt(1));
+                    }
+                }
+                if (ids.size() != items.size()) {
+                    throw new IllegalStateException("Inserted " + items.size() + " rows but got " + ids.size() + " generated ids");
+                }
+                return ids;
+            }
+        });
+    }
+}
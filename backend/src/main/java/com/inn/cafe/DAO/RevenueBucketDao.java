@@ -0,0 +1,140 @@
+package com.inn.cafe.DAO;
+
+import com.inn.cafe.POJO.Bill;
+import com.inn.cafe.POJO.RevenueBucket.Resolution;
+import com.inn.cafe.Utils.CafeUtils;
+import com.inn.cafe.Wrapper.RevenuePoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+
+/**
+ * Reads and writes the revenue_bucket time series (see RevenueBucket).
+ * addBill / removeBill must be called in the transaction which inserts / deletes the bill.
+ */
+@Repository
+public class RevenueBucketDao {
+
+    /**
+     * Upsert: the first bill of a bucket inserts the row, later bills add to it. The count and revenue are bound twice
+     * instead of read with VALUES(col), which MySQL deprecated in 8.0.20; its replacement, the row alias, is not
+     * understood by H2.
+     */
+    private static final String ADD_BUCKET = "insert into revenue_bucket (resolution, bucket_start, bill_count, revenue) "
+            + "values (?, ?, ?, ?) on duplicate key update bill_count = bill_count + ?, revenue = revenue + ?";
+
+    /** Only a bucket which still exists: one removed by RevenueBucketRetention must not come back negative. */
+    private static final String SUBTRACT_BUCKET = "update revenue_bucket set bill_count = bill_count - 1, revenue = revenue - ? "
+            + "where resolution = ? and bucket_start = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+
+    public void addBill(Bill bill) {
+        LocalDateTime time = getCreatedTime(bill);
+        if (time == null) {
+            return;  // bill without any date, rebuild() can't place it either
+        }
+        long total = getTotal(bill);
+        List<Object[]> rows = new ArrayList<>();
+        for (Resolution resolution : Resolution.values()) {
+            rows.add(new Object[]{resolution.getCode(), resolution.bucketStart(time), 1, total, 1, total});
+        }
+        jdbcTemplate.batchUpdate(ADD_BUCKET, rows);
+    }
+
+    /**
+     * Takes the bill out of its buckets. Resolutions whose bucket was downsampled away (the bill is older than their
+     * retention) are left alone, the bill is still counted in the coarser buckets which are kept.
+     */
+    public void removeBill(Bill bill) {
+        LocalDateTime time = getCreatedTime(bill);
+        if (time == null) {
+            return;
+        }
+        long total = getTotal(bill);
+        List<Object[]> rows = new ArrayList<>();
+        for (Resolution resolution : Resolution.values()) {
+            rows.add(new Object[]{total, resolution.getCode(), resolution.bucketStart(time)});
+        }
+        jdbcTemplate.batchUpdate(SUBTRACT_BUCKET, rows);
+    }
+
+
+    /**
+     * One point per bucket from the bucket of fromTime (included) to toTime (excluded), buckets without bills are
+     * returned with zeros. Reads at most one row per bucket.
+     */
+    public List<RevenuePoint> getSeries(Resolution resolution, LocalDateTime fromTime, LocalDateTime toTime) {
+        LocalDateTime from = resolution.bucketStart(fromTime);
+        Map<LocalDateTime, RevenuePoint> rows = new HashMap<>();
+        jdbcTemplate.query("select bucket_start, bill_count, revenue from revenue_bucket "
+                        + "where resolution = ? and bucket_start >= ? and bucket_start < ?",
+                rs -> {
+                    LocalDateTime start = rs.getTimestamp("bucket_start").toLocalDateTime();
+                    rows.put(start, new RevenuePoint(start, rs.getLong("bill_count"), rs.getLong("revenue")));
+                },
+                resolution.getCode(), from, toTime);
+
+        List<RevenuePoint> series = new ArrayList<>();
+        for (LocalDateTime start = from; start.isBefore(toTime); start = start.plus(resolution.getSize())) {
+            RevenuePoint point = rows.get(start);
+            series.add(point == null ? new RevenuePoint(start, 0, 0) : point);
+        }
+        return series;
+    }
+
+
+    /** Removes the buckets of one resolution which start before the given time. */
+    public int deleteBefore(Resolution resolution, LocalDateTime time) {
+        return jdbcTemplate.update("delete from revenue_bucket where resolution = ? and bucket_start < ?",
+                resolution.getCode(), time);
+    }
+
+
+    /**
+     * Recomputes the whole time series from the bill table, in one pass over the dated bills (DailySalesDao.rebuild
+     * dates the old ones first). Must run in a transaction.
+     * @return the number of buckets.
+     */
+    public int rebuild() {
+        Map<Resolution, Map<LocalDateTime, long[]>> buckets = new EnumMap<>(Resolution.class);
+        jdbcTemplate.query("select createddate, total from bill where createddate is not null", rs -> {
+            LocalDateTime time = rs.getTimestamp("createddate").toLocalDateTime();
+            long total = rs.getLong("total");
+            for (Resolution resolution : Resolution.values()) {
+                long[] bucket = buckets.computeIfAbsent(resolution, r -> new HashMap<>())
+                        .computeIfAbsent(resolution.bucketStart(time), start -> new long[2]);
+                bucket[0]++;
+                bucket[1] += total;
+            }
+        });
+
+        List<Object[]> rows = new ArrayList<>();
+        buckets.forEach((resolution, starts) -> starts.forEach((start, bucket) ->
+                rows.add(new Object[]{resolution.getCode(), start, bucket[0], bucket[1], bucket[0], bucket[1]})));
+        jdbcTemplate.update("delete from revenue_bucket");
+        jdbcTemplate.batchUpdate(ADD_BUCKET, rows);
+        return rows.size();
+    }
+
+
+    private static long getTotal(Bill bill) {
+        return bill.getTotal() == null ? 0 : bill.getTotal();
+    }
+
+    private LocalDateTime getCreatedTime(Bill bill) {
+        if (bill.getCreatedDate() != null) {
+            return bill.getCreatedDate();
+        }
+        Long timestamp = CafeUtils.getTimestampFromUUID(bill.getUuid());
+        return timestamp == null ? null : Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault()).toLocalDateTime();
+    }
+}
@@ -0,0 +1,10 @@
+package com.inn.cafe.Events;
+
+import com.inn.cafe.POJO.Bill;
+
+/**
+ * Published by BillServiceImpl when a bill is saved or deleted, inside the transaction of the change.
+ * Listeners which must only see committed bills use @TransactionalEventListener.
+ */
+public record BillChangedEvent(ChangeType type, Bill bill) {
+}
@@ -0,0 +1,10 @@
+package com.inn.cafe.Events;
+
+import java.util.List;
+
+/**
+ * Categories and products created together by a bulk import, published once per imported batch instead of one
+ * CategoryChangedEvent / ProductChangedEvent per row.
+ */
+public record CatalogImportedEvent(List<Integer> categoryIds, List<Integer> productIds) {
+}
@@ -0,0 +1,7 @@
+package com.inn.cafe.Events;
+
+/**
+ * Published by CategoryServiceImpl and the product Excel import when a category is added or updated.
+ */
+public record CategoryChangedEvent(ChangeType type, Integer categoryId) {
+}
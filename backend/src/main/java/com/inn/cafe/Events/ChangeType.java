@@ -0,0 +1,22 @@
+package com.inn.cafe.Events;
+
+/**
+ * What happened to the entity of a change event.
+ */
+public enum ChangeType {
+
+    CREATED(1),
+    UPDATED(0),
+    DELETED(-1);
+
+    private final int countDelta;
+
+    ChangeType(int countDelta) {
+        this.countDelta = countDelta;
+    }
+
+    /** By how much the change moves the number of rows of the entity: +1, 0 or -1. */
+    public int countDelta() {
+        return countDelta;
+    }
+}
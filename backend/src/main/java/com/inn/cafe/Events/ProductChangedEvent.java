@@ -0,0 +1,8 @@
+package com.inn.cafe.Events;
+
+/**
+ * Published by ProductServiceImpl when a product is added, updated (including its status) or deleted.
+ * categoryId is the category of the product after the change (before it, for a delete).
+ */
+public record ProductChangedEvent(ChangeType type, Integer productId, Integer categoryId) {
+}
@@ -0,0 +1,199 @@
+package com.inn.cafe.Idempotency;
+
+import com.google.common.hash.Hashing;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+
+/**
+ * Makes the POST requests of cafe.idempotency.paths (bill generation and payment) safe to retry.
+ *
+ * A client sends an Idempotency-Key header (e.g. a random UUID per checkout) and repeats the same key when it retries.
+ * The first request runs normally and its response is stored, a retry with the same key gets the stored response
+ * back (with an Idempotent-Replayed header) without running the request again, so no second bill or payment row is
+ * created. A retry which arrives while the first request is still running gets 409 and should retry again later.
+ *
+ * Keys are per user and per path, and stored as a SHA-256 hash of user, path and key, so their length doesn't depend
+ * on the header. The SHA-256 hash of the request body is stored with the key: a request which reuses a key with a
+ * different body gets 422 instead of the response of another request. A 5xx response is not stored, so a request
+ * which failed can be retried with the same key. Requests without the header are not affected.
+ *
+ * Runs after the Spring Security filter chain, so the user is known and unauthenticated requests never get here.
+ */
+@Slf4j
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    @Value("${cafe.idempotency.paths:/bill/generateReport,/api/payment/process}")
+    private Set<String> paths;
+
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null
+                || !paths.contains(getPath(request));
+    }
+
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Invalid Idempotency-Key");
+            return;
+        }
+        String key = getStoreKey(getUser(), getPath(request), idempotencyKey);
+        // the bodies of these requests are small JSON documents, read once here and again by the controller
+        byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+        String requestHash = Hashing.sha256().hashBytes(body).toString();
+
+        if (!idempotencyStore.reserve(key, requestHash)) {
+            String storedHash = idempotencyStore.getRequestHash(key);
+            if (storedHash != null && !storedHash.equals(requestHash)) {
+                writeError(response, HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key was already used for a different request");
+                return;
+            }
+            IdempotentResponse stored = idempotencyStore.get(key);
+            if (stored != null) {
+                log.info("Replaying the response of {} for Idempotency-Key {}", getPath(request), idempotencyKey);
+                replay(stored, response);
+            } else {
+                writeError(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still being processed");
+            }
+            return;
+        }
+
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(new CachedBodyRequest(request, body), responseWrapper);
+            if (responseWrapper.getStatus() < 500) {
+                idempotencyStore.complete(key, new IdempotentResponse(responseWrapper.getStatus(),
+                        responseWrapper.getContentType(), responseWrapper.getContentAsByteArray()));
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                idempotencyStore.release(key);
+            }
+            responseWrapper.copyBodyToResponse();
+        }
+    }
+
+
+    /** 64 hex characters, whatever the length of the user name, the path and the header. */
+    static String getStoreKey(String user, String path, String idempotencyKey) {
+        return Hashing.sha256().hashString(user + ":" + path + ":" + idempotencyKey, StandardCharsets.UTF_8).toString();
+    }
+
+
+    private void replay(IdempotentResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.body() != null) {
+            response.setContentLength(stored.body().length);
+            response.getOutputStream().write(stored.body());
+        }
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getOutputStream().write(("{\"message\":\"" + message + "\"}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String getPath(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private String getUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? "" : authentication.getName();
+    }
+
+
+    /** The request with its body read already, so the controller can read it again. */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding() == null ? StandardCharsets.UTF_8.name() : getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(), encoding));
+        }
+    }
+}
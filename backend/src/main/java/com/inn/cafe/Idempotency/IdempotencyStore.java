@@ -0,0 +1,27 @@
+package com.inn.cafe.Idempotency;
+
+/**
+ * Recent idempotency keys and the responses of their requests.
+ *
+ * A key is first reserved by the request that runs, then completed with its response, or released if the request
+ * failed in a way that a retry may fix. Keys expire after cafe.idempotency.ttl-minutes.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Reserves a key for the request that is about to run, requestHash is the hash of its body.
+     * @return false if the key is already reserved or completed.
+     */
+    boolean reserve(String key, String requestHash);
+
+    /** The request hash the key was reserved with, or null if the key is unknown. */
+    String getRequestHash(String key);
+
+    /** The response stored for a key, or null if the key is unknown or its request is still running. */
+    IdempotentResponse get(String key);
+
+    void complete(String key, IdempotentResponse response);
+
+    /** Removes a reserved key whose request did not complete, so a retry runs it again. */
+    void release(String key);
+}
@@ -0,0 +1,7 @@
+package com.inn.cafe.Idempotency;
+
+/**
+ * The response of a request sent with an Idempotency-Key, replayed to retries of that request.
+ */
+public record IdempotentResponse(int status, String contentType, byte[] body) {
+}
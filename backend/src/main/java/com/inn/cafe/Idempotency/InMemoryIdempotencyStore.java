@@ -0,0 +1,70 @@
+package com.inn.cafe.Idempotency;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Idempotency store of this instance (default). Bounded to cafe.idempotency.max-keys keys, the oldest keys are
+ * dropped first when it is full. Only protects against retries which reach the same instance, use the jdbc store
+ * when several instances run behind a load balancer.
+ */
+@Component
+@ConditionalOnProperty(name = "cafe.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    /** A key, its response is null while its request is still running. */
+    private record Entry(String requestHash, IdempotentResponse response) {
+    }
+
+    @Value("${cafe.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${cafe.idempotency.max-keys:10000}")
+    private long maxKeys;
+
+    private Cache<String, Entry> keys;
+
+
+    @PostConstruct
+    public void init() {
+        keys = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+                .maximumSize(maxKeys)
+                .build();
+    }
+
+
+    @Override
+    public boolean reserve(String key, String requestHash) {
+        return keys.asMap().putIfAbsent(key, new Entry(requestHash, null)) == null;
+    }
+
+    @Override
+    public String getRequestHash(String key) {
+        Entry entry = keys.getIfPresent(key);
+        return entry == null ? null : entry.requestHash();
+    }
+
+    @Override
+    public IdempotentResponse get(String key) {
+        Entry entry = keys.getIfPresent(key);
+        return entry == null ? null : entry.response();
+    }
+
+    @Override
+    public void complete(String key, IdempotentResponse response) {
+        keys.asMap().compute(key, (k, entry) -> new Entry(entry == null ? null : entry.requestHash(), response));
+    }
+
+    @Override
+    public void release(String key) {
+        keys.asMap().computeIfPresent(key, (k, entry) -> entry.response() == null ? null : entry);
+    }
+}
@@ -0,0 +1,107 @@
+package com.inn.cafe.Idempotency;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Idempotency store in the idempotency_key table, for several instances behind a load balancer
+ * (cafe.idempotency.store=jdbc). A retry is recognised whichever instance it reaches.
+ *
+ * The primary key makes reserve atomic across instances: only one insert of a key succeeds. A key whose request is
+ * still marked as running after cafe.idempotency.pending-timeout-seconds (its instance died) can be taken over by a
+ * retry. Expired rows are deleted at most once a minute by the next reserve.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cafe.idempotency.store", havingValue = "jdbc")
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    private static final long PURGE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${cafe.idempotency.ttl-minutes:1440}")
+    private long ttlMinutes;
+
+    @Value("${cafe.idempotency.pending-timeout-seconds:60}")
+    private long pendingTimeoutSeconds;
+
+    private LongSupplier clock = System::currentTimeMillis;
+
+    private final AtomicLong lastPurge = new AtomicLong();
+
+
+    @Override
+    public boolean reserve(String key, String requestHash) {
+        long now = clock.getAsLong();
+        purgeExpired(now);
+        try {
+            jdbcTemplate.update("insert into idempotency_key (idem_key, request_hash, created_at) values (?, ?, ?)",
+                    key, requestHash, new Timestamp(now));
+            return true;
+        } catch (DuplicateKeyException ex) {
+            // take the key over if its request was abandoned or the key has expired but was not purged yet
+            return jdbcTemplate.update("update idempotency_key set request_hash = ?, status = null, content_type = null, "
+                            + "body = null, created_at = ? where idem_key = ? and ((status is null and created_at < ?) or created_at < ?)",
+                    requestHash, new Timestamp(now), key,
+                    new Timestamp(now - TimeUnit.SECONDS.toMillis(pendingTimeoutSeconds)), expiredBefore(now)) == 1;
+        }
+    }
+
+    @Override
+    public String getRequestHash(String key) {
+        List<String> hashes = jdbcTemplate.queryForList(
+                "select request_hash from idempotency_key where idem_key = ? and created_at >= ?",
+                String.class, key, expiredBefore(clock.getAsLong()));
+        return hashes.isEmpty() ? null : hashes.get(0);
+    }
+
+    @Override
+    public IdempotentResponse get(String key) {
+        List<IdempotentResponse> responses = jdbcTemplate.query(
+                "select status, content_type, body from idempotency_key where idem_key = ? and status is not null and created_at >= ?",
+                (rs, rowNum) -> new IdempotentResponse(rs.getInt("status"), rs.getString("content_type"), rs.getBytes("body")),
+                key, expiredBefore(clock.getAsLong()));
+        return responses.isEmpty() ? null : responses.get(0);
+    }
+
+    @Override
+    public void complete(String key, IdempotentResponse response) {
+        jdbcTemplate.update("update idempotency_key set status = ?, content_type = ?, body = ? where idem_key = ?",
+                response.status(), response.contentType(), response.body(), key);
+    }
+
+    @Override
+    public void release(String key) {
+        jdbcTemplate.update("delete from idempotency_key where idem_key = ? and status is null", key);
+    }
+
+
+    private void purgeExpired(long now) {
+        long last = lastPurge.get();
+        if (now - last < PURGE_INTERVAL_MILLIS || !lastPurge.compareAndSet(last, now)) {
+            return;
+        }
+        int purged = jdbcTemplate.update("delete from idempotency_key where created_at < ?", expiredBefore(now));
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private Timestamp expiredBefore(long now) {
+        return new Timestamp(now - TimeUnit.MINUTES.toMillis(ttlMinutes));
+    }
+}
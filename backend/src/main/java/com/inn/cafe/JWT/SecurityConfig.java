@@ -1,8 +1,11 @@
 package com.inn.cafe.JWT;
 
+import com.inn.cafe.Service.MenuCatalog;
+import com.inn.cafe.ServiceImpl.BillServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.BeanIds;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
@@ -81,7 +84,13 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
  */
     @Override
     protected void configure(HttpSecurity http) throws Exception {
-        http.cors().configurationSource(request -> new CorsConfiguration().applyPermitDefaultValues())
+        http.cors().configurationSource(request -> {
+                    CorsConfiguration cors = new CorsConfiguration().applyPermitDefaultValues();
+                    cors.addExposedHeader(BillServiceImpl.NEXT_CURSOR_HEADER);  // read by the bill list to load the next page
+                    cors.addExposedHeader(MenuCatalog.VERSION_HEADER);
+                    cors.addExposedHeader(HttpHeaders.ETAG);  // sent back in If-None-Match by the menu readers
+                    return cors;
+                })
 //                .and() Chains multiple configurations together.
                 .and()
 
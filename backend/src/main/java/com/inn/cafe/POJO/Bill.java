@@ -9,6 +9,7 @@ import org.hibernate.annotations.TypeDef;
 
 import javax.persistence.*;
 import java.io.Serializable;
+import java.time.LocalDateTime;
 
 
 
@@ -16,12 +17,36 @@ import java.io.Serializable;
 
 @NamedQuery(name = "Bill.getBillByUserName", query = "select b from Bill b where b.createdBy = :username order by b.id desc")
 
+// bills for the batch invoice export, oldest first
+@NamedQuery(name = "Bill.getBillsByUuids", query = "select b from Bill b where b.uuid in :uuids order by b.id")
+
+@NamedQuery(name = "Bill.getBillsByCreatedDate", query = "select b from Bill b where b.createdDate >= :fromDate and b.createdDate < :toDate "
+        + "and (:createdBy is null or b.createdBy = :createdBy) order by b.id")
+
+// one page of the bill list, newest first: the bills with an id below the cursor, optionally filtered by creator and date
+@NamedQuery(name = "Bill.getBillPage", query = "select new com.inn.cafe.Wrapper.BillWrapper(b.id, b.uuid, b.name, b.email, "
+        + "b.contactNumber, b.paymentMethod, b.total, b.createdBy, b.createdDate) from Bill b where b.id < :cursor "
+        + "and (:createdBy is null or b.createdBy = :createdBy) "
+        + "and (:fromDate is null or b.createdDate >= :fromDate) and (:toDate is null or b.createdDate < :toDate) "
+        + "order by b.id desc")
+
+// the uuids of the given list which still have a bill (used by the orphaned invoice sweeper)
+@NamedQuery(name = "Bill.getExistingUuids", query = "select b.uuid from Bill b where b.uuid in :uuids")
+
+// bills saved before the bill_item table existed, in id order after :lastId (used by the bill item backfill)
+@NamedQuery(name = "Bill.getBillsWithoutItems", query = "select b from Bill b where b.id > :lastId and not exists "
+        + "(select i.id from BillItem i where i.billId = b.id) order by b.id")
+
 @Data
 @Entity
 @DynamicInsert
 @DynamicUpdate
 @TypeDef(name = "json", typeClass = JsonType.class)
-@Table(name = "bill")
+@Table(name = "bill", indexes = {
+        @Index(name = "idx_bill_uuid", columnList = "uuid"),
+        @Index(name = "idx_bill_createdby", columnList = "createdby, id"),
+        @Index(name = "idx_bill_createddate", columnList = "createddate")
+})
 public class Bill implements Serializable {
     private static final long serialVersionUID = 1L;
 
@@ -66,4 +91,7 @@ public class Bill implements Serializable {
     @Column(name = "createdby")   // The `createdBy` field records the user who generated the bill.
     private String createdBy;
 
+    @Column(name = "createddate")   // when the bill was generated, used to export the invoices of a date range
+    private LocalDateTime createdDate;
+
 }
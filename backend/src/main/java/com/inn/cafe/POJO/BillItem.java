@@ -0,0 +1,52 @@
+package com.inn.cafe.POJO;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+
+/**
+ * One line item of a bill (one product with its quantity), stored as a row so that sales per product or per
+ * category can be computed with SQL aggregates instead of parsing the productDetails JSON of every bill.
+
+ * The rows are written by BillItemDao with JDBC batch inserts, this entity only defines the table and its indexes.
+ * `billId` is a plain column without a foreign key, the items are deleted together with their bill in deleteBill.
+ */
+@Data
+@Entity
+@Table(name = "bill_item", indexes = {
+        @Index(name = "idx_bill_item_bill", columnList = "bill_id"),
+        @Index(name = "idx_bill_item_product", columnList = "product_id"),
+        @Index(name = "idx_bill_item_category", columnList = "category")
+})
+public class BillItem implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "bill_id", nullable = false)
+    private Integer billId;
+
+    @Column(name = "product_id")
+    private Integer productId;
+
+    @Column(name = "name")
+    private String name;
+
+    @Column(name = "category")
+    private String category;
+
+    @Column(name = "quantity")
+    private Integer quantity;
+
+    @Column(name = "price")
+    private Double price;
+
+    @Column(name = "total")
+    private Double total;
+
+}
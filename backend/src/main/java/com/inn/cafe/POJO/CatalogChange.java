@@ -0,0 +1,41 @@
+package com.inn.cafe.POJO;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+
+/**
+ * Change log of the menu: one row per committed product or category change, for /product/changes.
+ *
+ * The id is the catalog version (see CatalogVersion), it grows with every change. Rows are appended by CatalogChangeLog
+ * in the transaction of the change and removed by it
+ * once older than cafe.catalog.changes.retention-days, clients which synced before the oldest remaining row must load
+ * the whole menu again. The rows are written with JDBC, this entity only defines the table.
+ */
+@Data
+@Entity
+@Table(name = "catalog_change")
+public class CatalogChange implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    /** "product" or "category". */
+    @Column(name = "entity", nullable = false, length = 10)
+    private String entity;
+
+    @Column(name = "entity_id", nullable = false)
+    private Integer entityId;
+
+    /** A ChangeType. */
+    @Column(name = "change_type", nullable = false, length = 10)
+    private String changeType;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,25 @@
+package com.inn.cafe.POJO;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+
+/**
+ * The latest catalog version handed out, in one row with id 1: CatalogChangeDao increments it for every catalog_change
+ * row, holding its lock until the change commits. The row is written with JDBC, this entity only defines the table.
+ */
+@Data
+@Entity
+@Table(name = "catalog_version")
+public class CatalogVersion implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+}
@@ -0,0 +1,45 @@
+package com.inn.cafe.POJO;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+
+/**
+ * Sales rollup: number of bills and revenue per day, per user who generated the bills and per payment method.
+ *
+ * Kept up to date by DailySalesDao in the same transaction as every bill insert and delete, so sales reports read a
+ * few rollup rows per day instead of scanning the bill table. The rows are written with JDBC upserts, this entity
+ * only defines the table. Unknown creator / payment method are stored as '' (the unique key treats NULLs as distinct).
+ */
+@Data
+@Entity
+@Table(name = "daily_sales", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_daily_sales", columnNames = {"sales_date", "created_by", "payment_method"})
+})
+public class DailySales implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(name = "created_by", nullable = false)
+    private String createdBy;
+
+    @Column(name = "payment_method", nullable = false)
+    private String paymentMethod;
+
+    @Column(name = "bill_count", nullable = false)
+    private Integer billCount;
+
+    @Column(name = "revenue", nullable = false)
+    private Long revenue;
+
+}
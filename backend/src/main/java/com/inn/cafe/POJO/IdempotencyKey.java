@@ -0,0 +1,44 @@
+package com.inn.cafe.POJO;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+
+/**
+ * Table of the jdbc idempotency store (cafe.idempotency.store=jdbc), shared by all instances of the application.
+ * The rows are read and written by JdbcIdempotencyStore, this entity only defines the table.
+ * `idem_key` is the SHA-256 hash (hex) of user, path and Idempotency-Key header, `request_hash` the one of the request
+ * body. `status` is null while the request of the key is still running.
+ */
+@Data
+@Entity
+@Table(name = "idempotency_key", indexes = {
+        @Index(name = "idx_idempotency_key_created", columnList = "created_at")
+})
+public class IdempotencyKey implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "idem_key", length = 64)
+    private String key;
+
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    @Column(name = "status")
+    private Integer status;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Lob
+    @Column(name = "body")
+    private byte[] body;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+}
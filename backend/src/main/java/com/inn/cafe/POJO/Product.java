@@ -16,6 +16,8 @@ import java.io.Serializable;
 // word status in this query should be same as written in "private String status;", if you write "private String Status;" then also first letter of status should be capital in query as 'Status' not 'status'
 @NamedQuery(name = "Product.getProductByCategory", query = "select new com.inn.cafe.Wrapper.ProductWrapper(p.id, p.name) from Product p where p.category.id = :id and p.status = 'true' ")  // p.category.id is actually p.categoryId
                                                                                               // p.id, p.name are the selected column name [i.e. id & name column is selected]
+// the changed products of /product/changes, same columns as getAllProduct
+@NamedQuery(name = "Product.getProductsByIds", query = "select new com.inn.cafe.Wrapper.ProductWrapper(p.id, p.name, p.description, p.price, p.status, p.category.id, p.category.name) from Product p where p.id in :ids")
 @NamedQuery(name = "Product.getProductById", query = "select new com.inn.cafe.Wrapper.ProductWrapper(p.id, p.name, p.description, p.price) from Product p where p.id = :id")
 
 /** This above query fetches product details (id, name, description, price, status)
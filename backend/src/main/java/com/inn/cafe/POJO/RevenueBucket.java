@@ -0,0 +1,89 @@
+package com.inn.cafe.POJO;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+
+/**
+ * Revenue time series: number of bills and revenue per 15 minutes, hour and day.
+ *
+ * Every bill is added to the bucket of each resolution by RevenueBucketDao in the same transaction as its insert or
+ * delete, so charts read one row per bucket whatever the number of bills. Old 15 minute and hour buckets are removed
+ * by RevenueBucketRetention, the coarser buckets keep the totals. The rows are written with JDBC upserts, this entity
+ * only defines the table.
+ */
+@Data
+@Entity
+@Table(name = "revenue_bucket", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_revenue_bucket", columnNames = {"resolution", "bucket_start"})
+})
+public class RevenueBucket implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Integer id;
+
+    @Column(name = "resolution", nullable = false, length = 3)
+    private String resolution;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "bill_count", nullable = false)
+    private Integer billCount;
+
+    @Column(name = "revenue", nullable = false)
+    private Long revenue;
+
+
+    public enum Resolution {
+
+        MINUTES_15("15m", Duration.ofMinutes(15)),
+        HOUR("1h", Duration.ofHours(1)),
+        DAY("1d", Duration.ofDays(1));
+
+        private final String code;
+
+        private final Duration size;
+
+        Resolution(String code, Duration size) {
+            this.code = code;
+            this.size = size;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public Duration getSize() {
+            return size;
+        }
+
+        /** Start of the bucket the given time falls in (local time, like the daily_sales days). */
+        public LocalDateTime bucketStart(LocalDateTime time) {
+            LocalDateTime day = time.truncatedTo(ChronoUnit.DAYS);
+            long step = size.toMinutes();
+            return day.plusMinutes(ChronoUnit.MINUTES.between(day, time) / step * step);
+        }
+
+        /**
+         * @param code "15m", "1h" or "1d".
+         * @throws IllegalArgumentException for any other value.
+         */
+        public static Resolution of(String code) {
+            for (Resolution resolution : values()) {
+                if (resolution.code.equals(code)) {
+                    return resolution;
+                }
+            }
+            throw new IllegalArgumentException("Unknown resolution: " + code);
+        }
+    }
+}
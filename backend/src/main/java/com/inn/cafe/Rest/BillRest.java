@@ -2,8 +2,12 @@ package com.inn.cafe.Rest;
 
 
 import com.inn.cafe.POJO.Bill;
+import com.inn.cafe.Wrapper.BillWrapper;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -32,14 +36,36 @@ public interface BillRest {
 
 
     // API to get the Bills based on the particular Admin [for ex. admin X will get the list of bill which he has generated only followed by latest bill on top]
+    // one page at a time: pass the X-Next-Cursor header of the previous page as `cursor` to get the next one
     @GetMapping(path = "/getBills")
-    ResponseEntity<List<Bill>> getBills();
+    ResponseEntity<List<BillWrapper>> getBills(@RequestParam(required = false) Integer cursor,
+                                               @RequestParam(required = false) Integer size,
+                                               @RequestParam(required = false) String fromDate,
+                                               @RequestParam(required = false) String toDate,
+                                               @RequestParam(required = false) String createdBy);
+
+
+    // API to get one bill with its product details [for ex. when a bill of the list is opened]
+    @GetMapping(path = "/get/{id}")
+    ResponseEntity<Bill> getBill(@PathVariable Integer id);
 
 
 
     // API to download the pdf of bill in case of user has lost it and if needed in future for business purpose
     @GetMapping(path = "/getPdf")
-    ResponseEntity<byte[]> getPdf(@RequestBody Map<String, Object> requestMap);
+    ResponseEntity<Resource> getPdf(@RequestBody Map<String, Object> requestMap,
+                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
+
+
+    // API to download many invoices at once as a ZIP archive, by list of uuids or by date range [for ex. month end accounting]
+    // request body: {"uuids": ["BILL-...", ...]} or {"fromDate": "2025-03-01", "toDate": "2025-03-31"}
+    @PostMapping(path = "/exportPdf")
+    ResponseEntity<StreamingResponseBody> exportPdf(@RequestBody Map<String, Object> requestMap);
+
+
+    // API for admin to fill the bill_item table from the productDetails of bills saved before it existed (runs in background)
+    @PostMapping(path = "/backfillItems")
+    ResponseEntity<String> backfillBillItems();
 
 
     // API to delete the bill
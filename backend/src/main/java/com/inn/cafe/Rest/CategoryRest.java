@@ -1,6 +1,7 @@
 package com.inn.cafe.Rest;
 
 import com.inn.cafe.POJO.Category;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -20,7 +21,9 @@ public interface CategoryRest {
      * and if u use http://localhost:8000/category/get it will list all the items by normal user
     */
     @GetMapping(path = "/get")
-    ResponseEntity<List<Category>> getAllCategory(@RequestParam(required = false) String filterValue);
+    ResponseEntity<List<Category>> getAllCategory(@RequestParam(required = false) String filterValue,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                  @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince);
 
 
     // API to update the category/product
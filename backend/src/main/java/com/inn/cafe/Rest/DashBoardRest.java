@@ -1,10 +1,15 @@
 package com.inn.cafe.Rest;
 
 
+import com.inn.cafe.Wrapper.RevenuePoint;
+import com.inn.cafe.Wrapper.SalesWrapper;
+import com.inn.cafe.Wrapper.TopProductWrapper;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.List;
 import java.util.Map;
 
 @RequestMapping(path = "/dashboard")
@@ -13,4 +18,37 @@ public interface DashBoardRest {
     @GetMapping(path = "/details")
     ResponseEntity<Map<String, Object>> getCount();
 
+
+    // API for admin to get the number of bills and the revenue between two days (yyyy-MM-dd, default last 30 days)
+    // grouped by "day", "createdBy" or "paymentMethod", optionally only of the bills of one user
+    @GetMapping(path = "/sales")
+    ResponseEntity<List<SalesWrapper>> getSales(@RequestParam(required = false) String fromDate,
+                                                @RequestParam(required = false) String toDate,
+                                                @RequestParam(defaultValue = "day") String groupBy,
+                                                @RequestParam(required = false) String createdBy);
+
+
+    // API for admin to get the number of bills and the revenue per "15m", "1h" or "1d" bucket between two times
+    // (yyyy-MM-dd or yyyy-MM-ddTHH:mm, the end excluded, default the last 96 buckets), one point per bucket
+    @GetMapping(path = "/revenue")
+    ResponseEntity<List<RevenuePoint>> getRevenue(@RequestParam(defaultValue = "1h") String resolution,
+                                                  @RequestParam(required = false) String fromDate,
+                                                  @RequestParam(required = false) String toDate);
+
+
+    // API for admin to get the best selling products (by quantity) of "day" (today) or "week" (the last 7 days)
+    @GetMapping(path = "/topProducts")
+    ResponseEntity<List<TopProductWrapper>> getTopProducts(@RequestParam(defaultValue = "day") String window,
+                                                           @RequestParam(defaultValue = "10") Integer limit);
+
+
+    // API for admin to recompute the sales rollup and the revenue buckets from all bills [for ex. after bills were changed directly in the database]
+    @PostMapping(path = "/sales/rebuild")
+    ResponseEntity<String> rebuildSales();
+
+
+    // API for admin to get the dashboard numbers pushed as server-sent events: a "snapshot" event, then a "delta" event per change
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    ResponseEntity<SseEmitter> getStream();
+
 }
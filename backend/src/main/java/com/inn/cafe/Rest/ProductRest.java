@@ -1,8 +1,12 @@
 package com.inn.cafe.Rest;
 
 import com.inn.cafe.POJO.Product;
+import com.inn.cafe.Wrapper.CatalogChanges;
+import com.inn.cafe.Wrapper.ProductImportJobStatus;
 import com.inn.cafe.Wrapper.ProductWrapper;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -18,7 +22,8 @@ public interface ProductRest {
 
     // API to get all the product present inside the particular category
     @GetMapping(path = "/get")
-    ResponseEntity<List<ProductWrapper>> getAllProduct();
+    ResponseEntity<List<ProductWrapper>> getAllProduct(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                       @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince);
 
     // API to update the product
     @PostMapping(path = "/update")
@@ -40,9 +45,21 @@ public interface ProductRest {
     @GetMapping(path = "/getById/{id}")
     ResponseEntity<ProductWrapper> getProductById(@PathVariable Integer id);
 
-    // API to get the product from the Excel file
+    // API for POS terminals to sync the menu: the products and categories changed since catalog version 'since'
+    @GetMapping(path = "/changes")
+    ResponseEntity<CatalogChanges> getChanges(@RequestParam(defaultValue = "0") long since);
+
+    // API to get the product from the Excel file: queues an import job and returns its status (202) right away
     @PostMapping(path = "/uploadExcel")
-    ResponseEntity<String> uploadExcel(@RequestParam("file") MultipartFile file);
+    ResponseEntity<ProductImportJobStatus> uploadExcel(@RequestParam("file") MultipartFile file);
+
+    // API to follow an import job: progress, rows per second, products imported and rows skipped
+    @GetMapping(path = "/importJobs/{id}")
+    ResponseEntity<ProductImportJobStatus> getImportJob(@PathVariable String id);
+
+    // API to download the rows an import job skipped and why, as CSV
+    @GetMapping(path = "/importJobs/{id}/errors")
+    ResponseEntity<Resource> getImportJobErrors(@PathVariable String id);
 
     // API to implement pagination
     @GetMapping(path = "/productList")
@@ -5,10 +5,13 @@ import com.inn.cafe.POJO.Bill;
 import com.inn.cafe.Rest.BillRest;
 import com.inn.cafe.Service.BillService;
 import com.inn.cafe.Utils.CafeUtils;
+import com.inn.cafe.Wrapper.BillWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -46,9 +49,19 @@ public class BillRestImpl implements BillRest {
      * us to handle different data types flexibly.
      */
     @Override
-    public ResponseEntity<List<Bill>> getBills() {
+    public ResponseEntity<List<BillWrapper>> getBills(Integer cursor, Integer size, String fromDate, String toDate, String createdBy) {
         try {
-            return billService.getBills();
+            return billService.getBills(cursor, size, fromDate, toDate, createdBy);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return null;
+    }
+
+    @Override
+    public ResponseEntity<Bill> getBill(Integer id) {
+        try {
+            return billService.getBill(id);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
@@ -57,15 +70,35 @@ public class BillRestImpl implements BillRest {
 
     // method to download/get the pdf of bill in case of user has lost it and if needed in future for business purpose
     @Override
-    public ResponseEntity<byte[]> getPdf(Map<String, Object> requestMap) {
+    public ResponseEntity<Resource> getPdf(Map<String, Object> requestMap, String ifNoneMatch) {
         try {
-            return billService.getPdf(requestMap);
+            return billService.getPdf(requestMap, ifNoneMatch);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
         return null;
     }
 
+    @Override
+    public ResponseEntity<StreamingResponseBody> exportPdf(Map<String, Object> requestMap) {
+        try {
+            return billService.exportPdf(requestMap);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<String> backfillBillItems() {
+        try {
+            return billService.backfillBillItems();
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return CafeUtils.getResponseEntity(CafeConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
     @Override
     public ResponseEntity<String> deleteBill(Integer id) {
         try{
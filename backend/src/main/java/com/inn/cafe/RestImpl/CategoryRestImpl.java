@@ -50,9 +50,9 @@ public class CategoryRestImpl implements CategoryRest {
      * and if u use http://localhost:8000/category/get it will list all the items by normal user
      */
     @Override
-    public ResponseEntity<List<Category>> getAllCategory(String filterValue) {
+    public ResponseEntity<List<Category>> getAllCategory(String filterValue, String ifNoneMatch, String ifModifiedSince) {
         try {
-            return categoryService.getAllCategory(filterValue);
+            return categoryService.getAllCategory(filterValue, ifNoneMatch, ifModifiedSince);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
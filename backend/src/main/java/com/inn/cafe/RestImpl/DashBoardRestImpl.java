@@ -1,11 +1,19 @@
 package com.inn.cafe.RestImpl;
 
+import com.inn.cafe.Constents.CafeConstants;
 import com.inn.cafe.Rest.DashBoardRest;
 import com.inn.cafe.Service.DashBoardService;
+import com.inn.cafe.Utils.CafeUtils;
+import com.inn.cafe.Wrapper.RevenuePoint;
+import com.inn.cafe.Wrapper.SalesWrapper;
+import com.inn.cafe.Wrapper.TopProductWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.List;
 import java.util.Map;
 
 
@@ -24,4 +32,54 @@ public class DashBoardRestImpl implements DashBoardRest {
 //        }
         return dashBoardService.getCount();
     }
+
+    @Override
+    public ResponseEntity<List<SalesWrapper>> getSales(String fromDate, String toDate, String groupBy, String createdBy) {
+        try {
+            return dashBoardService.getSales(fromDate, toDate, groupBy, createdBy);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<List<RevenuePoint>> getRevenue(String resolution, String fromDate, String toDate) {
+        try {
+            return dashBoardService.getRevenue(resolution, fromDate, toDate);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<List<TopProductWrapper>> getTopProducts(String window, Integer limit) {
+        try {
+            return dashBoardService.getTopProducts(window, limit);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<String> rebuildSales() {
+        try {
+            return dashBoardService.rebuildSales();
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return CafeUtils.getResponseEntity(CafeConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<SseEmitter> getStream() {
+        try {
+            return dashBoardService.getStream();
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
 }
@@ -1,28 +1,35 @@
 package com.inn.cafe.RestImpl;
 
 import com.inn.cafe.Constents.CafeConstants;
-import com.inn.cafe.DAO.ProductDao;
 import com.inn.cafe.POJO.Product;
 import com.inn.cafe.Rest.ProductRest;
-import com.inn.cafe.Service.ExcelService;
+import com.inn.cafe.Service.ProductImportJobs;
 import com.inn.cafe.Service.ProductService;
 import com.inn.cafe.Utils.CafeUtils;
+import com.inn.cafe.Wrapper.CatalogChanges;
+import com.inn.cafe.Wrapper.ProductImportJobStatus;
 import com.inn.cafe.Wrapper.ProductWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 public class ProductRestImpl implements ProductRest {
@@ -31,10 +38,7 @@ public class ProductRestImpl implements ProductRest {
     private ProductService productService;
 
     @Autowired
-    private ProductDao productDao;
-
-    @Autowired
-    private ExcelService excelService;
+    private ProductImportJobs productImportJobs;
 
     @Override
     public ResponseEntity<String> addNewProduct(@RequestBody Map<String, String> requestMap) {
@@ -47,9 +51,9 @@ public class ProductRestImpl implements ProductRest {
     }
 
     @Override
-    public ResponseEntity<List<ProductWrapper>> getAllProduct() {
+    public ResponseEntity<List<ProductWrapper>> getAllProduct(String ifNoneMatch, String ifModifiedSince) {
         try {
-            return productService.getAllProduct();
+            return productService.getAllProduct(ifNoneMatch, ifModifiedSince);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
@@ -97,6 +101,16 @@ public class ProductRestImpl implements ProductRest {
         return new ResponseEntity<>(new ArrayList<>(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @Override
+    public ResponseEntity<CatalogChanges> getChanges(long since) {
+        try {
+            return productService.getChanges(since);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
     @Override
     public ResponseEntity<ProductWrapper> getProductById(Integer id) {
         try {
@@ -110,30 +124,46 @@ public class ProductRestImpl implements ProductRest {
 
     // implementation to add the product in category from Excel file
     @Override
-    public ResponseEntity<String> uploadExcel(MultipartFile file) {
+    public ResponseEntity<ProductImportJobStatus> uploadExcel(MultipartFile file) {
         try {
-            List<Product> products = excelService.parseExcelFile(file);
-
-            if (products.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Uploaded file is empty or has invalid data.");
-            }
-
-            // Log the products being processed, including their category ID
-            products.forEach(product -> {
-                System.out.println("Processing product: " + product.getName() + " with category ID: " + product.getCategory().getId());
-            });
-
-            // Save to database
-            productDao.saveAll(products);
-            return ResponseEntity.ok("File uploaded and data inserted successfully!");
-
-        } catch (IOException e) {
-            e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error reading Excel file: " + e.getMessage());
+            // validated, checked against the menu and saved in batches by a background job
+            ProductImportJobStatus status = productImportJobs.submit(file);
+            return ResponseEntity.accepted().location(URI.create("/product/importJobs/" + status.id())).body(status);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "60").build();
         } catch (Exception e) {
             e.printStackTrace();
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Unexpected error: " + e.getMessage());
         }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<ProductImportJobStatus> getImportJob(String id) {
+        try {
+            ProductImportJobStatus status = productImportJobs.getStatus(id);
+            return status == null ? new ResponseEntity<>(HttpStatus.NOT_FOUND) : ResponseEntity.ok(status);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public ResponseEntity<Resource> getImportJobErrors(String id) {
+        try {
+            Resource report = productImportJobs.getErrorReport(id);
+            if (report == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            return ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                            .filename("import-" + id + "-errors.csv").build().toString())
+                    .body(report);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
     @Override
@@ -0,0 +1,21 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.POJO.Bill;
+import com.inn.cafe.POJO.BillItem;
+
+import java.util.List;
+
+public interface BillItemService {
+
+    /** The line items in the productDetails JSON of a bill. */
+    List<BillItem> getBillItems(Bill bill);
+
+    /** Inserts the bill_item rows of a saved bill, in the caller's transaction. */
+    void saveItems(Bill bill);
+
+    /** Starts writing the bill_item rows of all bills saved before the table existed, false if it is already running. */
+    boolean startBackfill();
+
+    /** Runs the backfill on the calling thread, returns the number of bills backfilled. */
+    int backfill();
+}
@@ -1,8 +1,11 @@
 package com.inn.cafe.Service;
 
 import com.inn.cafe.POJO.Bill;
+import com.inn.cafe.Wrapper.BillWrapper;
+import org.springframework.core.io.Resource;
 import org.springframework.data.repository.query.Param;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -12,9 +15,15 @@ public interface BillService {
     ResponseEntity<String> generateReport(Map<String, Object> requestMap);
 
 
-    ResponseEntity<List<Bill>> getBills();
+    ResponseEntity<List<BillWrapper>> getBills(Integer cursor, Integer size, String fromDate, String toDate, String createdBy);
 
-    ResponseEntity<byte[]> getPdf(Map<String, Object> requestMap);
+    ResponseEntity<Bill> getBill(Integer id);
+
+    ResponseEntity<Resource> getPdf(Map<String, Object> requestMap, String ifNoneMatch);
+
+    ResponseEntity<StreamingResponseBody> exportPdf(Map<String, Object> requestMap);
+
+    ResponseEntity<String> backfillBillItems();
 
 
     ResponseEntity<String> deleteBill(@Param("id") Integer id);
@@ -0,0 +1,140 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.DAO.CatalogChangeDao;
+import com.inn.cafe.DAO.CategoryDao;
+import com.inn.cafe.DAO.ProductDao;
+import com.inn.cafe.Events.CatalogImportedEvent;
+import com.inn.cafe.Events.CategoryChangedEvent;
+import com.inn.cafe.Events.ChangeType;
+import com.inn.cafe.Events.ProductChangedEvent;
+import com.inn.cafe.POJO.Category;
+import com.inn.cafe.Wrapper.CatalogChangeEntry;
+import com.inn.cafe.Wrapper.CatalogChanges;
+import com.inn.cafe.Wrapper.ProductWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.*;
+
+
+/**
+ * Catalog versions and the changes between them, for POS terminals which sync the menu after being offline.
+ *
+ * Every product or category change is appended to the catalog_change log, its row id is the new catalog version. The
+ * row is written just before the change commits, in its transaction: the change and its row commit together or not at
+ * all, and a failing append rolls the change back. CatalogChangeDao hands out versions in commit order, across all
+ * instances, so a client which has seen version N has seen every change up to N.
+ *
+ * getChanges returns each changed product and category once, in its current state read after the log, or as deleted
+ * when it does not exist any more. Changes older than cafe.catalog.changes.retention-days are removed every night;
+ * a client behind the oldest remaining change is told to resync. The latest change is always kept, so the latest
+ * version stays known to getChanges.
+ */
+@Slf4j
+@Service
+public class CatalogChangeLog {
+
+    static final String PRODUCT = "product";
+
+    static final String CATEGORY = "category";
+
+    @Autowired
+    private CatalogChangeDao catalogChangeDao;
+
+    @Autowired
+    private ProductDao productDao;
+
+    @Autowired
+    private CategoryDao categoryDao;
+
+    @Value("${cafe.catalog.changes.retention-days:30}")
+    private long retentionDays;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        catalogChangeDao.append(PRODUCT, event.productId(), event.type(), LocalDateTime.now(clock));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        catalogChangeDao.append(CATEGORY, event.categoryId(), event.type(), LocalDateTime.now(clock));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        catalogChangeDao.appendAll(CATEGORY, event.categoryIds(), ChangeType.CREATED, now);
+        catalogChangeDao.appendAll(PRODUCT, event.productIds(), ChangeType.CREATED, now);
+    }
+
+
+    /**
+     * @param since the version the client synced last, 0 for none.
+     * @throws IllegalArgumentException if since is negative.
+     */
+    public CatalogChanges getChanges(long since) {
+        if (since < 0) {
+            throw new IllegalArgumentException("since must not be negative but is " + since);
+        }
+        long[] range = catalogChangeDao.getVersionRange();
+        long oldest = range[0];
+        long latest = range[1];
+        if (since > latest || (oldest > 0 && since < oldest - 1)) {
+            // compacted past the client's version, or a version this log never handed out
+            return new CatalogChanges(latest, true, List.of(), List.of(), List.of(), List.of());
+        }
+
+        List<CatalogChangeEntry> entries = catalogChangeDao.getChangesSince(since);
+        long version = since;
+        Set<Integer> productIds = new LinkedHashSet<>();
+        Set<Integer> categoryIds = new LinkedHashSet<>();
+        for (CatalogChangeEntry entry : entries) {
+            version = entry.version();
+            (PRODUCT.equals(entry.entity()) ? productIds : categoryIds).add(entry.entityId());
+        }
+
+        // read after the log: at least as new as its latest change, whatever the type of the logged changes
+        List<ProductWrapper> products = productIds.isEmpty() ? List.of() : productDao.getProductsByIds(productIds);
+        List<Integer> deletedProducts = new ArrayList<>(productIds);
+        products.forEach(product -> deletedProducts.remove(product.getId()));
+
+        List<Category> categories = new ArrayList<>();
+        List<Integer> deletedCategories = new ArrayList<>(categoryIds);
+        for (Category entity : categoryDao.findAllById(categoryIds)) {
+            Category category = new Category();  // without its products, they are in the product changes
+            category.setId(entity.getId());
+            category.setName(entity.getName());
+            category.setVersion(entity.getVersion());
+            categories.add(category);
+            deletedCategories.remove(entity.getId());
+        }
+        return new CatalogChanges(version, false, products, deletedProducts, categories, deletedCategories);
+    }
+
+
+    @Scheduled(cron = "${cafe.catalog.changes.retention.cron:0 50 3 * * *}")
+    public void scheduledPrune() {
+        try {
+            prune();
+        } catch (Exception ex) {
+            log.warn("Old catalog changes could not be removed", ex);
+        }
+    }
+
+    /** @return the number of changes removed. */
+    public int prune() {
+        int removed = catalogChangeDao.deleteBefore(LocalDateTime.now(clock).minusDays(retentionDays));
+        log.info("Removed {} old catalog changes", removed);
+        return removed;
+    }
+}
@@ -14,7 +14,7 @@ public interface CategoryService {
     /** API to get all the items by admin only if you use the url: http://localhost:8000/category/get?filterValue=true
      * and if u use http://localhost:8000/category/get it will list all the items by normal user
      */
-    ResponseEntity<List<Category>> getAllCategory(String filterValue);
+    ResponseEntity<List<Category>> getAllCategory(String filterValue, String ifNoneMatch, String ifModifiedSince);
 
     ResponseEntity<String> updateCategory(Map<String, String> requestMap);
 
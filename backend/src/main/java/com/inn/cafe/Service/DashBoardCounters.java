@@ -0,0 +1,138 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.DAO.BillDao;
+import com.inn.cafe.DAO.CategoryDao;
+import com.inn.cafe.DAO.ProductDao;
+import com.inn.cafe.Events.BillChangedEvent;
+import com.inn.cafe.Events.CatalogImportedEvent;
+import com.inn.cafe.Events.CategoryChangedEvent;
+import com.inn.cafe.Events.ProductChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Number of categories, products and bills for /dashboard/details, kept in memory so the dashboard does not run three
+ * COUNT(*) queries on every refresh.
+ *
+ * The counters move with the change events of the category, product and bill services, after the change is
+ * committed (or right away when it was made outside a transaction). Changes which bypass the services, and events
+ * racing with a reconciliation, can make them drift: every cafe.dashboard.counters.reconcile-millis they are compared
+ * with the database and corrected. The first reconciliation runs at startup; until it has run the counters are
+ * seeded on the first read.
+ */
+@Slf4j
+@Service
+public class DashBoardCounters {
+
+    @Autowired
+    private CategoryDao categoryDao;
+
+    @Autowired
+    private ProductDao productDao;
+
+    @Autowired
+    private BillDao billDao;
+
+    private final LongAdder categories = new LongAdder();
+
+    private final LongAdder products = new LongAdder();
+
+    private final LongAdder bills = new LongAdder();
+
+    private volatile boolean seeded;
+
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        categories.add(event.type().countDelta());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        products.add(event.type().countDelta());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        categories.add(event.categoryIds().size());
+        products.add(event.productIds().size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBillChanged(BillChangedEvent event) {
+        bills.add(event.type().countDelta());
+    }
+
+
+    public long getCategoryCount() {
+        seedIfNeeded();
+        return categories.sum();
+    }
+
+    public long getProductCount() {
+        seedIfNeeded();
+        return products.sum();
+    }
+
+    public long getBillCount() {
+        seedIfNeeded();
+        return bills.sum();
+    }
+
+
+    @Scheduled(fixedDelayString = "${cafe.dashboard.counters.reconcile-millis:300000}")
+    public void scheduledReconcile() {
+        try {
+            reconcile();
+        } catch (Exception ex) {
+            log.warn("Dashboard counters could not be reconciled", ex);
+        }
+    }
+
+
+    /**
+     * Sets the counters to the row counts of the database.
+     * @return the total correction over the three counters, 0 if they were exact.
+     */
+    public synchronized long reconcile() {
+        long drift = reconcile("category", categories, categoryDao::count)
+                + reconcile("product", products, productDao::count)
+                + reconcile("bill", bills, billDao::count);
+        seeded = true;
+        return drift;
+    }
+
+
+    private long reconcile(String name, LongAdder counter, LongSupplier count) {
+        long before = counter.sum();
+        long rows = count.getAsLong();
+        long after = counter.sum();
+        if (seeded && before != after) {
+            // events arrived while counting, the row count may or may not include them: leave it to the next run
+            return 0;
+        }
+        long correction = rows - after;
+        if (correction != 0) {
+            // added, not set: an event landing between the sum and here is kept
+            counter.add(correction);
+            if (seeded) {
+                log.info("Dashboard {} counter corrected by {}", name, correction);
+            }
+        }
+        return Math.abs(correction);
+    }
+
+
+    private void seedIfNeeded() {
+        if (!seeded) {
+            reconcile();
+        }
+    }
+}
@@ -1,10 +1,25 @@
 package com.inn.cafe.Service;
 
 
+import com.inn.cafe.Wrapper.RevenuePoint;
+import com.inn.cafe.Wrapper.SalesWrapper;
+import com.inn.cafe.Wrapper.TopProductWrapper;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.List;
 import java.util.Map;
 
 public interface DashBoardService {
     ResponseEntity<Map<String, Object>> getCount();
+
+    ResponseEntity<List<SalesWrapper>> getSales(String fromDate, String toDate, String groupBy, String createdBy);
+
+    ResponseEntity<List<RevenuePoint>> getRevenue(String resolution, String fromDate, String toDate);
+
+    ResponseEntity<List<TopProductWrapper>> getTopProducts(String window, Integer limit);
+
+    ResponseEntity<String> rebuildSales();
+
+    ResponseEntity<SseEmitter> getStream();
 }
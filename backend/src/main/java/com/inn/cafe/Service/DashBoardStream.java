@@ -0,0 +1,368 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.DAO.DailySalesDao;
+import com.inn.cafe.Events.BillChangedEvent;
+import com.inn.cafe.Events.CatalogImportedEvent;
+import com.inn.cafe.Events.CategoryChangedEvent;
+import com.inn.cafe.Events.ProductChangedEvent;
+import com.inn.cafe.Wrapper.DashBoardDelta;
+import com.inn.cafe.Wrapper.SalesWrapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+
+/**
+ * Live dashboard metrics as server-sent events, so open dashboards do not have to poll /dashboard/details.
+ *
+ * A new subscriber first gets a "snapshot" event (the counts of DashBoardCounters and today's revenue), then one
+ * "delta" event (DashBoardDelta) per committed category, product or bill change. The change events are fanned out
+ * once to all subscribers: the publishing thread only offers the delta to the bounded queue of each subscriber, the
+ * events are written by the writer threads of this stream, at most one per subscriber. A write blocks while the
+ * socket buffer of a slow client is full, so every subscriber being written gets its own thread and a stalled client
+ * only holds up itself. At most cafe.dashboard.stream.max-connections subscribers are accepted.
+ *
+ * A subscriber is too slow to keep up and is dropped when its queue is full (cafe.dashboard.stream.queue-size) or a
+ * write to it has not returned after cafe.dashboard.stream.write-timeout-millis; the client reconnects and starts
+ * again from a snapshot. The emitter of a dropped subscriber is completed by the watchdog thread, or, if a write to it
+ * is still blocked (the emitter can't be completed during a write), by its writer thread as soon as the write returns
+ * or fails at the socket timeout.
+ *
+ * A comment is sent every cafe.dashboard.stream.heartbeat-seconds to find dead connections and keep proxies from
+ * closing idle ones.
+ *
+ * Metrics: dashboard.stream.subscribers and dashboard.stream.dropped.
+ */
+@Slf4j
+@Service
+public class DashBoardStream {
+
+    @Autowired
+    private DashBoardCounters dashBoardCounters;
+
+    @Autowired
+    private DailySalesDao dailySalesDao;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cafe.dashboard.stream.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${cafe.dashboard.stream.queue-size:100}")
+    private int queueSize;
+
+    @Value("${cafe.dashboard.stream.write-timeout-millis:10000}")
+    private long writeTimeoutMillis;
+
+    @Value("${cafe.dashboard.stream.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    @Value("${cafe.dashboard.stream.timeout-millis:1800000}")
+    private long timeoutMillis;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    /** Writes the events, one thread per subscriber being written. */
+    private ThreadPoolExecutor writers;
+
+    /** Heartbeats, the write watchdog and the completion of dropped subscribers, never blocked by a client. */
+    private ScheduledExecutorService watchdog;
+
+    private LongFunction<SseEmitter> emitters = SseEmitter::new;
+
+    private Counter droppedCounter;
+
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        // twice the subscribers: dropped subscribers may still hold a thread until their blocked write times out
+        writers = new ThreadPoolExecutor(0, 2 * maxConnections, 60L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "dashboard-stream-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-stream-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        long checkMillis = Math.max(1, writeTimeoutMillis / 2);
+        watchdog.scheduleWithFixedDelay(this::dropStalled, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("dashboard.stream.subscribers", subscribers, List::size)
+                .description("Open dashboard event streams")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("dashboard.stream.dropped")
+                .description("Dashboard event streams closed because the client did not keep up")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> {
+            subscriber.close();
+            subscriber.completeIfIdle();
+        });
+        subscribers.clear();
+        watchdog.shutdownNow();
+        writers.shutdownNow();
+    }
+
+
+    /**
+     * Opens a stream for a new subscriber. The subscriber is registered before the snapshot is read, so no change
+     * committed meanwhile is missed: its delta is queued and sent after the snapshot.
+     * @return the emitter, or null if the connection limit is reached (then nothing is read).
+     */
+    public SseEmitter subscribe() {
+        Subscriber subscriber = new Subscriber(emitters.apply(timeoutMillis));
+        synchronized (subscribers) {
+            if (subscribers.size() >= maxConnections) {
+                return null;
+            }
+            subscribers.add(subscriber);
+        }
+        subscriber.emitter.onCompletion(subscriber::closeCompleted);
+        subscriber.emitter.onTimeout(subscriber::close);
+        subscriber.emitter.onError(ex -> subscriber.closeCompleted());
+        try {
+            subscriber.start(new Message("snapshot", snapshot()));
+        } catch (RuntimeException ex) {
+            subscriber.close();
+            throw ex;
+        }
+        return subscriber.emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        publish(new DashBoardDelta("category", event.type().countDelta(), 0));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        publish(new DashBoardDelta("product", event.type().countDelta(), 0));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        publish(new DashBoardDelta("category", event.categoryIds().size(), 0));
+        publish(new DashBoardDelta("product", event.productIds().size(), 0));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBillChanged(BillChangedEvent event) {
+        Integer total = event.bill().getTotal();
+        int delta = event.type().countDelta();
+        publish(new DashBoardDelta("bill", delta, total == null ? 0 : (long) delta * total));
+    }
+
+
+    private void publish(DashBoardDelta delta) {
+        if (delta.count() == 0 && delta.revenue() == 0) {
+            return;  // an update does not move any dashboard number
+        }
+        Message message = new Message("delta", delta);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(message);
+        }
+    }
+
+
+    private void heartbeat() {
+        Message message = new Message(null, "heartbeat");
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(message);
+        }
+    }
+
+    private void dropStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long started = subscriber.writeStartedNanos;
+            if (started != 0 && now - started > TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis)) {
+                subscriber.drop("a write did not return in " + writeTimeoutMillis + " ms");
+            }
+        }
+    }
+
+
+    private Map<String, Object> snapshot() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("category", dashBoardCounters.getCategoryCount());
+        map.put("product", dashBoardCounters.getProductCount());
+        map.put("bill", dashBoardCounters.getBillCount());
+        LocalDate today = LocalDate.now();
+        map.put("revenueToday", dailySalesDao.getSales(today, today, "day", null).stream()
+                .mapToLong(SalesWrapper::getRevenue).sum());
+        return map;
+    }
+
+
+    /** An event to send, a comment if name is null. */
+    private record Message(String name, Object data) {
+
+        SseEmitter.SseEventBuilder toEvent() {
+            return name == null ? SseEmitter.event().comment((String) data) : SseEmitter.event().name(name).data(data);
+        }
+    }
+
+
+    private class Subscriber implements Runnable {
+
+        final SseEmitter emitter;
+
+        final BlockingQueue<Message> queue = new ArrayBlockingQueue<>(queueSize);
+
+        /** Set while a drain of the queue is scheduled or running, so one subscriber is written by one thread at a time. */
+        final AtomicBoolean draining = new AtomicBoolean();
+
+        final AtomicBoolean completed = new AtomicBoolean();
+
+        /** Sent before the queued events, set by start. */
+        volatile Message snapshot;
+
+        /** The queue is drained only once the snapshot is there. */
+        volatile boolean started;
+
+        volatile boolean closed;
+
+        /** System.nanoTime() when the write in progress started, 0 if none is. */
+        volatile long writeStartedNanos;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void start(Message snapshot) {
+            this.snapshot = snapshot;
+            started = true;
+            scheduleDrain();
+        }
+
+        void offer(Message message) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(message)) {
+                drop("its queue is full");
+                return;
+            }
+            if (started) {
+                scheduleDrain();
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Message first = snapshot;
+                if (first != null) {
+                    snapshot = null;
+                    send(first);
+                }
+                for (Message message = queue.poll(); message != null && !closed; message = queue.poll()) {
+                    send(message);
+                }
+            } catch (Exception ex) {
+                // the client has gone away
+                log.debug("Dashboard stream closed", ex);
+                close();
+                if (completed.compareAndSet(false, true)) {
+                    emitter.completeWithError(ex);
+                }
+            } finally {
+                writeStartedNanos = 0;
+                draining.set(false);
+            }
+            if (closed) {
+                complete();  // dropped while the write was blocked
+            } else if (!queue.isEmpty()) {
+                scheduleDrain();  // offered after the last poll, while draining was still set
+            }
+        }
+
+        private void send(Message message) throws IOException {
+            writeStartedNanos = System.nanoTime();
+            emitter.send(message.toEvent());
+            writeStartedNanos = 0;
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this);
+                } catch (RejectedExecutionException ex) {
+                    draining.set(false);
+                    drop("no writer thread is free");  // or shutting down
+                }
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+            queue.clear();
+        }
+
+        /** Closed by the container, the emitter is completed already. */
+        void closeCompleted() {
+            completed.set(true);
+            close();
+        }
+
+        void complete() {
+            if (completed.compareAndSet(false, true)) {
+                emitter.complete();
+            }
+        }
+
+        /** Completes the emitter unless a writer has it, that writer completes it when it's done. */
+        void completeIfIdle() {
+            if (!draining.get()) {
+                complete();
+            }
+        }
+
+        void drop(String reason) {
+            if (subscribers.contains(this)) {
+                close();
+                droppedCounter.increment();
+                log.info("Dashboard stream dropped, the client did not keep up: {}", reason);
+                try {
+                    watchdog.execute(this::completeIfIdle);
+                } catch (RejectedExecutionException ex) {
+                    // shutting down, the emitter is completed by shutdown()
+                }
+            }
+        }
+    }
+}
@@ -1,160 +1,138 @@
 package com.inn.cafe.Service;
 
-import com.inn.cafe.DAO.CategoryDao;
-import com.inn.cafe.DAO.ProductDao;
-import com.inn.cafe.POJO.Category;
-import com.inn.cafe.POJO.Product;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
+import com.inn.cafe.Utils.ExcelRowReader;
+import com.inn.cafe.Wrapper.ProductImportResult;
+import com.inn.cafe.Wrapper.ProductImportRow;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.*;
 
+@Slf4j
 @Service
 public class ExcelService {
 
     @Autowired
-    private CategoryDao categoryDao;
+    private ProductImporter productImporter;
+
+    /**
+     * Reads the rows of the file (columns by header name) and imports them in batches while the sheet is read, rows of
+     * categories which are not on the menu are skipped. Progress and skipped rows are reported to the listener.
+     */
+    public ProductImportResult importExcelFile(File file, ProductImportListener listener) throws Exception {
+        Map<String, Integer> columnIndexMap = new HashMap<>();
+        ProductImporter.Session session = productImporter.start(false, listener);
+        int[] rowCount = new int[1];
+        int[] skipped = new int[1];
 
-    @Autowired
-    private ProductDao productDao;
-
-    private static final Map<String, Integer> columnIndexMap = new HashMap<>();
-
-    public List<Product> parseExcelFile(MultipartFile file) throws Exception {
-        List<Product> products = new ArrayList<>();
-
-        try (InputStream inputStream = file.getInputStream();
-             Workbook workbook = WorkbookFactory.create(inputStream)) {
-
-            Sheet sheet = workbook.getSheetAt(0);
-            if (sheet.getPhysicalNumberOfRows() < 2) {
-                throw new Exception("Excel file is empty or has no valid data.");
-            }
-
-            // 🔥 Read header row & map column names
-            Row headerRow = sheet.getRow(0);
-            mapColumnIndexes(headerRow);
-
-            for (Row row : sheet) {
-                if (row.getRowNum() == 0 || isRowEmpty(row)) continue; // Skip header & empty rows
-
-                Product product = new Product();
-
-                // ✅ Read Data Dynamically
-                String name = getCellValue(row, "name");
-                if (name.isEmpty()) {
-                    System.err.println("⚠️ Skipping row " + row.getRowNum() + ": Product name is missing.");
-                    continue; // Skip if name is missing
-                }
-                product.setName(name);
-
-                String description = getCellValue(row, "description");
-                if (description.isEmpty()) {
-                    System.err.println("⚠️ Skipping row " + row.getRowNum() + ": Product description is missing.");
-                    continue; // Skip if description is missing
+        try {
+            ExcelRowReader.read(file, new ExcelRowReader.RowHandler() {
+                @Override
+                public void sheetSize(int rows) {
+                    listener.sheetSize(rows);
                 }
-                product.setDescription(description);
 
-                Integer price = getIntCellValue(row, "price");
-                if (price == null) {
-                    System.err.println("⚠️ Skipping row " + row.getRowNum() + ": Invalid price format.");
-                    continue;
-                }
-                product.setPrice(price);
+                @Override
+                public void row(int rowNum, List<Object> cells) {
+                    rowCount[0]++;
+                    // 🔥 Read header row & map column names
+                    if (rowNum == 0) {
+                        mapColumnIndexes(cells, columnIndexMap);
+                        return;
+                    }
+                    if (ExcelRowReader.isEmpty(cells)) return; // Skip empty rows
+                    listener.rowRead(rowNum);
+
+                    // ✅ Read Data Dynamically
+                    String name = getCellValue(cells, columnIndexMap, "name");
+                    if (name.isEmpty()) {
+                        skip(rowNum, "Product name is missing.");
+                        return; // Skip if name is missing
+                    }
 
-                product.setStatus(getStatusCellValue(row, "status"));
+                    String description = getCellValue(cells, columnIndexMap, "description");
+                    if (description.isEmpty()) {
+                        skip(rowNum, "Product description is missing.");
+                        return; // Skip if description is missing
+                    }
 
-                String categoryName = getCellValue(row, "category_name"); // Category name instead of ID
-                if (categoryName.isEmpty()) {
-                    System.err.println("⚠️ Skipping row " + row.getRowNum() + ": Category name is missing.");
-                    continue; // Skip if category name is missing
-                }
+                    Integer price = getIntCellValue(cells, columnIndexMap, "price");
+                    if (price == null) {
+                        skip(rowNum, "Invalid price format.");
+                        return;
+                    }
 
-                Category category = categoryDao.findByName(categoryName).orElse(null);
-                if (category != null) {
-                    // Check if product already exists in the same category by name
-                    Product existingProduct = productDao.findByNameAndCategory_Id(product.getName(), category.getId());
-                    if (existingProduct != null) {
-                        System.err.println("⚠️ Product with name '" + product.getName() + "' already exists in category " + category.getName() + ". Skipping this row.");
-                        continue; // Skip if product already exists
+                    String categoryName = getCellValue(cells, columnIndexMap, "category_name"); // Category name instead of ID
+                    if (categoryName.isEmpty()) {
+                        skip(rowNum, "Category name is missing.");
+                        return; // Skip if category name is missing
                     }
-                    product.setCategory(category);
-                    products.add(product);
-                } else {
-                    System.err.println("⚠️ Category " + categoryName + " not found in DB. Skipping row.");
+
+                    // unknown categories and products already on the menu are skipped by the importer, without a query per row
+                    session.add(new ProductImportRow(rowNum, categoryName, name, description, price,
+                            getStatusCellValue(cells, columnIndexMap, "status")));
                 }
-            }
 
+                private void skip(int rowNum, String reason) {
+                    log.debug("Skipping row {}: {}", rowNum, reason);
+                    listener.rowSkipped(rowNum, reason);
+                    skipped[0]++;
+                }
+            });
         } catch (IOException e) {
             throw new Exception("Error processing the Excel file: " + e.getMessage(), e);
         }
-
-        return products;
-    }
-
-    private void mapColumnIndexes(Row headerRow) {
-        columnIndexMap.clear();
-        for (Cell cell : headerRow) {
-            String columnName = cell.getStringCellValue().trim().toLowerCase();
-            columnIndexMap.put(columnName, cell.getColumnIndex());
-
-            // Log the column and its index for debugging purposes
-            System.out.println("Column: " + columnName + " -> Index: " + cell.getColumnIndex());
+        ProductImportResult result = session.finish();
+        if (rowCount[0] < 2) {
+            throw new Exception("Excel file is empty or has no valid data.");
         }
+        return new ProductImportResult(result.imported(), result.categoriesCreated(), result.skipped() + skipped[0]);
     }
 
-
-    private boolean isRowEmpty(Row row) {
-        if (row == null) return true;
-        for (Cell cell : row) {
-            if (cell != null && cell.getCellType() != CellType.BLANK) {
-                return false;
+    private void mapColumnIndexes(List<Object> headerCells, Map<String, Integer> columnIndexMap) {
+        for (int index = 0; index < headerCells.size(); index++) {
+            if (headerCells.get(index) instanceof String header) {
+                String columnName = header.trim().toLowerCase();
+                columnIndexMap.put(columnName, index);
+                log.debug("Column: {} -> Index: {}", columnName, index);
             }
         }
-        return true;
     }
 
-    private String getCellValue(Row row, String columnName) {
+    private Object getCell(List<Object> cells, Map<String, Integer> columnIndexMap, String columnName) {
         Integer index = columnIndexMap.get(columnName);
-        if (index == null) return "";
-        Cell cell = row.getCell(index);
-        return (cell != null) ? cell.toString().trim() : "";
+        return index != null && index < cells.size() ? cells.get(index) : null;
     }
 
-    private Integer getIntCellValue(Row row, String columnName) {
-        Integer index = columnIndexMap.get(columnName);
-        if (index == null) return null;
-        Cell cell = row.getCell(index);
+    private String getCellValue(List<Object> cells, Map<String, Integer> columnIndexMap, String columnName) {
+        Object cell = getCell(cells, columnIndexMap, columnName);
+        if (cell instanceof Boolean bool) {
+            return bool ? "TRUE" : "FALSE";
+        }
+        return (cell != null) ? cell.toString().trim() : "";
+    }
 
-        if (cell == null) return null;
-        try {
-            if (cell.getCellType() == CellType.NUMERIC) {
-                return (int) cell.getNumericCellValue();
-            } else if (cell.getCellType() == CellType.STRING) {
-                String value = cell.getStringCellValue().trim();
-                return value.matches("\\d+") ? Integer.parseInt(value) : null;
-            }
-        } catch (Exception e) {
-            System.err.println("⚠️ Error parsing number: " + cell.toString());
+    private Integer getIntCellValue(List<Object> cells, Map<String, Integer> columnIndexMap, String columnName) {
+        Object cell = getCell(cells, columnIndexMap, columnName);
+        if (cell instanceof Double number) {
+            return number.intValue();
+        } else if (cell instanceof String text) {
+            String value = text.trim();
+            return value.matches("\\d+") ? Integer.parseInt(value) : null;
         }
         return null;
     }
 
-    private String getStatusCellValue(Row row, String columnName) {
-        Integer index = columnIndexMap.get(columnName);
-        if (index == null) return "unavailable";
-        Cell cell = row.getCell(index);
-
-        if (cell == null) return "unavailable";
-        return switch (cell.getCellType()) {
-            case STRING -> cell.getStringCellValue().trim().toLowerCase();
-            case BOOLEAN -> cell.getBooleanCellValue() ? "available" : "unavailable";
-            default -> "unavailable";
-        };
+    private String getStatusCellValue(List<Object> cells, Map<String, Integer> columnIndexMap, String columnName) {
+        Object cell = getCell(cells, columnIndexMap, columnName);
+        if (cell instanceof String text) {
+            return text.trim().toLowerCase();
+        } else if (cell instanceof Boolean bool) {
+            return bool ? "available" : "unavailable";
+        }
+        return "unavailable";
     }
 }
@@ -0,0 +1,77 @@
+package com.inn.cafe.Service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Keeps recently downloaded invoice PDFs in memory, so reprints of the same bill don't go back to the invoice store.
+ *
+ * The cache is bounded by the total size of the cached PDFs (cafe.invoice.cache.max-bytes) and evicts the least
+ * recently used invoices first. Invoices bigger than cafe.invoice.cache.max-entry-bytes are never cached, they are
+ * streamed from the store instead.
+ */
+@Service
+public class InvoiceCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cafe.invoice.cache.max-bytes:33554432}")
+    private long maxBytes;
+
+    @Value("${cafe.invoice.cache.max-entry-bytes:1048576}")
+    private long maxEntryBytes;
+
+    private Cache<String, byte[]> cache;
+
+
+    @PostConstruct
+    public void init() {
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String uuid, byte[] pdf) -> pdf.length)
+                .recordStats()
+                .build();
+        GuavaCacheMetrics.monitor(meterRegistry, cache, "invoice.pdf");
+    }
+
+    /**
+     * @return The cached invoice, or null if it is not cached.
+     */
+    public Resource get(String uuid) {
+        byte[] pdf = cache.getIfPresent(uuid);
+        return pdf == null ? null : new ByteArrayResource(pdf);
+    }
+
+    /**
+     * Caches an invoice loaded from the store if it is small enough.
+     * @return The resource to send: the cached copy, or the stored resource itself if it was too big to cache.
+     */
+    public Resource put(String uuid, Resource stored) throws IOException {
+        if (stored.contentLength() > maxEntryBytes) {
+            return stored;
+        }
+        byte[] pdf;
+        try (InputStream in = stored.getInputStream()) {
+            pdf = StreamUtils.copyToByteArray(in);
+        }
+        cache.put(uuid, pdf);
+        return new ByteArrayResource(pdf);
+    }
+
+    public void invalidate(String uuid) {
+        cache.invalidate(uuid);
+    }
+}
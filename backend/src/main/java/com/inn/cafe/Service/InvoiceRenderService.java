@@ -0,0 +1,33 @@
+package com.inn.cafe.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Renders the invoice PDF of a bill.
+ * New bills are rendered in the background on a bounded worker pool so the request thread
+ * only has to insert the bill row and can return the uuid right away.
+ */
+public interface InvoiceRenderService {
+
+    /**
+     * Queue a render job for the bill with the given uuid.
+     * @param uuid The bill uuid, also used as the invoice file name.
+     * @param requestMap The bill data (name, email, paymentMethod, productDetails, totalAmount ...).
+     * @return A future completed when the PDF is written. It is completed exceptionally with a
+     * RejectedExecutionException if the render queue is full.
+     */
+    CompletableFuture<Void> submit(String uuid, Map<String, Object> requestMap);
+
+    /**
+     * Render the invoice on the calling thread, or wait for the render of the same uuid which is in flight already.
+     * @throws java.util.concurrent.TimeoutException if that render did not finish within cafe.invoice.render.wait-millis.
+     */
+    void render(String uuid, Map<String, Object> requestMap) throws Exception;
+
+    /**
+     * Wait for an in-flight render job of the given uuid.
+     * @return true if no job is in flight or it finished within the timeout, false if it is still pending.
+     */
+    boolean awaitRender(String uuid, long timeoutMillis);
+}
@@ -0,0 +1,63 @@
+package com.inn.cafe.Service;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+/**
+ * Storage for rendered invoice PDFs, keyed by bill uuid.
+ * The backend is chosen with the property cafe.invoice.store.type:
+ * - local  (default): sharded directories on the local file system, see LocalInvoiceStore
+ * - memory : kept in a map, used for tests
+ * A networked object store can be added later by implementing this interface.
+ */
+public interface InvoiceStore {
+
+    /**
+     * Writes the content of an invoice.
+     */
+    @FunctionalInterface
+    interface InvoiceWriter {
+        void writeTo(OutputStream out) throws Exception;
+    }
+
+    /**
+     * An invoice in the store, as listed by list().
+     */
+    record StoredInvoice(String uuid, Instant lastModified) {
+    }
+
+    /**
+     * Store the invoice of the given uuid. The invoice becomes visible only after the writer has finished,
+     * a reader never sees a half-written file. An existing invoice with the same uuid is replaced.
+     */
+    void save(String uuid, InvoiceWriter writer) throws Exception;
+
+    boolean exists(String uuid);
+
+    /**
+     * @return The stored invoice, or null if there is none for this uuid.
+     */
+    Resource load(String uuid);
+
+    /**
+     * @return true if an invoice was deleted.
+     */
+    boolean delete(String uuid) throws IOException;
+
+    /**
+     * All invoices in the store (not the quarantined ones), read lazily while the stream is consumed so that a large
+     * store is never listed into memory at once. The stream must be closed.
+     */
+    Stream<StoredInvoice> list() throws IOException;
+
+    /**
+     * Moves an invoice out of the store into the quarantine area, where it is kept for inspection instead of being
+     * deleted right away.
+     * @return true if an invoice was moved.
+     */
+    boolean quarantine(String uuid) throws IOException;
+}
@@ -0,0 +1,168 @@
+package com.inn.cafe.Service;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.inn.cafe.DAO.BillDao;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+
+/**
+ * Removes orphaned invoices: PDFs in the invoice store without a bill row, left by deleted bills or by renders of
+ * bills which were never saved.
+ *
+ * Runs on the cafe.invoice.sweeper.cron schedule. The store is listed lazily and compared with the bill table one
+ * batch of uuids at a time, so neither the file list nor the bill list is ever held in memory. The scan is limited to
+ * cafe.invoice.sweeper.max-files-per-second so it does not compete with requests for the disk and the database.
+ * Invoices younger than cafe.invoice.sweeper.min-age-minutes are skipped: their bill may not be committed yet.
+ * Orphans are moved to the quarantine area (cafe.invoice.sweeper.action=quarantine, default) or deleted (delete).
+ *
+ * Metrics: invoice.sweeper.scanned, invoice.sweeper.orphans (tag action) and invoice.sweeper.duration.
+ */
+@Slf4j
+@Service
+public class InvoiceSweeper {
+
+    @Autowired
+    private InvoiceStore invoiceStore;
+
+    @Autowired
+    private InvoiceCache invoiceCache;
+
+    @Autowired
+    private BillDao billDao;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cafe.invoice.sweeper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cafe.invoice.sweeper.action:quarantine}")
+    private String action;
+
+    @Value("${cafe.invoice.sweeper.batch-size:500}")
+    private int batchSize;
+
+    @Value("${cafe.invoice.sweeper.min-age-minutes:60}")
+    private long minAgeMinutes;
+
+    @Value("${cafe.invoice.sweeper.max-files-per-second:1000}")
+    private double maxFilesPerSecond;
+
+    private Clock clock = Clock.systemUTC();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private RateLimiter rateLimiter;
+
+    private Counter scannedCounter;
+
+    private Counter orphanCounter;
+
+    private Timer sweepTimer;
+
+
+    @PostConstruct
+    public void init() {
+        if (!"quarantine".equals(action) && !"delete".equals(action)) {
+            throw new IllegalStateException("cafe.invoice.sweeper.action must be 'quarantine' or 'delete' but is " + action);
+        }
+        rateLimiter = RateLimiter.create(maxFilesPerSecond);
+        scannedCounter = Counter.builder("invoice.sweeper.scanned")
+                .description("Invoices checked by the orphan sweeper")
+                .register(meterRegistry);
+        orphanCounter = Counter.builder("invoice.sweeper.orphans")
+                .description("Invoices without a bill removed by the orphan sweeper")
+                .tag("action", action)
+                .register(meterRegistry);
+        sweepTimer = Timer.builder("invoice.sweeper.duration")
+                .description("Duration of one run of the orphan sweeper")
+                .register(meterRegistry);
+    }
+
+
+    @Scheduled(cron = "${cafe.invoice.sweeper.cron:0 30 3 * * *}")
+    public void scheduledSweep() {
+        if (enabled) {
+            sweep();
+        }
+    }
+
+
+    /**
+     * One pass over the store.
+     * @return the number of orphans removed, or -1 if a pass was already running.
+     */
+    public int sweep() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Invoice sweep already running");
+            return -1;
+        }
+        long start = System.nanoTime();
+        int scanned = 0;
+        int orphans = 0;
+        try (Stream<InvoiceStore.StoredInvoice> invoices = invoiceStore.list()) {
+            Instant youngest = clock.instant().minus(Duration.ofMinutes(minAgeMinutes));
+            Iterator<InvoiceStore.StoredInvoice> iterator = invoices.iterator();
+            Set<String> batch = new HashSet<>();
+            while (iterator.hasNext()) {
+                InvoiceStore.StoredInvoice invoice = iterator.next();
+                if (invoice.lastModified().isAfter(youngest)) {
+                    continue;
+                }
+                batch.add(invoice.uuid());
+                if (batch.size() >= batchSize) {
+                    scanned += batch.size();
+                    orphans += removeOrphans(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                scanned += batch.size();
+                orphans += removeOrphans(batch);
+            }
+            log.info("Invoice sweep done: {} invoices checked, {} orphans ({})", scanned, orphans, action);
+        } catch (Exception ex) {
+            log.error("Invoice sweep failed after {} invoices", scanned, ex);
+        } finally {
+            sweepTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            running.set(false);
+        }
+        return orphans;
+    }
+
+
+    private int removeOrphans(Set<String> batch) throws IOException {
+        rateLimiter.acquire(batch.size());
+        scannedCounter.increment(batch.size());
+        Set<String> orphans = new HashSet<>(batch);
+        orphans.removeAll(billDao.getExistingUuids(batch));
+        int removed = 0;
+        for (String uuid : orphans) {
+            boolean done = "delete".equals(action) ? invoiceStore.delete(uuid) : invoiceStore.quarantine(uuid);
+            invoiceCache.invalidate(uuid);
+            if (done) {
+                removed++;
+                orphanCounter.increment();
+                log.info("Orphaned invoice {} {}d", uuid, action);
+            }
+        }
+        return removed;
+    }
+}
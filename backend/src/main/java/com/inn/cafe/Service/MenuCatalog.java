@@ -0,0 +1,312 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.DAO.CatalogChangeDao;
+import com.inn.cafe.DAO.CategoryDao;
+import com.inn.cafe.DAO.ProductDao;
+import com.inn.cafe.Events.CatalogImportedEvent;
+import com.inn.cafe.Events.CategoryChangedEvent;
+import com.inn.cafe.Events.ProductChangedEvent;
+import com.inn.cafe.POJO.Category;
+import com.inn.cafe.POJO.Product;
+import com.inn.cafe.Utils.CafeUtils;
+import com.inn.cafe.Wrapper.ProductWrapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * The whole menu (categories, products and the active products of every category) as one immutable snapshot, for
+ * /product/get, /product/getByCategory, /product/getById and /category/get.
+ *
+ * Readers get the snapshot through a single volatile read and look products up in its pre-built lists and maps, no
+ * lock and no query, not even after a change. The menu is loaded at startup; after a category or product change
+ * committed, one background thread loads it again and swaps the next snapshot in, readers keep getting the previous
+ * one meanwhile. Changes committed while a load is queued share it, so a burst of changes (an Excel import) costs one
+ * or two loads. Every cafe.menu.snapshot.refresh-millis the menu is loaded as well, for changes which bypass the
+ * services. A read of a snapshot last loaded more than cafe.menu.snapshot.max-age-millis ago (the loads failed, or
+ * the scheduler fell behind) still returns it, but queues a load.
+ *
+ * Metrics: menu.snapshot.reads by state, "fresh" or "stale" (a change committed since the load started, or older
+ * than the max age); menu.snapshot.loads by result, "success" or "failure"; menu.snapshot.age, seconds since the
+ * last load.
+ *
+ * The version of a snapshot is the latest catalog change log version (see CatalogChangeLog) read before the menu was
+ * loaded, so the snapshot includes every change up to it. It is sent with every menu response in the X-Menu-Version
+ * header, together with a strong ETag (the version and a hash of the menu, so changes made outside the services change
+ * it as well) and Last-Modified (the time of that latest change). Both are the same on every instance and after a
+ * restart, so a client revalidating against another instance still gets its 304. Only a change made outside the
+ * services sets Last-Modified to the time it was noticed. The lists, maps and objects of a snapshot are shared by all
+ * readers and must not be modified.
+ */
+@Slf4j
+@Service
+public class MenuCatalog {
+
+    public static final String VERSION_HEADER = "X-Menu-Version";
+
+    private static final String ACTIVE = "true";
+
+    @Autowired
+    private CategoryDao categoryDao;
+
+    @Autowired
+    private ProductDao productDao;
+
+    @Autowired
+    private CatalogChangeDao catalogChangeDao;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cafe.menu.snapshot.max-age-millis:600000}")
+    private long maxAgeMillis;
+
+    private volatile Snapshot snapshot;
+
+    /** System.nanoTime() of the last load, successful even if the menu had not changed. */
+    private volatile long loadedNanos;
+
+    private ExecutorService refresher;
+
+    /** True from a change until the load for it starts. */
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+
+    /** Number of changes seen so far, and up to which of them the snapshot includes. */
+    private final AtomicLong changes = new AtomicLong();
+
+    private volatile long included;
+
+    private Counter freshReads;
+
+    private Counter staleReads;
+
+    private Counter loads;
+
+    private Counter failedLoads;
+
+
+    /**
+     * One version of the menu, in the shapes of the former queries: products as Product.getAllProduct, products by id
+     * as Product.getProductById, active products by category as Product.getProductByCategory, categories as
+     * categoryDao.findAll() and active categories (with at least one active product) as Category.getAllCategory.
+     */
+    public record Snapshot(long version,
+                           String eTag,
+                           long lastModified,
+                           List<ProductWrapper> products,
+                           Map<Integer, ProductWrapper> productsById,
+                           Map<Integer, List<ProductWrapper>> activeProductsByCategory,
+                           List<Category> categories,
+                           List<Category> activeCategories) {
+
+        public ProductWrapper getProductById(Integer id) {
+            return id == null ? null : productsById.get(id);
+        }
+
+        public List<ProductWrapper> getByCategory(Integer categoryId) {
+            return categoryId == null ? List.of() : activeProductsByCategory.getOrDefault(categoryId, List.of());
+        }
+
+        /** @return true if the client already has this menu, by If-None-Match or else If-Modified-Since. */
+        public boolean isNotModified(String ifNoneMatch, String ifModifiedSince) {
+            return CafeUtils.isNotModified(ifNoneMatch, ifModifiedSince, eTag, lastModified);
+        }
+
+        public HttpHeaders headers() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(VERSION_HEADER, String.valueOf(version));
+            headers.setETag(eTag);
+            headers.setLastModified(lastModified);
+            headers.setCacheControl(CacheControl.noCache());  // clients may keep the menu, but must revalidate it
+            return headers;
+        }
+
+        private boolean sameMenu(Snapshot other) {
+            return other != null && version == other.version && sameContent(other);
+        }
+
+        private boolean sameContent(Snapshot other) {
+            return products.equals(other.products) && categories.equals(other.categories);
+        }
+    }
+
+
+    @PostConstruct
+    public void init() {
+        freshReads = Counter.builder("menu.snapshot.reads").tag("state", "fresh")
+                .description("Menu reads of a snapshot with every committed change").register(meterRegistry);
+        staleReads = Counter.builder("menu.snapshot.reads").tag("state", "stale")
+                .description("Menu reads of a snapshot missing a committed change, or older than the max age").register(meterRegistry);
+        loads = Counter.builder("menu.snapshot.loads").tag("result", "success").register(meterRegistry);
+        failedLoads = Counter.builder("menu.snapshot.loads").tag("result", "failure").register(meterRegistry);
+        Gauge.builder("menu.snapshot.age", this, catalog -> (System.nanoTime() - catalog.loadedNanos) / 1e9)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        refresh();
+        refresher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "menu-catalog-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        refresher.shutdown();
+        refresher.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        changed();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        changed();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogImported(CatalogImportedEvent event) {
+        changed();
+    }
+
+    @Scheduled(fixedDelayString = "${cafe.menu.snapshot.refresh-millis:300000}")
+    public void scheduledRefresh() {
+        requestRefresh();
+    }
+
+
+    /** The current menu: the latest snapshot loaded, without waiting for a load queued by a change. */
+    public Snapshot current() {
+        Snapshot menu = snapshot;
+        boolean expired = System.nanoTime() - loadedNanos > TimeUnit.MILLISECONDS.toNanos(maxAgeMillis);
+        if (expired) {
+            requestRefresh();
+        }
+        (expired || included < changes.get() ? staleReads : freshReads).increment();
+        return menu;
+    }
+
+
+    private void changed() {
+        changes.incrementAndGet();
+        requestRefresh();
+    }
+
+    private void requestRefresh() {
+        if (refreshQueued.compareAndSet(false, true)) {
+            try {
+                refresher.execute(this::queuedRefresh);
+            } catch (RejectedExecutionException ex) {
+                refreshQueued.set(false);  // shutting down
+            }
+        }
+    }
+
+    private void queuedRefresh() {
+        // cleared before loading: a change committed from now on may be missed by this load and queues the next one
+        refreshQueued.set(false);
+        try {
+            refresh();
+        } catch (Exception ex) {
+            failedLoads.increment();
+            log.warn("Menu snapshot could not be loaded, keeping version {}", snapshot.version(), ex);
+        }
+    }
+
+    /** Runs in init and then on the refresher thread only. */
+    private void refresh() {
+        // read before loading: every change counted so far was committed before the load starts
+        long upTo = changes.get();
+        Snapshot previous = snapshot;
+        Snapshot next = load(previous);
+        if (!next.sameMenu(previous)) {
+            snapshot = next;
+            log.info("Menu snapshot {} loaded, {} products in {} categories", next.version(), next.products().size(), next.categories().size());
+        }
+        loadedNanos = System.nanoTime();
+        included = upTo;
+        loads.increment();
+    }
+
+    private Snapshot load(Snapshot previous) {
+        // read first: the menu loaded after it includes this change and every one before
+        long[] latest = catalogChangeDao.getLatestChange();
+        long version = latest[0];
+        List<ProductWrapper> products = new ArrayList<>(productDao.getAllProduct());
+        products.sort(Comparator.comparing(ProductWrapper::getId));
+        List<Category> loaded = new ArrayList<>(categoryDao.findAll());
+        loaded.sort(Comparator.comparing(Category::getId));
+
+        Map<Integer, ProductWrapper> productsById = new HashMap<>(products.size() * 2);
+        Map<Integer, List<ProductWrapper>> activeProducts = new HashMap<>();
+        Map<Integer, List<Product>> categoryProducts = new HashMap<>();
+        for (ProductWrapper product : products) {
+            productsById.put(product.getId(), new ProductWrapper(product.getId(), product.getName(), product.getDescription(), product.getPrice()));
+            if (ACTIVE.equals(product.getStatus())) {
+                activeProducts.computeIfAbsent(product.getCategoryId(), id -> new ArrayList<>())
+                        .add(new ProductWrapper(product.getId(), product.getName()));
+            }
+            categoryProducts.computeIfAbsent(product.getCategoryId(), id -> new ArrayList<>()).add(toProduct(product));
+        }
+
+        // detached copies with their products filled in, the entities of findAll() load them lazily
+        List<Category> categories = new ArrayList<>(loaded.size());
+        List<Category> activeCategories = new ArrayList<>();
+        for (Category entity : loaded) {
+            Category category = new Category();
+            category.setId(entity.getId());
+            category.setName(entity.getName());
+            category.setVersion(entity.getVersion());
+            category.setProducts(List.copyOf(categoryProducts.getOrDefault(entity.getId(), List.of())));
+            categories.add(category);
+            if (activeProducts.containsKey(entity.getId())) {
+                activeCategories.add(category);
+            }
+        }
+
+        Map<Integer, List<ProductWrapper>> activeProductsByCategory = new HashMap<>(activeProducts.size() * 2);
+        activeProducts.forEach((categoryId, list) -> activeProductsByCategory.put(categoryId, List.copyOf(list)));
+        String eTag = "\"" + version + "-" + Integer.toHexString(Objects.hash(products, categories)) + "\"";
+        Snapshot next = new Snapshot(version, eTag, latest[1], List.copyOf(products), Map.copyOf(productsById), Map.copyOf(activeProductsByCategory),
+                List.copyOf(categories), List.copyOf(activeCategories));
+        if (latest[1] == 0 || (previous != null && previous.version() == version && !next.sameContent(previous))) {
+            // nothing logged yet, or changed outside the services
+            next = new Snapshot(version, eTag, System.currentTimeMillis(), next.products(), next.productsById(),
+                    next.activeProductsByCategory(), next.categories(), next.activeCategories());
+        }
+        return next;
+    }
+
+    private static Product toProduct(ProductWrapper wrapper) {
+        Product product = new Product();
+        product.setId(wrapper.getId());
+        product.setName(wrapper.getName());
+        product.setDescription(wrapper.getDescription());
+        product.setPrice(wrapper.getPrice());
+        product.setStatus(wrapper.getStatus());
+        return product;
+    }
+}
@@ -0,0 +1,305 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.Wrapper.ProductImportJobStatus;
+import com.inn.cafe.Wrapper.ProductImportJobStatus.State;
+import com.inn.cafe.Wrapper.ProductImportResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Menu imports (/product/uploadExcel) as background jobs, so a large file does not keep its HTTP request open until
+ * the last row is imported.
+ *
+ * The request only copies the upload to a temporary file and queues the job; cafe.product.import.threads workers run
+ * the imports through ExcelService, at most cafe.product.import.queue-capacity jobs wait for one. A job records its
+ * progress and writes every skipped row with its reason to a CSV error report as it goes, so neither grows the heap
+ * with the size of the file.
+ *
+ * Jobs are kept in memory, by this instance, for cafe.product.import.jobs.retention-minutes after they finished; then
+ * they and their error report are removed.
+ */
+@Slf4j
+@Service
+public class ProductImportJobs {
+
+    @Autowired
+    private ExcelService excelService;
+
+    @Value("${cafe.product.import.threads:1}")
+    private int threads;
+
+    @Value("${cafe.product.import.queue-capacity:10}")
+    private int queueCapacity;
+
+    @Value("${cafe.product.import.jobs.retention-minutes:1440}")
+    private long retentionMinutes;
+
+    private ThreadPoolExecutor executor;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private Clock clock = Clock.systemDefaultZone();
+
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "product-import-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+
+    /**
+     * Copies the upload and queues its import.
+     *
+     * @throws RejectedExecutionException if cafe.product.import.queue-capacity jobs are waiting already.
+     */
+    public ProductImportJobStatus submit(MultipartFile file) throws IOException {
+        Path upload = Files.createTempFile("menu-upload-", ".tmp");
+        Job job;
+        try {
+            file.transferTo(upload);
+            job = new Job(UUID.randomUUID().toString(), file.getOriginalFilename(), upload);
+        } catch (IOException ex) {
+            Files.deleteIfExists(upload);
+            throw ex;
+        }
+        jobs.put(job.id, job);
+        try {
+            executor.execute(job::run);
+        } catch (RejectedExecutionException ex) {
+            jobs.remove(job.id);
+            job.delete();
+            throw ex;
+        }
+        log.info("Queued import job {} for {}", job.id, job.fileName);
+        return job.status();
+    }
+
+    /** @return null if there is no such job (any more). */
+    public ProductImportJobStatus getStatus(String id) {
+        Job job = jobs.get(id);
+        return job == null ? null : job.status();
+    }
+
+    /**
+     * The CSV of the rows skipped so far: the row number as Excel shows it and the reason. Complete once the job
+     * finished.
+     *
+     * @return null if there is no such job (any more).
+     */
+    public Resource getErrorReport(String id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            return null;
+        }
+        job.flushErrors();
+        return new FileSystemResource(job.errorReport);
+    }
+
+
+    @Scheduled(fixedDelayString = "${cafe.product.import.jobs.cleanup-millis:600000}")
+    public void scheduledCleanup() {
+        try {
+            removeFinished();
+        } catch (Exception ex) {
+            log.warn("Finished import jobs could not be removed", ex);
+        }
+    }
+
+    /** @return the number of jobs removed, those finished more than cafe.product.import.jobs.retention-minutes ago. */
+    public int removeFinished() {
+        LocalDateTime cutoff = LocalDateTime.now(clock).minusMinutes(retentionMinutes);
+        int removed = 0;
+        for (Job job : jobs.values()) {
+            LocalDateTime finishedAt = job.finishedAt;
+            if (finishedAt != null && finishedAt.isBefore(cutoff) && jobs.remove(job.id, job)) {
+                job.delete();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+
+    /**
+     * One import. Its fields are written by the worker thread only and read by the status requests, so volatile is
+     * enough for them.
+     */
+    private class Job implements ProductImportListener {
+
+        private final String id;
+
+        private final String fileName;
+
+        private final Path upload;
+
+        private final Path errorReport;
+
+        private final Writer errors;
+
+        private final LocalDateTime submittedAt = LocalDateTime.now(clock);
+
+        private volatile State state = State.QUEUED;
+
+        private volatile LocalDateTime startedAt;
+
+        private volatile LocalDateTime finishedAt;
+
+        private volatile long startNanos;
+
+        private volatile long finishNanos;
+
+        private volatile Integer totalRows;
+
+        private volatile int lastRowNum;
+
+        private volatile long rowsRead;
+
+        private volatile int imported;
+
+        private volatile int categoriesCreated;
+
+        private volatile int skipped;
+
+        private volatile String error;
+
+        Job(String id, String fileName, Path upload) throws IOException {
+            this.id = id;
+            this.fileName = fileName;
+            this.upload = upload;
+            this.errorReport = Files.createTempFile("menu-import-" + id + "-", ".csv");
+            this.errors = Files.newBufferedWriter(errorReport, StandardCharsets.UTF_8);
+            errors.write("row,error\n");
+        }
+
+        void run() {
+            startedAt = LocalDateTime.now(clock);
+            startNanos = System.nanoTime();
+            state = State.RUNNING;
+            try (errors) {
+                ProductImportResult result = excelService.importExcelFile(upload.toFile(), this);
+                imported = result.imported();
+                categoriesCreated = result.categoriesCreated();
+                skipped = result.skipped();
+                if (result.imported() == 0) {
+                    error = "Uploaded file is empty or has invalid data.";
+                }
+            } catch (Exception ex) {
+                log.warn("Import job {} for {} failed", id, fileName, ex);
+                error = ex.getMessage() == null ? ex.toString() : ex.getMessage();
+            } finally {
+                deleteUpload();
+                finishNanos = System.nanoTime();
+                finishedAt = LocalDateTime.now(clock);
+                state = error == null ? State.SUCCEEDED : State.FAILED;
+            }
+            log.info("Import job {} {}: {} rows in {} ms, {} imported, {} skipped", id, state, rowsRead,
+                    (finishNanos - startNanos) / 1_000_000, imported, skipped);
+        }
+
+        @Override
+        public void sheetSize(int rows) {
+            totalRows = rows;
+        }
+
+        @Override
+        public void rowRead(int rowNum) {
+            lastRowNum = rowNum;
+            rowsRead++;
+        }
+
+        @Override
+        public void rowSkipped(int rowNum, String reason) {
+            skipped++;
+            try {
+                errors.write((rowNum + 1) + ",\"" + reason.replace("\"", "\"\"") + "\"\n");
+            } catch (IOException ex) {
+                log.warn("Import job {} could not write the error of row {}", id, rowNum, ex);
+            }
+        }
+
+        @Override
+        public void batchImported(int products, int categories) {
+            imported += products;
+            categoriesCreated += categories;
+        }
+
+        ProductImportJobStatus status() {
+            State state = this.state;
+            Integer totalRows = this.totalRows;
+            Double progressPercent = null;
+            if (state == State.SUCCEEDED) {
+                progressPercent = 100.0;
+            } else if (totalRows != null && totalRows > 0) {
+                progressPercent = Math.min(100.0, (lastRowNum + 1) * 100.0 / totalRows);
+            }
+            double rowsPerSecond = 0;
+            if (state != State.QUEUED) {
+                long end = state == State.RUNNING ? System.nanoTime() : finishNanos;
+                rowsPerSecond = end > startNanos ? rowsRead * 1e9 / (end - startNanos) : 0;
+            }
+            return new ProductImportJobStatus(id, state, fileName, submittedAt, startedAt, finishedAt, rowsRead,
+                    totalRows, progressPercent, rowsPerSecond, imported, categoriesCreated, skipped, error);
+        }
+
+        void flushErrors() {
+            try {
+                errors.flush();
+            } catch (IOException ex) {
+                // closed, the job has finished and the report is complete
+            }
+        }
+
+        private void deleteUpload() {
+            try {
+                Files.deleteIfExists(upload);
+            } catch (IOException ex) {
+                log.warn("Upload of import job {} could not be deleted: {}", id, upload, ex);
+            }
+        }
+
+        void delete() {
+            deleteUpload();
+            try {
+                errors.close();
+                Files.deleteIfExists(errorReport);
+            } catch (IOException ex) {
+                log.warn("Error report of import job {} could not be deleted: {}", id, errorReport, ex);
+            }
+        }
+    }
+}
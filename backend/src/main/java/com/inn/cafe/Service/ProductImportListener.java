@@ -0,0 +1,28 @@
+package com.inn.cafe.Service;
+
+
+/**
+ * Follows a menu import as it runs, called on the importing thread. Used by ProductImportJobs for the progress and
+ * the error report of an import job.
+ */
+public interface ProductImportListener {
+
+    ProductImportListener NONE = new ProductImportListener() {
+    };
+
+    /** The number of rows of the sheet including the header, if the file states it; before the first row. */
+    default void sheetSize(int rows) {
+    }
+
+    /** A data row was read, rowNum counts from 0 (the header). */
+    default void rowRead(int rowNum) {
+    }
+
+    /** The row is not imported, for the given reason. */
+    default void rowSkipped(int rowNum, String reason) {
+    }
+
+    /** A batch of products and the categories they needed is committed. */
+    default void batchImported(int products, int categories) {
+    }
+}
@@ -0,0 +1,187 @@
+package com.inn.cafe.Service;
+
+import com.google.common.hash.Hashing;
+import com.inn.cafe.DAO.ProductImportDao;
+import com.inn.cafe.Events.CatalogImportedEvent;
+import com.inn.cafe.POJO.Category;
+import com.inn.cafe.POJO.Product;
+import com.inn.cafe.Utils.LongHashSet;
+import com.inn.cafe.Wrapper.ProductImportResult;
+import com.inn.cafe.Wrapper.ProductImportRow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+
+/**
+ * Imports the product rows of an uploaded menu file.
+ *
+ * The existing categories and (product name, category) pairs are read once into hash maps, so checking a row costs
+ * no query. New categories and products are collected and written every cafe.product.import.batch-size products, as
+ * one JDBC batch each, in one transaction per batch; a failing batch leaves the batches before it imported. Every
+ * batch publishes one CatalogImportedEvent.
+ *
+ * Names are compared trimmed and ignoring case, like the case insensitive collation of the MySQL columns. A product
+ * already in its category, on the menu or earlier in the file, is skipped. Known products are kept as 64 bit hashes of
+ * their keys (16 to 32 bytes each instead of some 130 for the strings in a HashSet), so a file of a million rows still
+ * fits a small heap; two different keys with the same hash, which would skip the second product, have a chance of
+ * about 1 in 30 million for a million products.
+ *
+ * start returns a Session to which the rows are added as they are read, so the file need not be held in memory.
+ */
+@Slf4j
+@Service
+public class ProductImporter {
+
+    @Autowired
+    private ProductImportDao productImportDao;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${cafe.product.import.batch-size:1000}")
+    private int batchSize;
+
+
+    /**
+     * @param createCategories true to create the categories which are not on the menu yet, false to skip their rows.
+     */
+    public ProductImportResult importRows(Iterator<ProductImportRow> rows, boolean createCategories) {
+        Session session = start(createCategories);
+        rows.forEachRemaining(session::add);
+        return session.finish();
+    }
+
+    /**
+     * Reads the categories and products on the menu and starts an import; add the rows, then call finish.
+     *
+     * @param createCategories true to create the categories which are not on the menu yet, false to skip their rows.
+     */
+    public Session start(boolean createCategories) {
+        return start(createCategories, ProductImportListener.NONE);
+    }
+
+    /** Like start(boolean), skipped rows and committed batches are reported to the listener. */
+    public Session start(boolean createCategories, ProductImportListener listener) {
+        return new Session(createCategories, listener);
+    }
+
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long productHash(String categoryKey, String productKey) {
+        return Hashing.murmur3_128().hashUnencodedChars(categoryKey + '\n' + productKey).asLong();
+    }
+
+
+    /** State of one import, not thread safe. */
+    public class Session {
+
+        private final boolean createCategories;
+
+        private final ProductImportListener listener;
+
+        private final Map<String, Integer> categoryIds = new HashMap<>();  // by key of the name
+
+        private final LongHashSet productHashes = new LongHashSet();  // of category key and product key
+
+        private final Map<String, String> newCategories = new LinkedHashMap<>();  // key -> name, of the current batch
+
+        private final List<ProductImportRow> newProducts = new ArrayList<>();
+
+        private int imported;
+
+        private int categoriesCreated;
+
+        private int skipped;
+
+        private Session(boolean createCategories, ProductImportListener listener) {
+            this.createCategories = createCategories;
+            this.listener = listener;
+            Map<Integer, String> categoryKeys = new HashMap<>();
+            productImportDao.getCategoryIds().forEach((name, id) -> {
+                categoryIds.putIfAbsent(key(name), id);
+                categoryKeys.put(id, key(name));
+            });
+            productImportDao.forEachProduct((name, categoryId) -> productHashes.add(productHash(categoryKeys.get(categoryId), key(name))));
+        }
+
+        /** Imports the batch of rows added before once it is full. */
+        public void add(ProductImportRow row) {
+            if (row.name() == null || row.name().isBlank() || row.categoryName() == null || row.categoryName().isBlank()) {
+                skip(row, "product or category name is missing");
+                return;
+            }
+            String category = key(row.categoryName());
+            if (!categoryIds.containsKey(category) && !newCategories.containsKey(category)) {
+                if (!createCategories) {
+                    skip(row, "category " + row.categoryName() + " not found");
+                    return;
+                }
+                newCategories.put(category, row.categoryName().trim());
+            }
+            if (!productHashes.add(productHash(category, key(row.name())))) {
+                skip(row, "product " + row.name() + " already exists in category " + row.categoryName());
+                return;
+            }
+            newProducts.add(row);
+            if (newProducts.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        /** Imports the rows of the last batch. */
+        public ProductImportResult finish() {
+            flush();
+            log.info("Imported {} products and {} categories, skipped {} rows", imported, categoriesCreated, skipped);
+            return new ProductImportResult(imported, categoriesCreated, skipped);
+        }
+
+        private void skip(ProductImportRow row, String reason) {
+            skipped++;
+            log.debug("Skipping row {}: {}", row.rowNum(), reason);
+            listener.rowSkipped(row.rowNum(), reason);
+        }
+
+        private void flush() {
+            if (newCategories.isEmpty() && newProducts.isEmpty()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Integer> newCategoryIds = productImportDao.insertCategories(new ArrayList<>(newCategories.values()));
+                Iterator<Integer> ids = newCategoryIds.iterator();
+                newCategories.keySet().forEach(category -> categoryIds.put(category, ids.next()));
+
+                List<Product> products = new ArrayList<>(newProducts.size());
+                for (ProductImportRow row : newProducts) {
+                    Category category = new Category();
+                    category.setId(categoryIds.get(key(row.categoryName())));
+                    Product product = new Product();
+                    product.setName(row.name().trim());
+                    product.setCategory(category);
+                    product.setDescription(row.description());
+                    product.setPrice(row.price());
+                    product.setStatus(row.status());
+                    products.add(product);
+                }
+                List<Integer> productIds = productImportDao.insertProducts(products);
+                eventPublisher.publishEvent(new CatalogImportedEvent(newCategoryIds, productIds));
+            });
+            categoriesCreated += newCategories.size();
+            imported += newProducts.size();
+            listener.batchImported(newProducts.size(), newCategories.size());
+            newCategories.clear();
+            newProducts.clear();
+        }
+    }
+}
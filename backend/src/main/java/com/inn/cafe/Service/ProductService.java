@@ -1,6 +1,7 @@
 package com.inn.cafe.Service;
 
 import com.inn.cafe.POJO.Product;
+import com.inn.cafe.Wrapper.CatalogChanges;
 import com.inn.cafe.Wrapper.ProductWrapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -17,7 +18,9 @@ public interface ProductService {
     ResponseEntity<String> addNewProduct(Map<String, String> requestMap);
 
 
-    ResponseEntity<List<ProductWrapper>> getAllProduct();
+    ResponseEntity<List<ProductWrapper>> getAllProduct(String ifNoneMatch, String ifModifiedSince);
+
+    ResponseEntity<CatalogChanges> getChanges(long since);
 
     ResponseEntity<String> updateProduct(Map<String, String> requestMap);
 
@@ -0,0 +1,69 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.DAO.RevenueBucketDao;
+import com.inn.cafe.POJO.RevenueBucket.Resolution;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+
+/**
+ * Downsamples the revenue time series: 15 minute buckets older than cafe.dashboard.revenue.retention-days.15m and hour
+ * buckets older than cafe.dashboard.revenue.retention-days.1h are removed, their bills stay counted in the hour and
+ * day buckets. Day buckets are kept unless cafe.dashboard.revenue.retention-days.1d is set above 0.
+ * Runs on the cafe.dashboard.revenue.retention.cron schedule.
+ */
+@Slf4j
+@Service
+public class RevenueBucketRetention {
+
+    @Autowired
+    private RevenueBucketDao revenueBucketDao;
+
+    @Value("${cafe.dashboard.revenue.retention-days.15m:31}")
+    private long minuteRetentionDays;
+
+    @Value("${cafe.dashboard.revenue.retention-days.1h:400}")
+    private long hourRetentionDays;
+
+    @Value("${cafe.dashboard.revenue.retention-days.1d:0}")
+    private long dayRetentionDays;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+
+    @Scheduled(cron = "${cafe.dashboard.revenue.retention.cron:0 45 3 * * *}")
+    public void scheduledPrune() {
+        try {
+            prune();
+        } catch (Exception ex) {
+            log.warn("Old revenue buckets could not be removed", ex);
+        }
+    }
+
+
+    /** @return the number of buckets removed. */
+    public int prune() {
+        Map<Resolution, Long> retentionDays = new EnumMap<>(Resolution.class);
+        retentionDays.put(Resolution.MINUTES_15, minuteRetentionDays);
+        retentionDays.put(Resolution.HOUR, hourRetentionDays);
+        retentionDays.put(Resolution.DAY, dayRetentionDays);
+
+        LocalDateTime today = Resolution.DAY.bucketStart(LocalDateTime.now(clock));
+        int removed = 0;
+        for (Map.Entry<Resolution, Long> entry : retentionDays.entrySet()) {
+            if (entry.getValue() > 0) {
+                removed += revenueBucketDao.deleteBefore(entry.getKey(), today.minusDays(entry.getValue()));
+            }
+        }
+        log.info("Removed {} old revenue buckets", removed);
+        return removed;
+    }
+}
@@ -0,0 +1,232 @@
+package com.inn.cafe.Service;
+
+import com.google.gson.Gson;
+import com.inn.cafe.Events.BillChangedEvent;
+import com.inn.cafe.Events.ChangeType;
+import com.inn.cafe.POJO.Bill;
+import com.inn.cafe.Utils.LineItemParser;
+import com.inn.cafe.Utils.SpaceSaving;
+import com.inn.cafe.Wrapper.LineItem;
+import com.inn.cafe.Wrapper.TopProductWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.*;
+
+
+/**
+ * Top selling products of today and of the last 7 days, without reading any bill.
+ *
+ * Every committed bill adds the quantities of its line items to the Space-Saving sketch of its day (at most
+ * cafe.dashboard.top-products.capacity products per day), a deleted bill takes them back. The week is the merge of the
+ * last 7 day sketches, cached until the next bill. Days older than a week are dropped, so the windows slide by day.
+ * A query reads one sketch of a few hundred counters, no database.
+ *
+ * The sketches are written to cafe.dashboard.top-products.checkpoint-file every
+ * cafe.dashboard.top-products.checkpoint-millis (when changed) and on shutdown, and read back at startup. Bills
+ * committed after the last checkpoint of a crashed instance are missing from the counts.
+ */
+@Slf4j
+@Service
+public class TopProductsTracker {
+
+    static final int WEEK_DAYS = 7;
+
+    @Value("${cafe.dashboard.top-products.capacity:200}")
+    private int capacity;
+
+    @Value("${cafe.dashboard.top-products.checkpoint-file:top-products.json}")
+    private String checkpointFile;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    private final Gson gson = new Gson();
+
+    /** Sketch per day, the last WEEK_DAYS days at most. Guarded by this. */
+    private final TreeMap<LocalDate, SpaceSaving<Integer>> days = new TreeMap<>();
+
+    /** Last seen name per product id. Guarded by this. */
+    private final Map<Integer, String> names = new HashMap<>();
+
+    private SpaceSaving<Integer> week;
+
+    private boolean dirty;
+
+
+    /** What is written to the checkpoint file: per day the counters as {productId, count, error}. */
+    private record Checkpoint(Map<String, List<long[]>> days, Map<Integer, String> names) {
+    }
+
+
+    @PostConstruct
+    public void load() {
+        Path path = Paths.get(checkpointFile);
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            Checkpoint checkpoint = gson.fromJson(reader, Checkpoint.class);
+            synchronized (this) {
+                checkpoint.days().forEach((day, counters) -> {
+                    SpaceSaving<Integer> sketch = new SpaceSaving<>(capacity);
+                    counters.forEach(c -> sketch.restore(new SpaceSaving.Counter<>((int) c[0], c[1], c[2])));
+                    days.put(LocalDate.parse(day), sketch);
+                });
+                names.putAll(checkpoint.names());
+                expire();
+            }
+            log.info("Top products loaded from {}, {} days", path, days.size());
+        } catch (Exception ex) {
+            // start empty rather than not at all
+            log.warn("Top products checkpoint {} could not be read", path, ex);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        checkpoint();
+    }
+
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBillChanged(BillChangedEvent event) {
+        if (event.type() == ChangeType.UPDATED) {
+            return;
+        }
+        Bill bill = event.bill();
+        List<LineItem> items;
+        try {
+            items = LineItemParser.parse(bill.getProductDetails());
+        } catch (IllegalArgumentException ex) {
+            log.warn("Bill {} not counted in the top products: {}", bill.getUuid(), ex.getMessage());
+            return;
+        }
+        LocalDate day = bill.getCreatedDate() == null ? LocalDate.now(clock) : bill.getCreatedDate().toLocalDate();
+        synchronized (this) {
+            expire();
+            if (day.isBefore(firstDay())) {
+                return;
+            }
+            SpaceSaving<Integer> sketch = event.type() == ChangeType.CREATED
+                    ? days.computeIfAbsent(day, d -> new SpaceSaving<>(capacity)) : days.get(day);
+            if (sketch == null) {
+                return;
+            }
+            for (LineItem item : items) {
+                if (item.productId() == null) {
+                    continue;
+                }
+                if (event.type() == ChangeType.CREATED) {
+                    names.put(item.productId(), item.name());
+                    sketch.offer(item.productId(), item.quantity());
+                } else {
+                    sketch.retract(item.productId(), item.quantity());
+                }
+            }
+            week = null;
+            dirty = true;
+        }
+    }
+
+
+    /**
+     * @param window "day" (today) or "week" (the last 7 days, today included).
+     * @throws IllegalArgumentException for any other window.
+     */
+    public synchronized List<TopProductWrapper> getTop(String window, int limit) {
+        expire();
+        SpaceSaving<Integer> sketch;
+        switch (window) {
+            case "day":
+                sketch = days.get(LocalDate.now(clock));
+                break;
+            case "week":
+                if (week == null) {
+                    week = SpaceSaving.merge(days.values(), capacity);
+                }
+                sketch = week;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown window: " + window);
+        }
+        if (sketch == null) {
+            return List.of();
+        }
+        return sketch.top(limit).stream()
+                .map(c -> new TopProductWrapper(c.key(), names.get(c.key()), c.count(), c.error()))
+                .toList();
+    }
+
+
+    @Scheduled(fixedDelayString = "${cafe.dashboard.top-products.checkpoint-millis:60000}")
+    public void scheduledCheckpoint() {
+        try {
+            checkpoint();
+        } catch (Exception ex) {
+            log.warn("Top products could not be checkpointed to {}", checkpointFile, ex);
+        }
+    }
+
+
+    /** Writes the sketches to the checkpoint file if they changed since the last checkpoint. */
+    public void checkpoint() throws IOException {
+        Checkpoint checkpoint;
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            expire();
+            Map<String, List<long[]>> counters = new TreeMap<>();
+            Set<Integer> tracked = new HashSet<>();
+            days.forEach((day, sketch) -> counters.put(day.toString(), sketch.counters().stream()
+                    .peek(c -> tracked.add(c.key()))
+                    .map(c -> new long[]{c.key(), c.count(), c.error()})
+                    .toList()));
+            names.keySet().retainAll(tracked);
+            checkpoint = new Checkpoint(counters, new HashMap<>(names));
+            dirty = false;
+        }
+        // written next to the checkpoint and moved over it, a crash while writing leaves the previous one intact
+        Path path = Paths.get(checkpointFile).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            gson.toJson(checkpoint, writer);
+        } catch (IOException ex) {
+            synchronized (this) {
+                dirty = true;
+            }
+            throw ex;
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+
+    private LocalDate firstDay() {
+        return LocalDate.now(clock).minusDays(WEEK_DAYS - 1);
+    }
+
+    private void expire() {
+        SortedMap<LocalDate, SpaceSaving<Integer>> old = days.headMap(firstDay());
+        if (!old.isEmpty()) {
+            old.clear();
+            week = null;
+            dirty = true;
+        }
+    }
+}
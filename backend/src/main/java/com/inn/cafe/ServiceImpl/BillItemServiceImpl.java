@@ -0,0 +1,122 @@
+package com.inn.cafe.ServiceImpl;
+
+import com.inn.cafe.DAO.BillDao;
+import com.inn.cafe.DAO.BillItemDao;
+import com.inn.cafe.POJO.Bill;
+import com.inn.cafe.POJO.BillItem;
+import com.inn.cafe.Service.BillItemService;
+import com.inn.cafe.Utils.LineItemParser;
+import com.inn.cafe.Wrapper.LineItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+@Slf4j
+@Service
+public class BillItemServiceImpl implements BillItemService {
+
+    @Autowired
+    private BillDao billDao;
+
+    @Autowired
+    private BillItemDao billItemDao;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${cafe.bill.item.backfill-batch-size:500}")
+    private int backfillBatchSize;
+
+    private final AtomicBoolean backfillRunning = new AtomicBoolean();
+
+
+    @Override
+    public List<BillItem> getBillItems(Bill bill) {
+        List<LineItem> lineItems;
+        try {
+            lineItems = LineItemParser.parse(bill.getProductDetails());
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid productDetails in bill " + bill.getUuid(), ex);
+        }
+        List<BillItem> items = new ArrayList<>(lineItems.size());
+        for (LineItem lineItem : lineItems) {
+            BillItem item = new BillItem();
+            item.setBillId(bill.getId());
+            item.setProductId(lineItem.productId());
+            item.setName(lineItem.name());
+            item.setCategory(lineItem.category());
+            item.setQuantity(lineItem.quantity());
+            item.setPrice(lineItem.price());
+            item.setTotal(lineItem.total());
+            items.add(item);
+        }
+        return items;
+    }
+
+
+    @Override
+    public void saveItems(Bill bill) {
+        billItemDao.insertItems(getBillItems(bill));
+    }
+
+
+    @Override
+    public boolean startBackfill() {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                backfill();
+            } catch (Exception ex) {
+                log.error("Backfill of bill items failed", ex);
+            } finally {
+                backfillRunning.set(false);
+            }
+        }, "bill-item-backfill");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+
+    /**
+     * Walks the bills without items in id order, one batch per transaction. The next batch starts after the last id
+     * of the previous one (keyset pagination), so every batch is an index range scan however far the backfill is,
+     * and new bills saved meanwhile (which get their items on insert) are not a problem.
+     * A bill whose JSON can't be parsed is logged and skipped.
+     */
+    @Override
+    public int backfill() {
+        log.info("Inside backfill of bill items");
+        int lastId = 0;
+        int backfilled = 0;
+        while (true) {
+            List<Bill> bills = billDao.getBillsWithoutItems(lastId, PageRequest.of(0, backfillBatchSize));
+            if (bills.isEmpty()) {
+                break;
+            }
+            List<BillItem> items = new ArrayList<>();
+            for (Bill bill : bills) {
+                try {
+                    items.addAll(getBillItems(bill));
+                    backfilled++;
+                } catch (IllegalArgumentException ex) {
+                    log.warn("Bill {} skipped: {}", bill.getId(), ex.getMessage());
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> billItemDao.insertItems(items));
+            lastId = bills.get(bills.size() - 1).getId();
+            log.info("Bill items backfilled up to bill {} ({} bills)", lastId, backfilled);
+        }
+        return backfilled;
+    }
+}
@@ -1,44 +1,106 @@
 package com.inn.cafe.ServiceImpl;
 
+import com.google.common.base.Strings;
 import com.inn.cafe.Constents.CafeConstants;
 import com.inn.cafe.DAO.BillDao;
+import com.inn.cafe.DAO.BillItemDao;
+import com.inn.cafe.DAO.DailySalesDao;
+import com.inn.cafe.DAO.RevenueBucketDao;
+import com.inn.cafe.Events.BillChangedEvent;
+import com.inn.cafe.Events.ChangeType;
 import com.inn.cafe.JWT.JwtFilter;
 import com.inn.cafe.POJO.Bill;
+import com.inn.cafe.Service.BillItemService;
 import com.inn.cafe.Service.BillService;
+import com.inn.cafe.Service.InvoiceCache;
+import com.inn.cafe.Service.InvoiceRenderService;
+import com.inn.cafe.Service.InvoiceStore;
+import com.inn.cafe.Utils.BillIdGenerator;
 import com.inn.cafe.Utils.CafeUtils;
-import com.itextpdf.text.*;
-import com.itextpdf.text.pdf.PdfPCell;
-import com.itextpdf.text.pdf.PdfPTable;
-import com.itextpdf.text.pdf.PdfWriter;
+import com.inn.cafe.Wrapper.BillWrapper;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.io.IOUtils;
-import org.json.JSONArray;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Stream;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 
 @Slf4j
 @Service
 public class BillServiceImpl implements BillService {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
     @Autowired
     JwtFilter jwtFilter;
 
     @Autowired
     BillDao billDao;
 
+    @Autowired
+    InvoiceRenderService invoiceRenderService;
+
+    @Autowired
+    InvoiceStore invoiceStore;
+
+    @Autowired
+    InvoiceCache invoiceCache;
+
+    @Autowired
+    BillIdGenerator billIdGenerator;
+
+    @Autowired
+    BillItemService billItemService;
+
+    @Autowired
+    BillItemDao billItemDao;
+
+    @Autowired
+    DailySalesDao dailySalesDao;
+
+    @Autowired
+    RevenueBucketDao revenueBucketDao;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Value("${cafe.invoice.render.wait-millis:2000}")
+    long renderWaitMillis;
+
+    @Value("${cafe.bill.page.max-size:100}")
+    int maxPageSize;
+
+    @Value("${cafe.invoice.export.max-bills:500}")
+    int exportMaxBills;
+
+    @Value("${cafe.invoice.export.render-ahead:8}")
+    int exportRenderAhead;
+
     @Override
     public ResponseEntity<String> generateReport(Map<String, Object> requestMap) {
         log.info("Inside generateReport");
@@ -78,6 +140,7 @@ public class BillServiceImpl implements BillService {
                      * Retrieve the existing report’s filename using the provided UUID.
                      */
                     fileName = (String) requestMap.get("uuid");
+                    invoiceRenderService.render(fileName, requestMap);
 
                 } else {
 
@@ -86,43 +149,16 @@ public class BillServiceImpl implements BillService {
                      * Assign a new filename and proceed with report generation.
                      */
                     // Logic to generate and save a new report
-                    fileName = CafeUtils.getUUID();  // check the getUUID implementation in CafeUtils class
+                    fileName = billIdGenerator.nextUUID();  // unique across threads and nodes, see BillIdGenerator
                     requestMap.put("uuid", fileName);
                     insertBill(requestMap);
-                }
-                String data = "Name: " + requestMap.get("name") + "\n" + "Contact Number: " + requestMap.get("contact") +
-                        "\n" + "Email: " + requestMap.get("email") + "\n" + "Payment Method: " + requestMap.get("paymentMethod");
-
-                Document document = new Document();   // this is for user details on pdf in normal text size
-//                PdfWriter.getInstance(document, new FileOutputStream(CafeConstants.STORE_LOCATION + "//" + fileName + ".pdf"));   /** '\\' for windows & '//' for mac/Linux */
-                PdfWriter.getInstance(document, new FileOutputStream(CafeConstants.STORE_LOCATION + File.separator + fileName + ".pdf"));
-                document.open();
-                setRectangleInPdf(document);
-
-                Paragraph chunk = new Paragraph("Cafe Management System", getFont("Header"));  // this will be the header name on pdf
-                chunk.setAlignment(Element.ALIGN_CENTER);
-                document.add(chunk);
-
-                Paragraph paragraph = new Paragraph(data + "\n \n", getFont("Data"));
-                document.add(paragraph);
-
-                PdfPTable table = new PdfPTable(5);
-                table.setWidthPercentage(100);
-                addTableHeader(table);
-
-                // productDetails is in the object so, we need to typecast to the String
-                // see getJsonArrayFromString implementation in CafeUtils class
-                JSONArray jsonArray = CafeUtils.getJsonArrayFromString((String) requestMap.get("productDetails"));
-                for (int i = 0; i < jsonArray.length(); i++) {
-                    addRows(table, CafeUtils.getMapFromJson(jsonArray.getString(i)));
-                }
-                document.add(table);
-
-                Paragraph footer = new Paragraph("Total : " + requestMap.get("totalAmount") + "\n"
-                        + "Thank you for visiting. Please visit again!", getFont("Data"));
-                document.add(footer);
-                document.close();
 
+                    /**
+                     * The bill row is saved, so the PDF is rendered in the background by the invoice render pipeline
+                     * and the uuid is returned right away. getPdf waits for the job if it is still running.
+                     */
+                    invoiceRenderService.submit(fileName, requestMap);
+                }
                 return new ResponseEntity<>("{\"uuid\":\" " + fileName + "\"}", HttpStatus.OK);
             }
             /** If requestMap validation fails, return a BAD_REQUEST response.*/
@@ -136,81 +172,28 @@ public class BillServiceImpl implements BillService {
     }
 
 
-    private void addRows(PdfPTable table, Map<String, Object> data) {
-        log.info("Inside addRows");
-        table.addCell((String) data.get("name"));
-        table.addCell((String) data.get("category"));
-//        table.addCell((String) data.get("quantity"));
-        table.addCell(String.valueOf(data.get("quantity")));
-        table.addCell(Double.toString((Double) data.get("price")));
-        table.addCell(Double.toString((Double) data.get("total")));
-    }
-
-
-    private void addTableHeader(PdfPTable table) {
-        log.info("Inside addTableHeader");
-        Stream.of("Name", "Category", "Quantity", "Price", "Sub Total")
-                .forEach(columnTitle -> {
-                    PdfPCell header = new PdfPCell();
-                    header.setBackgroundColor(BaseColor.LIGHT_GRAY);
-                    header.setBorderWidth(2);
-                    header.setPhrase(new Phrase(columnTitle));
-                    header.setBackgroundColor(BaseColor.YELLOW);
-                    header.setHorizontalAlignment(Element.ALIGN_CENTER);
-                    header.setVerticalAlignment(Element.ALIGN_CENTER);
-                    table.addCell(header);
-                });
-    }
-
-
-    private Font getFont(String type) {
-        log.info("Inside getFont");
-        switch (type) {
-            case "Header":
-                Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLDOBLIQUE, 18, BaseColor.BLACK);
-                headerFont.setStyle(Font.BOLD);
-                return headerFont;
-            case "Data":
-                Font dataFont = FontFactory.getFont(FontFactory.TIMES_ROMAN, 11, BaseColor.BLACK);
-                dataFont.setStyle(Font.BOLD);
-                return dataFont;
-            default:
-                return new Font();
-        }
-    }
-
-
-    private void setRectangleInPdf(Document document) throws DocumentException {
-        log.info("Inside setRectangleInPdf");
-        Rectangle rectangle = new Rectangle(577, 825, 18, 15);
-        rectangle.enableBorderSide(1);
-        rectangle.enableBorderSide(2);
-        rectangle.enableBorderSide(4);
-        rectangle.enableBorderSide(8);
-//        rectangle.setBackgroundColor(BaseColor.WHITE);
-        rectangle.setBackgroundColor(new BaseColor(230, 230, 230)); // Light gray
-        rectangle.setBorderWidth(1);
-        document.add(rectangle);
-    }
-
-
+    // no try/catch here: if the bill row can't be saved, generateReport must not render or return a uuid for it
+    // the bill, its bill_item rows, the daily_sales rollup and the revenue buckets are saved in one transaction
     private void insertBill(Map<String, Object> requestMap) {
-        try {
-            Bill bill = new Bill();
-            bill.setUuid((String) requestMap.get("uuid"));
-            bill.setName((String) requestMap.get("name"));
-            bill.setEmail((String) requestMap.get("email"));
-            bill.setContactNumber((String) requestMap.get("contactNumber"));
-            bill.setPaymentMethod((String) requestMap.get("paymentMethod"));
-//            bill.setTotal(Integer.parseInt((String) requestMap.get("totalAmount")));
-            bill.setTotal(Double.valueOf(requestMap.get("totalAmount").toString()).intValue());
-
-            bill.setProductDetails((String) requestMap.get("productDetails"));
-            bill.setCreatedBy(jwtFilter.getCurrentUser());
-            billDao.save(bill);
-        } catch (Exception ex) {
-            ex.printStackTrace();
-        }
+        Bill bill = new Bill();
+        bill.setUuid((String) requestMap.get("uuid"));
+        bill.setName((String) requestMap.get("name"));
+        bill.setEmail((String) requestMap.get("email"));
+        bill.setContactNumber((String) requestMap.get("contactNumber"));
+        bill.setPaymentMethod((String) requestMap.get("paymentMethod"));
+//        bill.setTotal(Integer.parseInt((String) requestMap.get("totalAmount")));
+        bill.setTotal(Double.valueOf(requestMap.get("totalAmount").toString()).intValue());
+
+        bill.setProductDetails((String) requestMap.get("productDetails"));
+        bill.setCreatedBy(jwtFilter.getCurrentUser());
+        bill.setCreatedDate(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            billDao.save(bill);  // the id is assigned by the insert, the items need it
+            billItemService.saveItems(bill);
+            dailySalesDao.addBill(bill);
+            revenueBucketDao.addBill(bill);
+            eventPublisher.publishEvent(new BillChangedEvent(ChangeType.CREATED, bill));
+        });
     }
 
 
@@ -224,18 +207,57 @@ public class BillServiceImpl implements BillService {
     }
 
 
-    // method to get the list of bills by admin (Admin can see the list of bills which he has generated only)
+    /**
+     * One page of the bill list, newest first (admin sees all bills, other users only the bills they generated).
+     * Keyset pagination: `cursor` is the id of the last bill of the previous page and the page is the next `size` bills
+     * with a smaller id, so every page is an index range scan no matter how deep the client pages. The cursor of the
+     * next page is returned in the X-Next-Cursor header, which is missing on the last page.
+     * Optional filters: fromDate / toDate (yyyy-MM-dd, both days included) and createdBy (admin only).
+     */
+    @Override
+    public ResponseEntity<List<BillWrapper>> getBills(Integer cursor, Integer size, String fromDate, String toDate, String createdBy) {
+        log.info("Inside getBills : cursor {} size {}", cursor, size);
+        try {
+            int pageSize = Math.max(1, Math.min(size == null ? DEFAULT_PAGE_SIZE : size, maxPageSize));
+            if (!jwtFilter.isAdmin()) {
+                createdBy = jwtFilter.getCurrentUser();
+            }
+            LocalDateTime from = Strings.isNullOrEmpty(fromDate) ? null : LocalDate.parse(fromDate).atStartOfDay();
+            LocalDateTime to = Strings.isNullOrEmpty(toDate) ? null : LocalDate.parse(toDate).plusDays(1).atStartOfDay();
+
+            // one more than the page is read to find out whether there is a next page
+            List<BillWrapper> list = billDao.getBillPage(cursor == null ? Integer.MAX_VALUE : cursor,
+                    Strings.isNullOrEmpty(createdBy) ? null : createdBy, from, to, PageRequest.of(0, pageSize + 1));
+            HttpHeaders headers = new HttpHeaders();
+            if (list.size() > pageSize) {
+                list = list.subList(0, pageSize);
+                headers.set(NEXT_CURSOR_HEADER, String.valueOf(list.get(pageSize - 1).getId()));
+            }
+            return new ResponseEntity<>(list, headers, HttpStatus.OK);
+        } catch (DateTimeParseException ex) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+
+    // full bill including its productDetails, for the detail view of one bill in the list
     @Override
-    public ResponseEntity<List<Bill>> getBills() {
-        log.info("Inside getBills");
-//        List<Bill> list = new ArrayList<>();  // can be also written as [ List<Bill> list; ]
-        List<Bill> list;
-        if (jwtFilter.isAdmin()) {
-            list = billDao.getAllBills();
-        } else {
-            list = billDao.getBillByUserName(jwtFilter.getCurrentUser());
+    public ResponseEntity<Bill> getBill(Integer id) {
+        log.info("Inside getBill {}", id);
+        try {
+            Optional<Bill> bill = billDao.findById(id);
+            // a user who is not admin can only open their own bills, other ids look like they don't exist
+            if (bill.isEmpty() || (!jwtFilter.isAdmin() && !jwtFilter.getCurrentUser().equals(bill.get().getCreatedBy()))) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(bill.get(), HttpStatus.OK);
+        } catch (Exception ex) {
+            ex.printStackTrace();
         }
-        return new ResponseEntity<>(list, HttpStatus.OK);
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
 
@@ -245,28 +267,49 @@ public class BillServiceImpl implements BillService {
      first it will check whether this file is actually exists in our database or not. if not then will generate new bill report for requested user.
      */
     @Override
-    public ResponseEntity<byte[]> getPdf(Map<String, Object> requestMap) {
+    public ResponseEntity<Resource> getPdf(Map<String, Object> requestMap, String ifNoneMatch) {
         log.info("Inside getPdf : requestMap {}", requestMap);
 
         try {
-            byte[] byteArray = new byte[0];
             if (!requestMap.containsKey("uuid") && validateRequestMap(requestMap)) {
-                return new ResponseEntity<>(byteArray, HttpStatus.BAD_REQUEST);
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
             }
-            // write the method to check whether this file is actually exists in our database or not
-            String filePath = CafeConstants.STORE_LOCATION + "//" + (String) requestMap.get("uuid") + ".pdf";   /** '\\' for windows & '//' for mac/Linux */
-//            String filePath = CafeConstants.STORE_LOCATION + File.separator + requestMap.get("uuid") + ".pdf";  // Best Solution → Use File.separator (Recommended)
-
-            if (CafeUtils.isFileExists(filePath)) {
-                byteArray = getByteArray(filePath);
-                // now we have to return the byteArray into the API
-                return new ResponseEntity<>(byteArray, HttpStatus.OK);
-            } else {
-                requestMap.put("isGenerate", false);
-                generateReport(requestMap);
-                byteArray = getByteArray(filePath);
-                return new ResponseEntity<>(byteArray, HttpStatus.OK);
+            String uuid = (String) requestMap.get("uuid");
+            if (!CafeUtils.isValidBillUUID(uuid)) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            // the client already has this invoice and its bill still exists, the PDF doesn't have to be read
+            String eTag = getInvoiceETag(uuid);
+            if (CafeUtils.isETagMatch(ifNoneMatch, eTag) && billExists(uuid)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            // if the invoice is still being rendered in the background, wait briefly for it
+            if (!invoiceRenderService.awaitRender(uuid, renderWaitMillis)) {
+                return ResponseEntity.status(HttpStatus.ACCEPTED).header(HttpHeaders.RETRY_AFTER, "1").build();
+            }
+            Resource cached = invoiceCache.get(uuid);
+            if (cached != null) {
+                return getPdfResponse(cached, eTag);
+            }
+            // check whether the invoice actually exists in the invoice store, if not then render it again from its
+            // saved bill (its background render was rejected by a full queue, or failed)
+            if (!invoiceStore.exists(uuid)) {
+                List<Bill> bills = billDao.getBillsByUuids(List.of(uuid));
+                if (bills.isEmpty()) {
+                    return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+                }
+                try {
+                    invoiceRenderService.render(uuid, getBillData(bills.get(0)));
+                } catch (TimeoutException ex) {
+                    // another request is still rendering it
+                    return ResponseEntity.status(HttpStatus.ACCEPTED).header(HttpHeaders.RETRY_AFTER, "1").build();
+                }
             }
+            Resource resource = invoiceStore.load(uuid);
+            if (resource == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            return getPdfResponse(invoiceCache.put(uuid, resource), eTag);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
@@ -274,12 +317,200 @@ public class BillServiceImpl implements BillService {
     }
 
 
-    private byte[] getByteArray(String filePath) throws Exception {
-        File initialFile = new File(filePath);
-        InputStream targetStream = new FileInputStream(initialFile);
-        byte[] byteArray = IOUtils.toByteArray(targetStream);
-        targetStream.close();
-        return byteArray;
+    /**
+     * The invoice is returned as a Resource instead of a byte[], so Spring copies it to the response through a small
+     * fixed buffer and the heap used per download does not grow with the size of the invoice.
+     * Content-Length is taken from the stored size, and a request with a Range header gets a 206 partial response
+     * (handled by Spring for Resource bodies).
+     * "no-cache" makes the client revalidate with If-None-Match, which is answered with 304 without reading the invoice.
+     */
+    private ResponseEntity<Resource> getPdfResponse(Resource resource, String eTag) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .eTag(eTag)
+                .body(resource);
+    }
+
+
+    /**
+     * A cached invoice is invalidated when its bill is deleted, so only a cache miss has to ask the database.
+     */
+    private boolean billExists(String uuid) {
+        return invoiceCache.get(uuid) != null || !billDao.getExistingUuids(List.of(uuid)).isEmpty();
+    }
+
+
+    /**
+     * An invoice never changes once its bill is created (a regenerated PDF only differs in its embedded timestamps),
+     * so the uuid alone identifies it. The ETag is weak because the bytes of a regenerated copy are not identical.
+     */
+    private String getInvoiceETag(String uuid) {
+        return "W/\"" + uuid + "\"";
+    }
+
+
+    /**
+     * Batch download of invoices as one ZIP archive, either for a list of bills ("uuids") or for all bills generated
+     * between "fromDate" and "toDate" (yyyy-MM-dd, both days included). A user who is not admin only gets their own bills.
+
+     * The archive is written straight to the response while the PDFs are read from the invoice store, so neither the
+     * archive nor the list of PDFs is ever held in memory. Missing invoices are rendered by the invoice render pipeline,
+     * a few bills ahead of the one being written so they render in parallel while earlier entries are streamed.
+     */
+    @Override
+    public ResponseEntity<StreamingResponseBody> exportPdf(Map<String, Object> requestMap) {
+        log.info("Inside exportPdf : requestMap {}", requestMap);
+        try {
+            // a user who is not admin only gets their own bills
+            boolean admin = jwtFilter.isAdmin();
+            String createdBy = admin ? null : jwtFilter.getCurrentUser();
+            List<Bill> bills;
+            if (requestMap.containsKey("uuids")) {
+                List<String> uuids = getExportUuids(requestMap.get("uuids"));
+                if (uuids == null) {
+                    return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+                }
+                if (uuids.size() > exportMaxBills) {
+                    return new ResponseEntity<>(HttpStatus.PAYLOAD_TOO_LARGE);
+                }
+                bills = billDao.getBillsByUuids(uuids);
+            } else if (requestMap.containsKey("fromDate") && requestMap.containsKey("toDate")) {
+                LocalDate fromDate = LocalDate.parse((String) requestMap.get("fromDate"));
+                LocalDate toDate = LocalDate.parse((String) requestMap.get("toDate"));
+                // one more than the limit is read to find out whether the range is too large, counting only the
+                // bills the user gets
+                bills = billDao.getBillsByCreatedDate(fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay(),
+                        createdBy, PageRequest.of(0, exportMaxBills + 1));
+                if (bills.size() > exportMaxBills) {
+                    return new ResponseEntity<>(HttpStatus.PAYLOAD_TOO_LARGE);
+                }
+            } else {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+
+            if (!admin) {
+                bills = bills.stream().filter(bill -> bill.getCreatedBy() != null && bill.getCreatedBy().equals(createdBy))
+                        .collect(Collectors.toList());
+            }
+            List<Bill> exportBills = bills;
+            StreamingResponseBody body = out -> writeInvoiceZip(exportBills, out);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("invoices.zip").build().toString())
+                    .body(body);
+        } catch (DateTimeParseException | ClassCastException ex) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+
+    // the uuids of the export request, or null if it is not a list of valid bill uuids
+    private List<String> getExportUuids(Object value) {
+        if (!(value instanceof List)) {
+            return null;
+        }
+        List<String> uuids = new ArrayList<>();
+        for (Object uuid : (List<?>) value) {
+            if (!(uuid instanceof String) || !CafeUtils.isValidBillUUID((String) uuid)) {
+                return null;
+            }
+            uuids.add((String) uuid);
+        }
+        return uuids.isEmpty() ? null : uuids;
+    }
+
+
+    private void writeInvoiceZip(List<Bill> bills, OutputStream out) throws IOException {
+        Map<String, CompletableFuture<Void>> renders = new HashMap<>();
+        int next = 0;
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.setLevel(Deflater.BEST_SPEED);  // PDFs are compressed already
+            for (int i = 0; i < bills.size(); i++) {
+                // start the renders of missing invoices up to exportRenderAhead bills ahead of the one being written
+                for (; next < bills.size() && next <= i + exportRenderAhead; next++) {
+                    Bill ahead = bills.get(next);
+                    if (!invoiceStore.exists(ahead.getUuid())) {
+                        renders.put(ahead.getUuid(), invoiceRenderService.submit(ahead.getUuid(), getBillData(ahead)));
+                    }
+                }
+
+                Bill bill = bills.get(i);
+                awaitExportRender(bill, renders.remove(bill.getUuid()));
+                Resource resource = invoiceCache.get(bill.getUuid());
+                if (resource == null) {
+                    resource = invoiceStore.load(bill.getUuid());
+                }
+                if (resource == null) {
+                    log.warn("Invoice {} could not be rendered, it is left out of the export", bill.getUuid());
+                    continue;
+                }
+                zip.putNextEntry(new ZipEntry(bill.getUuid() + ".pdf"));
+                try (InputStream in = resource.getInputStream()) {
+                    in.transferTo(zip);
+                }
+                zip.closeEntry();
+            }
+        }
+    }
+
+
+    /**
+     * Waits for the background render of an exported invoice. If the render queue was full (or the job failed) the
+     * invoice is rendered on the export thread instead, so a busy pipeline slows the export down but never drops a bill.
+     */
+    private void awaitExportRender(Bill bill, CompletableFuture<Void> render) throws IOException {
+        if (render == null) {
+            return;
+        }
+        try {
+            render.get();
+        } catch (ExecutionException ex) {
+            try {
+                invoiceRenderService.render(bill.getUuid(), getBillData(bill));
+            } catch (Exception renderEx) {
+                log.error("Rendering invoice {} for the export failed", bill.getUuid(), renderEx);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Invoice export interrupted", ex);
+        }
+    }
+
+
+    // the invoice data of a saved bill, in the same format as the generateReport request
+    private Map<String, Object> getBillData(Bill bill) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("uuid", bill.getUuid());
+        data.put("name", bill.getName());
+        data.put("email", bill.getEmail());
+        data.put("contactNumber", bill.getContactNumber());
+        data.put("paymentMethod", bill.getPaymentMethod());
+        data.put("productDetails", bill.getProductDetails());
+        data.put("totalAmount", bill.getTotal());
+        return data;
+    }
+
+
+    // admin only: writes the bill_item rows of the bills which were saved before the table existed, in the background
+    @Override
+    public ResponseEntity<String> backfillBillItems() {
+        log.info("Inside backfillBillItems");
+        try {
+            if (jwtFilter.isAdmin()) {
+                if (billItemService.startBackfill()) {
+                    return CafeUtils.getResponseEntity("Backfill of bill items started", HttpStatus.ACCEPTED);
+                }
+                return CafeUtils.getResponseEntity("Backfill of bill items is already running", HttpStatus.CONFLICT);
+            }
+            return CafeUtils.getResponseEntity(CafeConstants.UNAUTHOROZED_ACCESS, HttpStatus.UNAUTHORIZED);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return CafeUtils.getResponseEntity(CafeConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
 
@@ -288,9 +519,17 @@ public class BillServiceImpl implements BillService {
         log.info("Inside deleteBill {}", id);
         try {
             // we will check first whether this id is present in the database or not
-            Optional optional = billDao.findById(id);
+            Optional<Bill> optional = billDao.findById(id);
             if (!optional.isEmpty()) {
-                billDao.deleteById(id);
+                transactionTemplate.executeWithoutResult(status -> {
+                    billItemDao.deleteByBillId(id);
+                    billDao.deleteById(id);
+                    dailySalesDao.removeBill(optional.get());
+                    revenueBucketDao.removeBill(optional.get());
+                    eventPublisher.publishEvent(new BillChangedEvent(ChangeType.DELETED, optional.get()));
+                });
+                // the invoice goes too, if this fails the orphaned invoice sweeper removes it later
+                deleteInvoice(optional.get().getUuid());
                 return CafeUtils.getResponseEntity("Bill Deleted Successfully", HttpStatus.OK);
             }
             return CafeUtils.getResponseEntity("Bill id does not exists", HttpStatus.OK);
@@ -301,4 +540,14 @@ public class BillServiceImpl implements BillService {
         return null;
     }
 
+
+    private void deleteInvoice(String uuid) {
+        try {
+            invoiceCache.invalidate(uuid);
+            invoiceStore.delete(uuid);
+        } catch (Exception ex) {
+            log.warn("Invoice {} of the deleted bill could not be deleted", uuid, ex);
+        }
+    }
+
 }
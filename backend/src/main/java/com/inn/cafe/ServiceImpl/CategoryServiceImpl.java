@@ -4,16 +4,20 @@ import com.google.common.base.Strings;
 import com.inn.cafe.Constents.CafeConstants;
 import com.inn.cafe.DAO.CategoryDao;
 import com.inn.cafe.DAO.ProductDao;
+import com.inn.cafe.Events.CategoryChangedEvent;
+import com.inn.cafe.Events.ChangeType;
 import com.inn.cafe.POJO.Product;
 import com.inn.cafe.JWT.JwtFilter;
 import com.inn.cafe.POJO.Category;
 import com.inn.cafe.Service.CategoryService;
+import com.inn.cafe.Service.MenuCatalog;
 import com.inn.cafe.Utils.CafeUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -38,9 +42,16 @@ public class CategoryServiceImpl implements CategoryService {
     @Autowired
     private ProductDao productDao;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MenuCatalog menuCatalog;
+
     @Autowired
     private JwtFilter jwtFilter;  // to check the current user is admin because we have method for admin in JwtFilter class, so we are creating the bean of JwtFilter class here.
 
+    @Transactional  // the catalog change log row commits with the change
     @Override
     public ResponseEntity<String> addNewCategory(Map<String, String> requestMap) {
         try {
@@ -55,7 +66,8 @@ public class CategoryServiceImpl implements CategoryService {
                     if (categoryDao.existsByName(requestMap.get("name"))) {
                         return CafeUtils.getResponseEntity("Item Already Exists", HttpStatus.BAD_REQUEST);
                     }
-                    categoryDao.save(getCategoryFromMap(requestMap, false));
+                    Category category = categoryDao.save(getCategoryFromMap(requestMap, false));
+                    eventPublisher.publishEvent(new CategoryChangedEvent(ChangeType.CREATED, category.getId()));
 //                    return CafeUtils.getResponseEntity("Category Added Successfully", HttpStatus.OK);
                     return ResponseEntity.ok("Category Added Successfully");
                 }
@@ -102,14 +114,18 @@ public class CategoryServiceImpl implements CategoryService {
      * and if u use http://localhost:8000/category/get it will list all the items by normal user
      */
     @Override
-    public ResponseEntity<List<Category>> getAllCategory(String filterValue) {
+    public ResponseEntity<List<Category>> getAllCategory(String filterValue, String ifNoneMatch, String ifModifiedSince) {
         try {
+            MenuCatalog.Snapshot menu = menuCatalog.current();
+            if (menu.isNotModified(ifNoneMatch, ifModifiedSince)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(menu.headers()).build();
+            }
             // this will return those value which contains one or more product in that (ie. the category list in which entry is not null)
             if (!Strings.isNullOrEmpty(filterValue) && filterValue.equalsIgnoreCase("true")) {
                 log.info("Inside if");
-                return new ResponseEntity<List<Category>>(categoryDao.getAllCategory(), HttpStatus.OK);
+                return new ResponseEntity<List<Category>>(menu.activeCategories(), menu.headers(), HttpStatus.OK);
             }
-            return new ResponseEntity<>(categoryDao.findAll(), HttpStatus.OK);
+            return new ResponseEntity<>(menu.categories(), menu.headers(), HttpStatus.OK);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
@@ -117,6 +133,7 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
 
+    @Transactional  // the catalog change log row commits with the change
     @Override
     public ResponseEntity<String> updateCategory(Map<String, String> requestMap) {
         try {
@@ -132,6 +149,7 @@ public class CategoryServiceImpl implements CategoryService {
                          after converting the request data into a proper category format using getCategoryFromMap(). */
 
                         categoryDao.save(getCategoryFromMap(requestMap, true));
+                        eventPublisher.publishEvent(new CategoryChangedEvent(ChangeType.UPDATED, Integer.parseInt(requestMap.get("id"))));
                         return CafeUtils.getResponseEntity("Category Updated Successfully", HttpStatus.OK);
                     } else {
                         return CafeUtils.getResponseEntity("Category id doesn't exist", HttpStatus.BAD_REQUEST);
@@ -1,16 +1,35 @@
 package com.inn.cafe.ServiceImpl;
 
-import com.inn.cafe.DAO.BillDao;
-import com.inn.cafe.DAO.CategoryDao;
-import com.inn.cafe.DAO.ProductDao;
+import com.google.common.base.Strings;
+import com.inn.cafe.Constents.CafeConstants;
+import com.inn.cafe.DAO.DailySalesDao;
+import com.inn.cafe.DAO.RevenueBucketDao;
+import com.inn.cafe.JWT.JwtFilter;
+import com.inn.cafe.POJO.RevenueBucket.Resolution;
+import com.inn.cafe.Service.DashBoardCounters;
 import com.inn.cafe.Service.DashBoardService;
+import com.inn.cafe.Service.DashBoardStream;
+import com.inn.cafe.Service.RevenueBucketRetention;
+import com.inn.cafe.Service.TopProductsTracker;
+import com.inn.cafe.Utils.CafeUtils;
+import com.inn.cafe.Wrapper.RevenuePoint;
+import com.inn.cafe.Wrapper.SalesWrapper;
+import com.inn.cafe.Wrapper.TopProductWrapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 
@@ -19,21 +38,168 @@ import java.util.Map;
 public class DashBoardServiceImpl implements DashBoardService {
 
     @Autowired
-    CategoryDao categoryDao;
+    DashBoardCounters dashBoardCounters;
 
     @Autowired
-    ProductDao productDao;
+    DashBoardStream dashBoardStream;
 
     @Autowired
-    BillDao billDao;
+    DailySalesDao dailySalesDao;
 
+    @Autowired
+    RevenueBucketDao revenueBucketDao;
+
+    @Autowired
+    RevenueBucketRetention revenueBucketRetention;
+
+    @Autowired
+    TopProductsTracker topProductsTracker;
+
+    @Autowired
+    JwtFilter jwtFilter;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
 
+    @Value("${cafe.dashboard.sales.max-days:366}")
+    long maxSalesDays;
+
+    @Value("${cafe.dashboard.revenue.max-buckets:1000}")
+    long maxRevenueBuckets;
+
+    @Value("${cafe.dashboard.sales.rebuild-batch-size:500}")
+    int rebuildBatchSize;
+
+
+    // read from the in-memory counters, see DashBoardCounters
     @Override
     public ResponseEntity<Map<String, Object>> getCount() {
         Map<String, Object> map = new HashMap<>();
-        map.put("category", categoryDao.count());
-        map.put("product", productDao.count());
-        map.put("bill", billDao.count());
+        map.put("category", dashBoardCounters.getCategoryCount());
+        map.put("product", dashBoardCounters.getProductCount());
+        map.put("bill", dashBoardCounters.getBillCount());
         return new ResponseEntity<>(map, HttpStatus.OK);
     }
+
+
+    /**
+     * Sales report from the daily_sales rollup: the cost depends on the number of days asked for (capped at
+     * cafe.dashboard.sales.max-days), not on the number of bills.
+     */
+    @Override
+    public ResponseEntity<List<SalesWrapper>> getSales(String fromDate, String toDate, String groupBy, String createdBy) {
+        log.info("Inside getSales : {} - {} by {}", fromDate, toDate, groupBy);
+        try {
+            if (!jwtFilter.isAdmin()) {
+                return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+            }
+            LocalDate to = Strings.isNullOrEmpty(toDate) ? LocalDate.now() : LocalDate.parse(toDate);
+            LocalDate from = Strings.isNullOrEmpty(fromDate) ? to.minusDays(29) : LocalDate.parse(fromDate);
+            if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= maxSalesDays) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            List<SalesWrapper> sales = dailySalesDao.getSales(from, to, groupBy, Strings.emptyToNull(createdBy));
+            return new ResponseEntity<>(sales, HttpStatus.OK);
+        } catch (DateTimeParseException | IllegalArgumentException ex) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+
+    /**
+     * Revenue time series from the revenue_bucket table: the cost depends on the number of buckets asked for (capped
+     * at cafe.dashboard.revenue.max-buckets), not on the number of bills.
+     */
+    @Override
+    public ResponseEntity<List<RevenuePoint>> getRevenue(String resolution, String fromDate, String toDate) {
+        log.info("Inside getRevenue : {} - {} per {}", fromDate, toDate, resolution);
+        try {
+            if (!jwtFilter.isAdmin()) {
+                return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+            }
+            Resolution bucket = Resolution.of(resolution);
+            LocalDateTime to = Strings.isNullOrEmpty(toDate)
+                    ? bucket.bucketStart(LocalDateTime.now()).plus(bucket.getSize()) : parseTime(toDate);
+            LocalDateTime from = bucket.bucketStart(Strings.isNullOrEmpty(fromDate)
+                    ? to.minus(bucket.getSize().multipliedBy(96)) : parseTime(fromDate));
+            long step = bucket.getSize().toMinutes();
+            if (!from.isBefore(to) || (ChronoUnit.MINUTES.between(from, to) + step - 1) / step > maxRevenueBuckets) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            return new ResponseEntity<>(revenueBucketDao.getSeries(bucket, from, to), HttpStatus.OK);
+        } catch (DateTimeParseException | IllegalArgumentException ex) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+
+    private LocalDateTime parseTime(String value) {
+        return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+    }
+
+
+    // answered from the in-memory sketches of TopProductsTracker, approximate beyond the top few hundred products a day
+    @Override
+    public ResponseEntity<List<TopProductWrapper>> getTopProducts(String window, Integer limit) {
+        try {
+            if (!jwtFilter.isAdmin()) {
+                return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+            }
+            if (limit == null || limit < 1 || limit > 100) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            }
+            return new ResponseEntity<>(topProductsTracker.getTop(window, limit), HttpStatus.OK);
+        } catch (IllegalArgumentException ex) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+
+    // dates the old undated bills batch by batch, one transaction each, then recomputes the whole rollup and the
+    // revenue buckets in one transaction, readers see the old ones until it commits
+    @Override
+    public ResponseEntity<String> rebuildSales() {
+        log.info("Inside rebuildSales");
+        try {
+            if (!jwtFilter.isAdmin()) {
+                return CafeUtils.getResponseEntity(CafeConstants.UNAUTHOROZED_ACCESS, HttpStatus.UNAUTHORIZED);
+            }
+            Integer lastId = 0;
+            while (lastId != null) {
+                int afterId = lastId;
+                lastId = transactionTemplate.execute(status -> dailySalesDao.dateUndatedBills(afterId, rebuildBatchSize));
+            }
+            String result = transactionTemplate.execute(status -> dailySalesDao.rebuild() + " rollup rows, "
+                    + revenueBucketDao.rebuild() + " revenue buckets");
+            revenueBucketRetention.prune();
+            return CafeUtils.getResponseEntity("Sales rebuilt, " + result, HttpStatus.OK);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return CafeUtils.getResponseEntity(CafeConstants.SOMETHING_WENT_WRONG, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+
+    @Override
+    public ResponseEntity<SseEmitter> getStream() {
+        log.info("Inside getStream");
+        if (!jwtFilter.isAdmin()) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+        SseEmitter emitter = dashBoardStream.subscribe();
+        if (emitter == null) {
+            log.warn("Dashboard stream refused, {} streams are open", dashBoardStream.getSubscriberCount());
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return new ResponseEntity<>(emitter, HttpStatus.OK);
+    }
 }
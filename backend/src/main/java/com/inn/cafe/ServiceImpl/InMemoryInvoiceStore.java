@@ -0,0 +1,73 @@
+package com.inn.cafe.ServiceImpl;
+
+import com.inn.cafe.Service.InvoiceStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+
+/**
+ * Keeps invoices in memory. Used for tests (cafe.invoice.store.type=memory), nothing survives a restart.
+ */
+@Service
+@ConditionalOnProperty(name = "cafe.invoice.store.type", havingValue = "memory")
+public class InMemoryInvoiceStore implements InvoiceStore {
+
+    private final Map<String, byte[]> invoices = new ConcurrentHashMap<>();
+
+    private final Map<String, Instant> savedAt = new ConcurrentHashMap<>();
+
+    private final Map<String, byte[]> quarantined = new ConcurrentHashMap<>();
+
+
+    @Override
+    public void save(String uuid, InvoiceWriter writer) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out);
+        savedAt.put(uuid, Instant.now());
+        invoices.put(uuid, out.toByteArray());
+    }
+
+    @Override
+    public boolean exists(String uuid) {
+        return invoices.containsKey(uuid);
+    }
+
+    @Override
+    public Resource load(String uuid) {
+        byte[] content = invoices.get(uuid);
+        return content == null ? null : new ByteArrayResource(content);
+    }
+
+    @Override
+    public boolean delete(String uuid) {
+        return invoices.remove(uuid) != null;
+    }
+
+    @Override
+    public Stream<StoredInvoice> list() {
+        return invoices.keySet().stream()
+                .map(uuid -> new StoredInvoice(uuid, savedAt.getOrDefault(uuid, Instant.EPOCH)));
+    }
+
+    @Override
+    public boolean quarantine(String uuid) {
+        byte[] content = invoices.remove(uuid);
+        if (content == null) {
+            return false;
+        }
+        quarantined.put(uuid, content);
+        return true;
+    }
+
+    public boolean isQuarantined(String uuid) {
+        return quarantined.containsKey(uuid);
+    }
+}
@@ -0,0 +1,189 @@
+package com.inn.cafe.ServiceImpl;
+
+import com.inn.cafe.Service.InvoiceCache;
+import com.inn.cafe.Service.InvoiceRenderService;
+import com.inn.cafe.Service.InvoiceStore;
+import com.inn.cafe.Utils.InvoiceTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+@Slf4j
+@Service
+public class InvoiceRenderServiceImpl implements InvoiceRenderService {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private InvoiceStore invoiceStore;
+
+    @Autowired
+    private InvoiceCache invoiceCache;
+
+    @Value("${cafe.invoice.render.threads:2}")
+    private int threads;
+
+    @Value("${cafe.invoice.render.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${cafe.invoice.render.wait-millis:2000}")
+    private long renderWaitMillis;
+
+    private ThreadPoolExecutor executor;
+
+    /** Fonts, border and table header are built once and shared by all render jobs. */
+    private final InvoiceTemplate invoiceTemplate = new InvoiceTemplate();
+
+    /** Render jobs which are queued or running, by bill uuid. */
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    private Timer renderTimer;
+
+    private Counter rejectedCounter;
+
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "invoice-render-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("invoice.render.queue.depth", executor, e -> e.getQueue().size())
+                .description("Invoice render jobs waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("invoice.render.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Invoice render jobs currently running")
+                .register(meterRegistry);
+        renderTimer = Timer.builder("invoice.render.latency")
+                .description("Time taken to render and write one invoice PDF")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("invoice.render.rejected")
+                .description("Render jobs rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+
+    @Override
+    public CompletableFuture<Void> submit(String uuid, Map<String, Object> requestMap) {
+        // the job runs after the request has finished, so it gets its own copy of the bill data
+        Map<String, Object> data = new HashMap<>(requestMap);
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inFlight.putIfAbsent(uuid, future);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    renderTimed(uuid, data);
+                    future.complete(null);
+                } catch (Exception ex) {
+                    log.error("Rendering invoice {} failed", uuid, ex);
+                    future.completeExceptionally(ex);
+                } finally {
+                    inFlight.remove(uuid, future);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            /** The bill row is already saved, so getPdf renders the invoice from it on the first download. */
+            log.warn("Render queue is full, invoice {} will be rendered on demand", uuid);
+            rejectedCounter.increment();
+            inFlight.remove(uuid, future);
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+
+    @Override
+    public boolean awaitRender(String uuid, long timeoutMillis) {
+        CompletableFuture<Void> future = inFlight.get(uuid);
+        if (future == null) {
+            return true;
+        }
+        try {
+            future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException ex) {
+            return false;
+        } catch (ExecutionException ex) {
+            return true;  // the job failed, the caller will render the invoice again
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+
+    /**
+     * Single-flight render: the first caller for a uuid renders the invoice, callers arriving while that render
+     * (or a queued background job for the same uuid) is in flight wait for its result instead of writing the
+     * same file again, for at most cafe.invoice.render.wait-millis like getPdf does.
+     */
+    @Override
+    public void render(String uuid, Map<String, Object> requestMap) throws Exception {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inFlight.putIfAbsent(uuid, future);
+        if (existing != null) {
+            try {
+                existing.get(renderWaitMillis, TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException ex) {
+                throw new TimeoutException("Invoice " + uuid + " is still being rendered");
+            } catch (ExecutionException ex) {
+                throw ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex;
+            }
+        }
+        try {
+            renderTimed(uuid, requestMap);
+            future.complete(null);
+        } catch (Exception ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(uuid, future);
+        }
+    }
+
+
+    private void renderTimed(String uuid, Map<String, Object> requestMap) throws Exception {
+        long start = System.nanoTime();
+        try {
+            writePdf(uuid, requestMap);
+        } finally {
+            renderTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+
+    private void writePdf(String fileName, Map<String, Object> requestMap) throws Exception {
+        invoiceStore.save(fileName, out -> invoiceTemplate.write(out, requestMap));
+        invoiceCache.invalidate(fileName);
+    }
+}
@@ -0,0 +1,165 @@
+package com.inn.cafe.ServiceImpl;
+
+import com.inn.cafe.Constents.CafeConstants;
+import com.inn.cafe.Service.InvoiceStore;
+import com.inn.cafe.Utils.CafeUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+
+/**
+ * Stores invoices on the local file system, sharded by date and by hash so that no directory grows without limit:
+ *
+ *   <location>/2025/03/7f/BILL-1741800668365.pdf
+ *
+ * The year and month come from the timestamp inside the bill uuid (UTC), the last level is one of 256 buckets
+ * picked from the hash of the uuid. A uuid without a timestamp goes under <location>/undated/.
+ *
+ * Invoices written before the store was sharded are still read from the flat <location>/<uuid>.pdf path.
+ * Quarantined invoices are moved to <location>/quarantine/.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "cafe.invoice.store.type", havingValue = "local", matchIfMissing = true)
+public class LocalInvoiceStore implements InvoiceStore {
+
+    private static final String QUARANTINE_DIRECTORY = "quarantine";
+
+    @Value("${cafe.invoice.store.location:" + CafeConstants.STORE_LOCATION + "}")
+    private String location;
+
+
+    @Override
+    public void save(String uuid, InvoiceWriter writer) throws Exception {
+        Path target = shardPath(uuid);
+        Files.createDirectories(target.getParent());
+        // write next to the target and rename, the rename is atomic within one directory
+        Path temp = Files.createTempFile(target.getParent(), uuid + "-", ".pdf.tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                writer.writeTo(out);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public boolean exists(String uuid) {
+        return find(uuid) != null;
+    }
+
+    @Override
+    public Resource load(String uuid) {
+        Path path = find(uuid);
+        return path == null ? null : new FileSystemResource(path);
+    }
+
+    @Override
+    public boolean delete(String uuid) throws IOException {
+        boolean deleted = Files.deleteIfExists(shardPath(uuid));
+        return Files.deleteIfExists(legacyPath(uuid)) || deleted;
+    }
+
+    @Override
+    public Stream<StoredInvoice> list() throws IOException {
+        Path root = Paths.get(location);
+        if (!Files.isDirectory(root)) {
+            return Stream.empty();
+        }
+        Path quarantine = root.resolve(QUARANTINE_DIRECTORY);
+        // Files.walk reads the directories lazily, one at a time, while the stream is consumed
+        return Files.walk(root)
+                .filter(path -> !path.startsWith(quarantine))
+                .filter(path -> path.getFileName().toString().endsWith(".pdf"))  // skips the .pdf.tmp files of running saves
+                .map(this::toStoredInvoice)
+                .filter(Objects::nonNull);
+    }
+
+    @Override
+    public boolean quarantine(String uuid) throws IOException {
+        Path path = find(uuid);
+        if (path == null) {
+            return false;
+        }
+        Path target = Paths.get(location, QUARANTINE_DIRECTORY, uuid + ".pdf");
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(path, target, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (NoSuchFileException ex) {
+            return false;  // deleted meanwhile
+        }
+    }
+
+
+    // null for a file which is not an invoice or which was deleted while the store was being listed
+    private StoredInvoice toStoredInvoice(Path path) {
+        String fileName = path.getFileName().toString();
+        String uuid = fileName.substring(0, fileName.length() - ".pdf".length());
+        if (!CafeUtils.isValidBillUUID(uuid)) {
+            return null;
+        }
+        try {
+            return new StoredInvoice(uuid, Files.getLastModifiedTime(path).toInstant());
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private Path find(String uuid) {
+        Path path = shardPath(uuid);
+        if (Files.exists(path)) {
+            return path;
+        }
+        Path legacy = legacyPath(uuid);
+        return Files.exists(legacy) ? legacy : null;
+    }
+
+    private Path shardPath(String uuid) {
+        Path root = Paths.get(location);
+        Long timestamp = CafeUtils.getTimestampFromUUID(validate(uuid));
+        if (timestamp == null) {
+            root = root.resolve("undated");
+        } else {
+            ZonedDateTime date = Instant.ofEpochMilli(timestamp).atZone(ZoneOffset.UTC);
+            root = root.resolve(String.valueOf(date.getYear())).resolve(String.format("%02d", date.getMonthValue()));
+        }
+        int hash = uuid.hashCode();
+        String bucket = String.format("%02x", (hash ^ (hash >>> 16)) & 0xff);
+        return root.resolve(bucket).resolve(uuid + ".pdf");
+    }
+
+    private Path legacyPath(String uuid) {
+        return Paths.get(location, validate(uuid) + ".pdf");
+    }
+
+    // the uuid comes from the request body, so it must not be able to point outside the store
+    private String validate(String uuid) {
+        if (!CafeUtils.isValidBillUUID(uuid)) {
+            throw new IllegalArgumentException("Invalid invoice uuid: " + uuid);
+        }
+        return uuid;
+    }
+}
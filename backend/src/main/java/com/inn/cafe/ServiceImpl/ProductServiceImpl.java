@@ -3,17 +3,24 @@ package com.inn.cafe.ServiceImpl;
 import com.inn.cafe.Constents.CafeConstants;
 import com.inn.cafe.DAO.CategoryDao;
 import com.inn.cafe.DAO.ProductDao;
+import com.inn.cafe.Events.ChangeType;
+import com.inn.cafe.Events.ProductChangedEvent;
 import com.inn.cafe.JWT.JwtFilter;
 import com.inn.cafe.POJO.Category;
 import com.inn.cafe.POJO.Product;
+import com.inn.cafe.Service.CatalogChangeLog;
+import com.inn.cafe.Service.MenuCatalog;
+import com.inn.cafe.Service.ProductImporter;
 import com.inn.cafe.Service.ProductService;
 import com.inn.cafe.Utils.CafeUtils;
+import com.inn.cafe.Utils.ExcelRowReader;
+import com.inn.cafe.Wrapper.CatalogChanges;
+import com.inn.cafe.Wrapper.ProductImportResult;
+import com.inn.cafe.Wrapper.ProductImportRow;
 import com.inn.cafe.Wrapper.ProductWrapper;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -23,7 +30,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.transaction.Transactional;
-import java.io.InputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -41,14 +51,28 @@ public class ProductServiceImpl implements ProductService {
     @Autowired
     private CategoryDao categoryDao;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MenuCatalog menuCatalog;
+
+    @Autowired
+    private CatalogChangeLog catalogChangeLog;
 
+    @Autowired
+    private ProductImporter productImporter;
+
+
+    @Transactional  // the catalog change log row commits with the change
     @Override
     public ResponseEntity<String> addNewProduct(Map<String, String> requestMap) {
         log.info("Inside addNewProduct{}", requestMap);
         try {
             if (jwtFilter != null && jwtFilter.isAdmin()) {
                 if (validateProductMap(requestMap, false)) {
-                    productDao.save(getProductFromMap(requestMap, false));
+                    Product product = productDao.save(getProductFromMap(requestMap, false));
+                    eventPublisher.publishEvent(new ProductChangedEvent(ChangeType.CREATED, product.getId(), product.getCategory().getId()));
                     return CafeUtils.getResponseEntity("Product Added Successfully.", HttpStatus.OK);
                 }
                 return CafeUtils.getResponseEntity(CafeConstants.INVALID_DATA, HttpStatus.BAD_REQUEST);
@@ -139,9 +163,13 @@ public class ProductServiceImpl implements ProductService {
 
 
     @Override
-    public ResponseEntity<List<ProductWrapper>> getAllProduct() {
+    public ResponseEntity<List<ProductWrapper>> getAllProduct(String ifNoneMatch, String ifModifiedSince) {
         try {
-            return new ResponseEntity<>(productDao.getAllProduct(), HttpStatus.OK);
+            MenuCatalog.Snapshot menu = menuCatalog.current();
+            if (menu.isNotModified(ifNoneMatch, ifModifiedSince)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(menu.headers()).build();
+            }
+            return new ResponseEntity<>(menu.products(), menu.headers(), HttpStatus.OK);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
@@ -149,6 +177,20 @@ public class ProductServiceImpl implements ProductService {
     }
 
 
+    @Override
+    public ResponseEntity<CatalogChanges> getChanges(long since) {
+        try {
+            return new ResponseEntity<>(catalogChangeLog.getChanges(since), HttpStatus.OK);
+        } catch (IllegalArgumentException ex) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+        return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+
+    @Transactional  // the catalog change log row commits with the change
     @Override
     public ResponseEntity<String> updateProduct(Map<String, String> requestMap) {
         try {
@@ -162,7 +204,8 @@ public class ProductServiceImpl implements ProductService {
                     if (!optional.isEmpty()) {
                         /** If everything is correct, saves the updated product in the database
                          after converting the request data into a proper product format using getProductFromMap(). */
-                        productDao.save(getProductFromMap(requestMap, true));
+                        Product product = productDao.save(getProductFromMap(requestMap, true));
+                        eventPublisher.publishEvent(new ProductChangedEvent(ChangeType.UPDATED, product.getId(), product.getCategory().getId()));
                         return CafeUtils.getResponseEntity("Product Updated Successfully", HttpStatus.OK);
                     } else {
                         return CafeUtils.getResponseEntity("Product id doesn't exists", HttpStatus.OK);
@@ -181,13 +224,15 @@ public class ProductServiceImpl implements ProductService {
 
 
 
+    @Transactional  // the catalog change log row commits with the change
     @Override
     public ResponseEntity<String> deleteProduct(Integer id) {
         try {
             if (jwtFilter.isAdmin()) {
-                Optional optional = productDao.findById(id);
+                Optional<Product> optional = productDao.findById(id);
                 if (!optional.isEmpty()) {
                     productDao.deleteById(id);
+                    eventPublisher.publishEvent(new ProductChangedEvent(ChangeType.DELETED, id, optional.get().getCategory().getId()));
                     return CafeUtils.getResponseEntity("Product Deleted Successfully.", HttpStatus.OK);
                 }
                 return CafeUtils.getResponseEntity("Product id does not exist.", HttpStatus.OK);
@@ -212,6 +257,7 @@ public class ProductServiceImpl implements ProductService {
                     if (!optional.isEmpty()) {  // or we can also use if (optional.isPresent()) {
                         // Initialize the updateProductStatus in ProductDao to accept 2 arguments 'status' and 'id' as a parameter and also write query in ProductPOJO class
                         productDao.updateProductStatus(requestMap.get("status"), Integer.parseInt(requestMap.get("id")));
+                        eventPublisher.publishEvent(new ProductChangedEvent(ChangeType.UPDATED, optional.get().getId(), optional.get().getCategory().getId()));
                         return CafeUtils.getResponseEntity("Product Status Updated Successfully", HttpStatus.OK);
                     } else {
                         return CafeUtils.getResponseEntity("Product id doesn't exists", HttpStatus.OK);
@@ -232,7 +278,8 @@ public class ProductServiceImpl implements ProductService {
     public ResponseEntity<List<ProductWrapper>> getByCategory(Integer id) {
         try {
             // Initialize the getProductByCategory in ProductDao to accept and argument 'id' as a parameter and also write query in ProductPOJO class
-            return new ResponseEntity<>(productDao.getProductByCategory(id), HttpStatus.OK);
+            MenuCatalog.Snapshot menu = menuCatalog.current();
+            return new ResponseEntity<>(menu.getByCategory(id), menu.headers(), HttpStatus.OK);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
@@ -244,7 +291,8 @@ public class ProductServiceImpl implements ProductService {
     @Override
     public ResponseEntity<ProductWrapper> getProductById(Integer id) {
         try {
-        return new ResponseEntity<>(productDao.getProductById(id), HttpStatus.OK);
+            MenuCatalog.Snapshot menu = menuCatalog.current();
+            return new ResponseEntity<>(menu.getProductById(id), menu.headers(), HttpStatus.OK);
         } catch (Exception ex) {
             ex.printStackTrace();
         }
@@ -273,87 +321,62 @@ public class ProductServiceImpl implements ProductService {
     // implementation to add the product in category from Excel file
     @Override
     public ResponseEntity<String> processExcelData(MultipartFile file) {
-        try (InputStream inputStream = file.getInputStream()) {
-            Workbook workbook;
-
-            // Detect file format (.xls or .xlsx)
-            if (file.getOriginalFilename().toLowerCase().endsWith(".xls")) {
-                workbook = new HSSFWorkbook(inputStream);
-            } else if (file.getOriginalFilename().toLowerCase().endsWith(".xlsx")) {
-                workbook = new XSSFWorkbook(inputStream);
-            } else {
-                return new ResponseEntity<>("Invalid file format. Please upload .xls or .xlsx", HttpStatus.BAD_REQUEST);
-            }
-
-            Sheet sheet = workbook.getSheetAt(0);
-
-            // Fetch the last inserted product to get the latest ID
-            Product lastProduct = productDao.findTopByOrderByIdDesc();
-            int newProductId = (lastProduct == null) ? 1 : lastProduct.getId() + 1;
-
-            for (Row row : sheet) {
-                if (row.getRowNum() == 0 || isRowEmpty(row)) continue;
-
-                String categoryName = getStringCellValue(row.getCell(0)).trim();  // Trim the category name
-                String productName = getStringCellValue(row.getCell(1));
-                double price = getNumericCellValue(row.getCell(2));
-                String status = getStringCellValue(row.getCell(3));
-
-                // Ensure Category exists by name (not by ID)
-                Category category = categoryDao.findByName(categoryName)
-                        .orElseGet(() -> {
-                            // If category doesn't exist, create a new one
-                            Category newCategory = new Category();
-                            newCategory.setName(categoryName);
-                            return categoryDao.saveAndFlush(newCategory);  // Save the new category to DB
-                        });
-
-                // Check if product already exists with the same name and category
-                Product existingProduct = productDao.findByNameAndCategory_Id(productName, category.getId());
-                if (existingProduct != null) {
-                    System.out.println("⚠️ Product " + productName + " already exists in category " + categoryName + ". Skipping.");
-                    continue;  // Skip if product already exists
-                }
-
-                // Create Product with new dynamic ID from the database
-                Product product = new Product();
-                product.setId(newProductId++);
-                product.setName(productName);
-                product.setPrice((int) price);
-                product.setStatus(status);
-                product.setCategory(category);
-
-                productDao.save(product); // Save into DB
+        String fileName = file.getOriginalFilename() == null ? "" : file.getOriginalFilename().toLowerCase();
+        if (!fileName.endsWith(".xls") && !fileName.endsWith(".xlsx")) {
+            return new ResponseEntity<>("Invalid file format. Please upload .xls or .xlsx", HttpStatus.BAD_REQUEST);
+        }
+        try {
+            // read from a file, the sheet is streamed from the zip entries without loading the workbook
+            Path temp = Files.createTempFile("menu-import-", fileName.substring(fileName.lastIndexOf('.')));
+            try {
+                file.transferTo(temp);
+                importExcelFile(temp.toFile());
+            } finally {
+                Files.deleteIfExists(temp);
             }
-
-            workbook.close(); // Close workbook after processing
-
             return new ResponseEntity<>("File uploaded and processed successfully.", HttpStatus.OK);
         } catch (Exception e) {
             return new ResponseEntity<>("Error processing file: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * Columns: category name, product name, price, status; new categories are created, existing products skipped.
+     * Existing names are prefetched once and the rows inserted in JDBC batches as they are read, see ProductImporter.
+     */
+    public ProductImportResult importExcelFile(File file) throws IOException {
+        ProductImporter.Session session = productImporter.start(true);
+        ExcelRowReader.read(file, (rowNum, cells) -> {
+            if (rowNum == 0 || ExcelRowReader.isEmpty(cells)) return;
+
+            session.add(new ProductImportRow(rowNum, getStringCellValue(cell(cells, 0)), getStringCellValue(cell(cells, 1)),
+                    null, (int) getNumericCellValue(cell(cells, 2)), getStringCellValue(cell(cells, 3))));
+        });
+        return session.finish();
+    }
+
+
+    private static Object cell(List<Object> cells, int index) {
+        return index < cells.size() ? cells.get(index) : null;
+    }
 
     // ✅ Get String value from Excel cell safely
-    private String getStringCellValue(Cell cell) {
-        if (cell == null) return "";
-        if (cell.getCellType() == CellType.STRING) {
-            return cell.getStringCellValue();
-        } else if (cell.getCellType() == CellType.NUMERIC) {
-            return String.valueOf((int) cell.getNumericCellValue()); // Convert number to String
+    private String getStringCellValue(Object cell) {
+        if (cell instanceof String text) {
+            return text;
+        } else if (cell instanceof Double number) {
+            return String.valueOf(number.intValue()); // Convert number to String
         }
         return "";
     }
 
     // ✅ Get Numeric value from Excel cell safely
-    private double getNumericCellValue(Cell cell) {
-        if (cell == null) return 0.0;
-        if (cell.getCellType() == CellType.NUMERIC) {
-            return cell.getNumericCellValue();
-        } else if (cell.getCellType() == CellType.STRING) {
+    private double getNumericCellValue(Object cell) {
+        if (cell instanceof Double number) {
+            return number;
+        } else if (cell instanceof String text) {
             try {
-                return Double.parseDouble(cell.getStringCellValue().trim()); // Convert String to double
+                return Double.parseDouble(text.trim()); // Convert String to double
             } catch (NumberFormatException e) {
                 return 0.0; // Default to 0 if conversion fails
             }
@@ -361,18 +384,6 @@ public class ProductServiceImpl implements ProductService {
         return 0.0;
     }
 
-    // ✅ Check if a row is empty
-    private boolean isRowEmpty(Row row) {
-        if (row == null) return true;
-        for (int i = 0; i < row.getLastCellNum(); i++) {
-            Cell cell = row.getCell(i);
-            if (cell != null && cell.getCellType() != CellType.BLANK) {
-                return false; // Row is not empty
-            }
-        }
-        return true; // Row is empty
-    }
-
 
 
 // Pagination implementation
@@ -0,0 +1,85 @@
+package com.inn.cafe.Utils;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Generates the bill uuids ("BILL-" + 19 digits), Snowflake style.
+ *
+ * The 63 bit id is made of the milliseconds since EPOCH (41 bits, enough until 2093), the node id of this instance
+ * (10 bits, set with cafe.bill.node-id, different on every instance of the application) and a sequence number
+ * within the millisecond (12 bits, 4096 ids per millisecond). Ids of one node are strictly increasing, ids of
+ * different nodes can't collide, and sorting the uuids as strings sorts the bills by creation time.
+ *
+ * The last timestamp and sequence are kept together in one AtomicLong and updated with compareAndSet, so no lock is
+ * taken. When the sequence of a millisecond is used up, or the system clock goes back, the generator keeps counting
+ * on from the last id it handed out (running slightly ahead of the clock) instead of reusing a sequence number.
+ */
+@Component
+public class BillIdGenerator {
+
+    public static final String PREFIX = "BILL-";
+
+    /** 2024-01-01T00:00:00Z */
+    public static final long EPOCH = 1704067200000L;
+
+    static final int NODE_BITS = 10;
+
+    static final int SEQUENCE_BITS = 12;
+
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    @Value("${cafe.bill.node-id:0}")
+    private int nodeId;
+
+    private LongSupplier clock = System::currentTimeMillis;
+
+    /** (milliseconds since EPOCH << SEQUENCE_BITS) | sequence of the last id handed out */
+    private final AtomicLong lastState = new AtomicLong();
+
+
+    @PostConstruct
+    public void init() {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalStateException("cafe.bill.node-id must be between 0 and " + MAX_NODE_ID + " but is " + nodeId);
+        }
+    }
+
+
+    public long nextId() {
+        while (true) {
+            long last = lastState.get();
+            long now = clock.getAsLong() - EPOCH;
+            // a new millisecond starts again at sequence 0, otherwise count on from the last id (an overflowing
+            // sequence carries into the timestamp bits, which moves the id to the next millisecond)
+            long next = now > (last >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : last + 1;
+            if (lastState.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | ((long) nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+
+    public String nextUUID() {
+        return toUUID(nextId());
+    }
+
+
+    // zero padded, so uuids always have the same length and their string order is the id order
+    public static String toUUID(long id) {
+        return PREFIX + String.format("%019d", id);
+    }
+
+
+    /** The creation time (epoch millis) of an id made by this generator. */
+    public static long getTimestamp(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH;
+    }
+}
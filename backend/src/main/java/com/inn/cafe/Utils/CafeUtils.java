@@ -6,6 +6,7 @@ import com.google.gson.reflect.TypeToken;
 import lombok.extern.slf4j.Slf4j;
 import org.json.JSONArray;
 import org.json.JSONException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -34,12 +35,82 @@ public class CafeUtils {
 
     }
 
+    // single node only: two bills in the same millisecond get the same uuid, new bills get theirs from BillIdGenerator
     public static String getUUID() {
         Date date = new Date();
         long time = date.getTime();
         return "BILL-" + time;
     }
 
+    /**
+     * Returns the creation time (epoch millis) encoded in a bill uuid, or null if the uuid does not contain one.
+     * Used to shard the invoice store by date.
+     * Uuids of BillIdGenerator have 19 digits, older uuids made by getUUID are "BILL-" + epoch millis (13 digits).
+     */
+    public static Long getTimestampFromUUID(String uuid) {
+        if (uuid == null) {
+            return null;
+        }
+        if (uuid.matches("BILL-\\d{19}")) {
+            try {
+                return BillIdGenerator.getTimestamp(Long.parseLong(uuid.substring(BillIdGenerator.PREFIX.length())));
+            } catch (NumberFormatException ex) {
+                return null;  // larger than any id
+            }
+        }
+        if (uuid.matches("BILL-\\d{1,18}")) {
+            return Long.parseLong(uuid.substring("BILL-".length()));
+        }
+        return null;
+    }
+
+    // bill uuids are used as file names and ETags, so only letters, digits, '-' and '_' are allowed
+    public static boolean isValidBillUUID(String uuid) {
+        return uuid != null && uuid.matches("[A-Za-z0-9_-]+");
+    }
+
+    /**
+     * Checks an If-None-Match request header against the current ETag of a resource (weak comparison, RFC 7232).
+     * @return true if the client already has the current version and a 304 can be returned.
+     */
+    public static boolean isETagMatch(String ifNoneMatch, String eTag) {
+        if (Strings.isNullOrEmpty(ifNoneMatch)) {
+            return false;
+        }
+        String current = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*")) {
+                return true;
+            }
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evaluates the conditional headers of a GET (RFC 7232): If-None-Match against the ETag, or if there is none,
+     * If-Modified-Since against the last modification, to the second like HTTP dates.
+     * @return true if the client already has the current version and a 304 can be returned.
+     */
+    public static boolean isNotModified(String ifNoneMatch, String ifModifiedSince, String eTag, long lastModified) {
+        if (!Strings.isNullOrEmpty(ifNoneMatch)) {
+            return isETagMatch(ifNoneMatch, eTag);
+        }
+        if (Strings.isNullOrEmpty(ifModifiedSince)) {
+            return false;
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.IF_MODIFIED_SINCE, ifModifiedSince);
+        long since = headers.getIfModifiedSince();  // -1 if not a date
+        return since >= 0 && lastModified / 1000 * 1000 <= since;
+    }
+
     // method to convert the String into JSON Array
     public static JSONArray getJsonArrayFromString(String data) throws JSONException {
         JSONArray jsonArray = new JSONArray(data);
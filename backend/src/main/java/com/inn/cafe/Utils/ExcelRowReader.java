@@ -0,0 +1,355 @@
+package com.inn.cafe.Utils;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+
+/**
+ * Reads the first sheet of an Excel file row by row, for imports of files too large to load as a workbook.
+ *
+ * An .xlsx sheet is parsed with SAX straight from the zip file, one row in memory at a time. Its shared strings table
+ * (every distinct text of the file, once; a file of unique product names has about as many as rows) is copied to a
+ * temporary file and read from there through a memory mapping, leaving 4 bytes per string on the heap instead of the
+ * strings of POI's ReadOnlySharedStringsTable. So the heap needed hardly grows with the size of the file. An .xls file
+ * is loaded with HSSFWorkbook, its format is limited to 65536 rows.
+ *
+ * Cell values are String, Double (numbers, also dates as Excel serial numbers), Boolean or null (blank or error);
+ * formula cells have their cached result. The cells of a row are indexed by column, missing cells are null.
+ */
+public class ExcelRowReader {
+
+    /**
+     * Called for every row of the sheet which has cells, rowNum counts from 0 like Row.getRowNum. The list is reused
+     * for the next row.
+     */
+    public interface RowHandler {
+        void row(int rowNum, List<Object> cells);
+
+        /**
+         * Called before the first row with the number of rows of the sheet (last row number + 1), if the file states
+         * it: .xlsx files have it in their dimension element, which Excel and POI write but other tools may not.
+         */
+        default void sheetSize(int rows) {
+        }
+    }
+
+    private ExcelRowReader() {
+    }
+
+    /**
+     * @throws IOException if the file cannot be read or is neither an .xlsx nor an .xls file.
+     */
+    public static void read(File file, RowHandler handler) throws IOException {
+        FileMagic magic = FileMagic.valueOf(file);
+        if (magic == FileMagic.OOXML) {
+            readXlsx(file, handler);
+        } else if (magic == FileMagic.OLE2) {
+            readXls(file, handler);
+        } else {
+            throw new IOException("Not an Excel file");
+        }
+    }
+
+    /** True if no cell has a value, or only blank text. */
+    public static boolean isEmpty(List<Object> cells) {
+        for (Object cell : cells) {
+            if (cell != null && !(cell instanceof String text && text.isBlank())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static void readXlsx(File file, RowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ); SharedStrings strings = new SharedStrings()) {
+            for (PackagePart part : pkg.getPartsByContentType(XSSFRelation.SHARED_STRINGS.getContentType())) {
+                try (InputStream in = part.getInputStream()) {
+                    strings.read(in);
+                }
+            }
+            strings.map();
+
+            XSSFReader reader = new XSSFReader(pkg);
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new SheetHandler(strings, handler));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException ex) {
+            throw new IOException("Invalid .xlsx file: " + ex.getMessage(), ex);
+        }
+    }
+
+    private static void readXls(File file, RowHandler handler) throws IOException {
+        try (Workbook workbook = WorkbookFactory.create(file, null, true)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            handler.sheetSize(sheet.getLastRowNum() + 1);
+            for (Row row : sheet) {
+                List<Object> cells = new ArrayList<>();
+                for (Cell cell : row) {
+                    while (cells.size() < cell.getColumnIndex()) {
+                        cells.add(null);
+                    }
+                    CellType type = cell.getCellType() == CellType.FORMULA ? cell.getCachedFormulaResultType() : cell.getCellType();
+                    cells.add(switch (type) {
+                        case STRING -> cell.getStringCellValue();
+                        case NUMERIC -> cell.getNumericCellValue();
+                        case BOOLEAN -> cell.getBooleanCellValue();
+                        default -> null;
+                    });
+                }
+                handler.row(row.getRowNum(), cells);
+            }
+        }
+    }
+
+
+    /**
+     * The strings of the sharedStrings.xml part: {@code <sst><si><t>text</t></si><si><r><t>rich </t></r><r><t>text</t></r>
+     * <rPh><t>phonetic, left out</t></rPh></si>...</sst>}, UTF-8 encoded one after another in a temporary file.
+     */
+    private static class SharedStrings extends DefaultHandler implements Closeable {
+
+        private final Path file;
+
+        private final OutputStream out;
+
+        private int[] offsets = new int[1024];  // start of string i, offsets[count] is the end of the last one
+
+        private int count;
+
+        private final StringBuilder text = new StringBuilder();
+
+        private boolean inText;
+
+        private boolean inPhonetic;
+
+        private MappedByteBuffer strings;
+
+        SharedStrings() throws IOException {
+            file = Files.createTempFile("shared-strings-", ".tmp");
+            out = new BufferedOutputStream(Files.newOutputStream(file));
+        }
+
+        void read(InputStream in) throws IOException, SAXException, ParserConfigurationException {
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(this);
+            parser.parse(new InputSource(in));
+        }
+
+        void map() throws IOException {
+            out.close();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                strings = channel.map(FileChannel.MapMode.READ_ONLY, 0, offsets[count]);
+            }
+        }
+
+        String get(int index) {
+            if (index < 0 || index >= count) {
+                throw new IllegalArgumentException("No shared string " + index + ", the file has " + count);
+            }
+            byte[] bytes = new byte[offsets[index + 1] - offsets[index]];
+            strings.get(offsets[index], bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "si" -> text.setLength(0);
+                case "t" -> inText = !inPhonetic;
+                case "rPh" -> inPhonetic = true;
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "t" -> inText = false;
+                case "rPh" -> inPhonetic = false;
+                case "si" -> add(text.toString());
+                default -> {
+                }
+            }
+        }
+
+        private void add(String string) throws SAXException {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            if ((long) offsets[count] + bytes.length > Integer.MAX_VALUE) {
+                throw new SAXException("Shared strings of more than 2 GB");
+            }
+            try {
+                out.write(bytes);
+            } catch (IOException ex) {
+                throw new SAXException(ex);
+            }
+            if (count + 1 == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[count + 1] = offsets[count] + bytes.length;
+            count++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+            strings = null;
+            Files.deleteIfExists(file);
+        }
+    }
+
+
+    /**
+     * The cells of the sheet XML: {@code <dimension ref="A1:D20"/>...<row r="1"><c r="A1" t="s"><v>0</v></c>...</row>}.
+     */
+    private static class SheetHandler extends DefaultHandler {
+
+        private final SharedStrings strings;
+
+        private final RowHandler handler;
+
+        private final List<Object> cells = new ArrayList<>();
+
+        private final StringBuilder text = new StringBuilder();
+
+        private int rowNum = -1;
+
+        private int column;
+
+        private String type;
+
+        private boolean inValue;  // in <v>, or in <t> of an inline string
+
+        private boolean inInlineString;
+
+        SheetHandler(SharedStrings strings, RowHandler handler) {
+            this.strings = strings;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row" -> {
+                    String r = attributes.getValue("r");
+                    rowNum = r != null ? Integer.parseInt(r) - 1 : rowNum + 1;
+                    cells.clear();
+                }
+                case "c" -> {
+                    String r = attributes.getValue("r");
+                    column = r != null ? columnIndex(r) : cells.size();
+                    type = attributes.getValue("t");
+                    text.setLength(0);
+                }
+                case "dimension" -> {
+                    String ref = attributes.getValue("ref");
+                    if (ref != null) {
+                        handler.sheetSize(rowNumber(ref.substring(ref.indexOf(':') + 1)));
+                    }
+                }
+                case "v" -> inValue = true;
+                case "is" -> inInlineString = true;
+                case "t" -> inValue = inInlineString;
+                default -> {
+                }
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inValue) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            switch (localName) {
+                case "v", "t" -> inValue = false;
+                case "is" -> inInlineString = false;
+                case "c" -> {
+                    while (cells.size() <= column) {
+                        cells.add(null);
+                    }
+                    cells.set(column, value());
+                }
+                case "row" -> handler.row(rowNum, cells);
+                default -> {
+                }
+            }
+        }
+
+        private Object value() {
+            String value = text.toString();
+            if (value.isEmpty()) {
+                return null;
+            }
+            if (type == null || type.equals("n")) {
+                return Double.valueOf(value);
+            }
+            return switch (type) {
+                case "s" -> strings.get(Integer.parseInt(value));
+                case "inlineStr", "str" -> value;
+                case "b" -> value.equals("1");
+                default -> null;  // "e", an error
+            };
+        }
+
+        /** Of a cell reference like "AB12": 12, 0 if it has none. */
+        private static int rowNumber(String reference) {
+            int i = 0;
+            while (i < reference.length() && Character.isLetter(reference.charAt(i))) {
+                i++;
+            }
+            return i < reference.length() ? Integer.parseInt(reference.substring(i)) : 0;
+        }
+
+        /** Of a cell reference like "AB12": 27. */
+        private static int columnIndex(String reference) {
+            int index = 0;
+            for (int i = 0; i < reference.length() && Character.isLetter(reference.charAt(i)); i++) {
+                index = index * 26 + reference.charAt(i) - 'A' + 1;
+            }
+            return index - 1;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.inn.cafe.Utils;
+
+import com.itextpdf.text.*;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+import com.inn.cafe.Wrapper.LineItem;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Layout of the invoice PDF.
+ *
+ * Everything that is the same on every invoice (fonts, the page border, the five table header cells) is built once
+ * when the template is created, only the customer block and the line item rows are added per bill.
+ *
+ * One template can be used by many threads at the same time: the prebuilt parts are never modified after the
+ * constructor, and PdfPTable.addCell(PdfPCell) adds a copy of the header cell, not the cell itself.
+ */
+public class InvoiceTemplate {
+
+    private static final String[] COLUMN_TITLES = {"Name", "Category", "Quantity", "Price", "Sub Total"};
+
+    private final Font headerFont;
+
+    private final Font dataFont;
+
+    private final Rectangle border;
+
+    private final PdfPCell[] headerCells;
+
+
+    public InvoiceTemplate() {
+        headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLDOBLIQUE, 18, BaseColor.BLACK);
+        headerFont.setStyle(Font.BOLD);
+        dataFont = FontFactory.getFont(FontFactory.TIMES_ROMAN, 11, BaseColor.BLACK);
+        dataFont.setStyle(Font.BOLD);
+
+        border = new Rectangle(577, 825, 18, 15);
+        border.enableBorderSide(1);
+        border.enableBorderSide(2);
+        border.enableBorderSide(4);
+        border.enableBorderSide(8);
+        border.setBackgroundColor(new BaseColor(230, 230, 230)); // Light gray
+        border.setBorderWidth(1);
+
+        headerCells = new PdfPCell[COLUMN_TITLES.length];
+        for (int i = 0; i < COLUMN_TITLES.length; i++) {
+            PdfPCell header = new PdfPCell();
+            header.setPhrase(new Phrase(COLUMN_TITLES[i]));
+            header.setBorderWidth(2);
+            header.setBackgroundColor(BaseColor.YELLOW);
+            header.setHorizontalAlignment(Element.ALIGN_CENTER);
+            header.setVerticalAlignment(Element.ALIGN_CENTER);
+            headerCells[i] = header;
+        }
+    }
+
+
+    /**
+     * Writes the invoice of one bill.
+     * @param requestMap The bill data (name, contact, email, paymentMethod, productDetails, totalAmount).
+     * @throws IllegalArgumentException if productDetails is not valid line item JSON.
+     */
+    public void write(OutputStream out, Map<String, Object> requestMap) throws DocumentException {
+        String data = "Name: " + requestMap.get("name") + "\n" + "Contact Number: " + requestMap.get("contact") +
+                "\n" + "Email: " + requestMap.get("email") + "\n" + "Payment Method: " + requestMap.get("paymentMethod");
+
+        // productDetails is in the object so, we need to typecast to the String
+        // parsed before anything is written, so invalid JSON does not leave a half written PDF behind
+        List<LineItem> items = LineItemParser.parse((String) requestMap.get("productDetails"));
+
+        Document document = new Document();
+        PdfWriter.getInstance(document, out);
+        document.open();
+        document.add(border);
+
+        Paragraph title = new Paragraph("Cafe Management System", headerFont);
+        title.setAlignment(Element.ALIGN_CENTER);
+        document.add(title);
+
+        document.add(new Paragraph(data + "\n \n", dataFont));
+
+        PdfPTable table = new PdfPTable(COLUMN_TITLES.length);
+        table.setWidthPercentage(100);
+        for (PdfPCell header : headerCells) {
+            table.addCell(header);
+        }
+
+        for (LineItem item : items) {
+            addRow(table, item);
+        }
+        document.add(table);
+
+        document.add(new Paragraph("Total : " + requestMap.get("totalAmount") + "\n"
+                + "Thank you for visiting. Please visit again!", dataFont));
+        document.close();
+    }
+
+
+    private void addRow(PdfPTable table, LineItem item) {
+        table.addCell(item.name());
+        table.addCell(item.category());
+        table.addCell(Integer.toString(item.quantity()));
+        table.addCell(Double.toString(item.price()));
+        table.addCell(Double.toString(item.total()));
+    }
+}
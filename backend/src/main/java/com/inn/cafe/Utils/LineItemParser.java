@@ -0,0 +1,100 @@
+package com.inn.cafe.Utils;
+
+import com.google.common.base.Strings;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.inn.cafe.Wrapper.LineItem;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Reads the productDetails JSON of a bill into LineItems in one pass with a streaming JsonReader, without building a
+ * JSONArray, a Map per line or boxed numbers on the way. Used wherever the line items of a bill are needed (invoice
+ * PDF, bill_item rows).
+ *
+ * Numbers may also be sent as strings ("2"), as some clients do. Unknown keys are skipped.
+ */
+public class LineItemParser {
+
+    private LineItemParser() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if productDetails is not a JSON array of objects.
+     */
+    public static List<LineItem> parse(String productDetails) {
+        if (Strings.isNullOrEmpty(productDetails)) {
+            return new ArrayList<>();
+        }
+        try (JsonReader reader = new JsonReader(new StringReader(productDetails))) {
+            List<LineItem> items = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                items.add(readItem(reader));
+            }
+            reader.endArray();
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new IllegalArgumentException("Unexpected content after the productDetails array");
+            }
+            return items;
+        } catch (IOException | IllegalStateException | NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid productDetails: " + ex.getMessage(), ex);
+        }
+    }
+
+
+    private static LineItem readItem(JsonReader reader) throws IOException {
+        Integer productId = null;
+        String name = null;
+        String category = null;
+        int quantity = 0;
+        double price = 0;
+        double total = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id":
+                    productId = isNull(reader) ? null : (int) reader.nextDouble();
+                    break;
+                case "name":
+                    name = nextString(reader);
+                    break;
+                case "category":
+                    category = nextString(reader);
+                    break;
+                case "quantity":
+                    quantity = isNull(reader) ? 0 : (int) reader.nextDouble();
+                    break;
+                case "price":
+                    price = isNull(reader) ? 0 : reader.nextDouble();
+                    break;
+                case "total":
+                    total = isNull(reader) ? 0 : reader.nextDouble();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new LineItem(productId, name, category, quantity, price, total);
+    }
+
+
+    // consumes a JSON null; nextDouble() already accepts numbers written as strings
+    private static boolean isNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    private static String nextString(JsonReader reader) throws IOException {
+        return isNull(reader) ? null : reader.nextString();
+    }
+}
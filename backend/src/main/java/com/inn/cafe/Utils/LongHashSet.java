@@ -0,0 +1,83 @@
+package com.inn.cafe.Utils;
+
+
+/**
+ * Set of long values in one open addressing array, 16 to 32 bytes per value instead of the 50 or so of a boxed Long in
+ * a HashSet. Used for hashes of names when there can be millions of them.
+ *
+ * Not thread safe.
+ */
+public class LongHashSet {
+
+    private static final long EMPTY = 0;  // the value 0 is tracked in hasZero, so 0 marks a free slot
+
+    private long[] slots = new long[64];
+
+    private boolean hasZero;
+
+    private int size;
+
+
+    /** @return true if the value was not in the set yet. */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            boolean added = !hasZero;
+            hasZero = true;
+            size += added ? 1 : 0;
+            return added;
+        }
+        int mask = slots.length - 1;
+        for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+            if (slots[i] == value) {
+                return false;
+            }
+            if (slots[i] == EMPTY) {
+                slots[i] = value;
+                if (++size > slots.length / 2) {
+                    grow();
+                }
+                return true;
+            }
+        }
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return hasZero;
+        }
+        int mask = slots.length - 1;
+        for (int i = mix(value) & mask; ; i = (i + 1) & mask) {
+            if (slots[i] == value) {
+                return true;
+            }
+            if (slots[i] == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+
+    private void grow() {
+        long[] old = slots;
+        slots = new long[old.length * 2];
+        int mask = slots.length - 1;
+        for (long value : old) {
+            if (value != EMPTY) {
+                int i = mix(value) & mask;
+                while (slots[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = value;
+            }
+        }
+    }
+
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;  // values may be ids as well as hashes, spread them over the table
+        return (int) (h ^ (h >>> 32));
+    }
+}
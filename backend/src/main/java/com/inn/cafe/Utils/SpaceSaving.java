@@ -0,0 +1,122 @@
+package com.inn.cafe.Utils;
+
+import java.util.*;
+
+
+/**
+ * Space-Saving heavy hitter sketch (Metwally, Agrawal, El Abbadi): the approximate top keys of a stream of weighted
+ * keys in a fixed number of counters.
+ *
+ * A tracked key counts exactly from the moment it got its counter. A new key, when all counters are taken, replaces
+ * the key with the lowest count and inherits that count as its possible overestimate (error). Every key whose true
+ * count is above total / capacity is guaranteed to be tracked, and count - error <= true count <= count.
+ *
+ * Not thread safe.
+ */
+public class SpaceSaving<K> {
+
+    /** A tracked key: its estimated count and by how much that may be too high. */
+    public record Counter<K>(K key, long count, long error) {
+    }
+
+    private final int capacity;
+
+    private final Map<K, long[]> counters;  // key -> {count, error}
+
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1 but is " + capacity);
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+
+    public void offer(K key, long weight) {
+        long[] counter = counters.get(key);
+        if (counter != null) {
+            counter[0] += weight;
+        } else if (counters.size() < capacity) {
+            counters.put(key, new long[]{weight, 0});
+        } else {
+            // O(capacity), only when an untracked key arrives and the sketch is full
+            K minKey = null;
+            long[] min = null;
+            for (Map.Entry<K, long[]> entry : counters.entrySet()) {
+                if (min == null || entry.getValue()[0] < min[0]) {
+                    minKey = entry.getKey();
+                    min = entry.getValue();
+                }
+            }
+            counters.remove(minKey);
+            counters.put(key, new long[]{min[0] + weight, min[0]});
+        }
+    }
+
+    /** Takes back weight offered before, e.g. for a deleted bill. Untracked keys are ignored. */
+    public void retract(K key, long weight) {
+        long[] counter = counters.get(key);
+        if (counter != null) {
+            counter[0] = Math.max(0, counter[0] - weight);
+            counter[1] = Math.min(counter[1], counter[0]);
+        }
+    }
+
+
+    /** The k keys with the highest counts, highest first. */
+    public List<Counter<K>> top(int k) {
+        return counters().stream()
+                .sorted(Comparator.comparingLong((Counter<K> counter) -> counter.count()).reversed())
+                .limit(k)
+                .toList();
+    }
+
+    public List<Counter<K>> counters() {
+        List<Counter<K>> list = new ArrayList<>(counters.size());
+        counters.forEach((key, counter) -> list.add(new Counter<>(key, counter[0], counter[1])));
+        return list;
+    }
+
+
+    /** Restores a counter saved from counters(), for loading a checkpoint. */
+    public void restore(Counter<K> counter) {
+        if (counters.size() < capacity) {
+            counters.put(counter.key(), new long[]{counter.count(), counter.error()});
+        }
+    }
+
+
+    /**
+     * Sketch of the union of the streams of the given sketches, e.g. the days of a week. A key missing from a full
+     * sketch may have been evicted there with up to the lowest count of that sketch, so that much is added to its
+     * count and error, which keeps the bounds of the single sketches.
+     */
+    public static <K> SpaceSaving<K> merge(Collection<SpaceSaving<K>> sketches, int capacity) {
+        // one pass over all counters: every key first gets the minimum of every full sketch, a sketch which has
+        // the key replaces its minimum by the real counter
+        Map<K, long[]> sum = new HashMap<>();
+        long minSum = 0;
+        for (SpaceSaving<K> sketch : sketches) {
+            long min = sketch.counters.size() < sketch.capacity ? 0  // not full, nothing was evicted
+                    : sketch.counters.values().stream().mapToLong(counter -> counter[0]).min().orElse(0);
+            minSum += min;
+            sketch.counters.forEach((key, counter) -> {
+                long[] total = sum.computeIfAbsent(key, k -> new long[2]);
+                total[0] += counter[0] - min;
+                total[1] += counter[1] - min;
+            });
+        }
+        for (long[] total : sum.values()) {
+            total[0] += minSum;
+            total[1] += minSum;
+        }
+
+        SpaceSaving<K> merged = new SpaceSaving<>(capacity);
+        sum.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<K, long[]> entry) -> entry.getValue()[0]).reversed())
+                .limit(capacity)
+                .forEach(entry -> merged.counters.put(entry.getKey(), entry.getValue()));
+        return merged;
+    }
+}
@@ -0,0 +1,28 @@
+package com.inn.cafe.Wrapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row of the bill list (/bill/getBills): the bill without its productDetails JSON, which is only loaded when one bill
+ * is opened (/bill/get/{id}).
+ * The order of the constructor arguments must match the Bill.getBillPage query.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillWrapper {
+
+    private Integer id;
+    private String uuid;
+    private String name;
+    private String email;
+    private String contactNumber;
+    private String paymentMethod;
+    private Integer total;
+    private String createdBy;
+    private LocalDateTime createdDate;
+}
@@ -0,0 +1,9 @@
+package com.inn.cafe.Wrapper;
+
+import com.inn.cafe.Events.ChangeType;
+
+/**
+ * One row of the catalog change log: the catalog version it created and what changed.
+ */
+public record CatalogChangeEntry(long version, String entity, Integer entityId, ChangeType type) {
+}
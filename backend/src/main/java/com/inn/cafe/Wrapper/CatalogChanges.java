@@ -0,0 +1,18 @@
+package com.inn.cafe.Wrapper;
+
+import com.inn.cafe.POJO.Category;
+
+import java.util.List;
+
+/**
+ * Response of /product/changes: the catalog version the client is at after applying it, and the current state of
+ * every product and category changed since the version it asked for. When resync is true the changes are not
+ * available any more and the client must load the whole menu (/product/get, /category/get) again.
+ */
+public record CatalogChanges(long version,
+                             boolean resync,
+                             List<ProductWrapper> products,
+                             List<Integer> deletedProducts,
+                             List<Category> categories,
+                             List<Integer> deletedCategories) {
+}
@@ -0,0 +1,8 @@
+package com.inn.cafe.Wrapper;
+
+/**
+ * One change pushed to the dashboard stream: the entity ("category", "product" or "bill"), by how much its count
+ * changed and, for bills, by how much the revenue changed.
+ */
+public record DashBoardDelta(String entity, long count, long revenue) {
+}
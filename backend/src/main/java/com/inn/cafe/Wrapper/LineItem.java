@@ -0,0 +1,10 @@
+package com.inn.cafe.Wrapper;
+
+/**
+ * One line of the productDetails JSON of a bill, e.g.
+ * {"id": 1, "name": "Coffee", "category": "Drinks", "quantity": 2, "price": 100.0, "total": 200.0}
+ *
+ * @param productId id of the product, null if the line has none
+ */
+public record LineItem(Integer productId, String name, String category, int quantity, double price, double total) {
+}
@@ -0,0 +1,30 @@
+package com.inn.cafe.Wrapper;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response of /product/uploadExcel and /product/importJobs/{id}: the state of a background menu import.
+ *
+ * rowsRead counts the data rows read so far and rowsPerSecond is rowsRead over the time the job has been running.
+ * totalRows and progressPercent are null when the file does not state its size. imported, categoriesCreated and
+ * skipped grow while the job runs; the skipped rows and why are in /product/importJobs/{id}/errors.
+ */
+public record ProductImportJobStatus(String id,
+                                     State state,
+                                     String fileName,
+                                     LocalDateTime submittedAt,
+                                     LocalDateTime startedAt,
+                                     LocalDateTime finishedAt,
+                                     long rowsRead,
+                                     Integer totalRows,
+                                     Double progressPercent,
+                                     double rowsPerSecond,
+                                     int imported,
+                                     int categoriesCreated,
+                                     int skipped,
+                                     String error) {
+
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED
+    }
+}
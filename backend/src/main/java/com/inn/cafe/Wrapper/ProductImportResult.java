@@ -0,0 +1,8 @@
+package com.inn.cafe.Wrapper;
+
+/**
+ * Outcome of a menu import: the products and categories created and the rows skipped (invalid, unknown category or
+ * product already on the menu).
+ */
+public record ProductImportResult(int imported, int categoriesCreated, int skipped) {
+}
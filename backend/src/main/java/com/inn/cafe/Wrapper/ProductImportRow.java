@@ -0,0 +1,7 @@
+package com.inn.cafe.Wrapper;
+
+/**
+ * One product row of an uploaded menu file, as read from the file (rowNum is the row number in the sheet).
+ */
+public record ProductImportRow(int rowNum, String categoryName, String name, String description, Integer price, String status) {
+}
@@ -0,0 +1,9 @@
+package com.inn.cafe.Wrapper;
+
+import java.time.LocalDateTime;
+
+/**
+ * One bucket of the revenue time series: its start, the number of bills and their revenue.
+ */
+public record RevenuePoint(LocalDateTime bucketStart, long billCount, long revenue) {
+}
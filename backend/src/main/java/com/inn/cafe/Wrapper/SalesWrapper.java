@@ -0,0 +1,18 @@
+package com.inn.cafe.Wrapper;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of a sales report: the day, user or payment method the sales are grouped by, with its bills and revenue.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesWrapper {
+
+    private String key;
+    private long billCount;
+    private long revenue;
+}
@@ -0,0 +1,7 @@
+package com.inn.cafe.Wrapper;
+
+/**
+ * One product of the top selling products: the quantity sold in the window, which may be overestimated by up to error.
+ */
+public record TopProductWrapper(Integer productId, String name, long quantity, long error) {
+}
@@ -0,0 +1,44 @@
+package com.inn.cafe.Benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Generated bills shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    /** productDetails JSON of a bill with the given number of line items, in the format sent by the POS. */
+    static String productDetails(int items) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            int quantity = 1 + i % 4;
+            double price = 40.0 + i;
+            json.append("{\"id\":").append(i + 1)
+                    .append(",\"name\":\"Product ").append(i + 1)
+                    .append("\",\"category\":\"Category ").append(i % 6)
+                    .append("\",\"quantity\":").append(quantity)
+                    .append(",\"price\":").append(price)
+                    .append(",\"total\":").append(price * quantity)
+                    .append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    static Map<String, Object> bill(int items) {
+        Map<String, Object> bill = new HashMap<>();
+        bill.put("name", "John Doe");
+        bill.put("contact", "9999999999");
+        bill.put("email", "john@example.com");
+        bill.put("paymentMethod", "Cash");
+        bill.put("totalAmount", "1234");
+        bill.put("productDetails", productDetails(items));
+        return bill;
+    }
+}
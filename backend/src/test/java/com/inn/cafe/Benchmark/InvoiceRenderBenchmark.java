@@ -0,0 +1,134 @@
+package com.inn.cafe.Benchmark;
+
+import com.inn.cafe.Utils.CafeUtils;
+import com.inn.cafe.Utils.InvoiceTemplate;
+import com.itextpdf.text.*;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+import org.json.JSONArray;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Invoices rendered per second with the old per-bill layout code (fonts, border and header cells built for every
+ * bill) and with the shared InvoiceTemplate.
+ *
+ * Run with:
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.inn.cafe.Benchmark.InvoiceRenderBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InvoiceRenderBenchmark {
+
+    @Param({"5", "50"})
+    int items;
+
+    private Map<String, Object> bill;
+
+    private InvoiceTemplate template;
+
+    @Setup
+    public void setUp() {
+        template = new InvoiceTemplate();
+        bill = BenchmarkData.bill(items);
+    }
+
+    @Benchmark
+    public void perBillLayout() throws Exception {
+        LegacyLayout.write(OutputStream.nullOutputStream(), bill);
+    }
+
+    @Benchmark
+    public void sharedTemplate() throws Exception {
+        template.write(OutputStream.nullOutputStream(), bill);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(InvoiceRenderBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+
+
+    /** The layout code as it was in BillServiceImpl before InvoiceTemplate (minus its INFO logging). */
+    static class LegacyLayout {
+
+        static void write(OutputStream out, Map<String, Object> requestMap) throws Exception {
+            String data = "Name: " + requestMap.get("name") + "\n" + "Contact Number: " + requestMap.get("contact") +
+                    "\n" + "Email: " + requestMap.get("email") + "\n" + "Payment Method: " + requestMap.get("paymentMethod");
+            Document document = new Document();
+            PdfWriter.getInstance(document, out);
+            document.open();
+            Rectangle rectangle = new Rectangle(577, 825, 18, 15);
+            rectangle.enableBorderSide(1);
+            rectangle.enableBorderSide(2);
+            rectangle.enableBorderSide(4);
+            rectangle.enableBorderSide(8);
+            rectangle.setBackgroundColor(new BaseColor(230, 230, 230));
+            rectangle.setBorderWidth(1);
+            document.add(rectangle);
+
+            Paragraph chunk = new Paragraph("Cafe Management System", getFont("Header"));
+            chunk.setAlignment(Element.ALIGN_CENTER);
+            document.add(chunk);
+            document.add(new Paragraph(data + "\n \n", getFont("Data")));
+
+            PdfPTable table = new PdfPTable(5);
+            table.setWidthPercentage(100);
+            Stream.of("Name", "Category", "Quantity", "Price", "Sub Total").forEach(columnTitle -> {
+                PdfPCell header = new PdfPCell();
+                header.setBackgroundColor(BaseColor.LIGHT_GRAY);
+                header.setBorderWidth(2);
+                header.setPhrase(new Phrase(columnTitle));
+                header.setBackgroundColor(BaseColor.YELLOW);
+                header.setHorizontalAlignment(Element.ALIGN_CENTER);
+                header.setVerticalAlignment(Element.ALIGN_CENTER);
+                table.addCell(header);
+            });
+            JSONArray jsonArray = CafeUtils.getJsonArrayFromString((String) requestMap.get("productDetails"));
+            for (int i = 0; i < jsonArray.length(); i++) {
+                Map<String, Object> row = CafeUtils.getMapFromJson(jsonArray.getString(i));
+                table.addCell((String) row.get("name"));
+                table.addCell((String) row.get("category"));
+                table.addCell(String.valueOf(row.get("quantity")));
+                table.addCell(Double.toString((Double) row.get("price")));
+                table.addCell(Double.toString((Double) row.get("total")));
+            }
+            document.add(table);
+            document.add(new Paragraph("Total : " + requestMap.get("totalAmount") + "\n"
+                    + "Thank you for visiting. Please visit again!", getFont("Data")));
+            document.close();
+        }
+
+        private static Font getFont(String type) {
+            switch (type) {
+                case "Header":
+                    Font headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLDOBLIQUE, 18, BaseColor.BLACK);
+                    headerFont.setStyle(Font.BOLD);
+                    return headerFont;
+                case "Data":
+                    Font dataFont = FontFactory.getFont(FontFactory.TIMES_ROMAN, 11, BaseColor.BLACK);
+                    dataFont.setStyle(Font.BOLD);
+                    return dataFont;
+                default:
+                    return new Font();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.inn.cafe.Benchmark;
+
+import com.inn.cafe.Utils.CafeUtils;
+import com.inn.cafe.Utils.LineItemParser;
+import com.inn.cafe.Wrapper.LineItem;
+import org.json.JSONArray;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing the productDetails of a 50 item bill: JSONArray + CafeUtils.getMapFromJson per line (how line items were
+ * read before LineItemParser) against the streaming LineItemParser.
+ *
+ * Run with:
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.inn.cafe.Benchmark.LineItemParseBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LineItemParseBenchmark {
+
+    @Param({"50"})
+    int items;
+
+    private String productDetails;
+
+    @Setup
+    public void setUp() {
+        productDetails = BenchmarkData.productDetails(items);
+    }
+
+    @Benchmark
+    public void jsonArrayAndGsonMaps(Blackhole blackhole) throws Exception {
+        JSONArray jsonArray = CafeUtils.getJsonArrayFromString(productDetails);
+        for (int i = 0; i < jsonArray.length(); i++) {
+            Map<String, Object> row = CafeUtils.getMapFromJson(jsonArray.getString(i));
+            blackhole.consume(row.get("name"));
+            blackhole.consume(row.get("quantity"));
+            blackhole.consume(row.get("total"));
+        }
+    }
+
+    @Benchmark
+    public List<LineItem> streamingParser() {
+        return LineItemParser.parse(productDetails);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(LineItemParseBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,197 @@
+package com.inn.cafe.Benchmark;
+
+import ch.qos.logback.classic.Logger;
+import com.inn.cafe.DAO.ProductImportDao;
+import com.inn.cafe.Service.ProductImporter;
+import com.inn.cafe.ServiceImpl.ProductServiceImpl;
+import com.inn.cafe.Utils.ExcelRowReader;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Excel menu import of a generated workbook (20000 products in 50 categories, 1000 of them already on the menu) into
+ * an in-memory H2 database: ProductServiceImpl.processExcelData with the batched ProductImporter, against the former
+ * row by row import (find the category, find the product, insert it: three statements per row). Both include reading
+ * the file, streamRows measures that part alone (ExcelRowReader, as the import reads it) and readWorkbook the former
+ * reading of the whole workbook.
+ *
+ * H2 runs in process, so a statement costs no network round trip here; against MySQL the gap is wider.
+ *
+ * Run with:
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.inn.cafe.Benchmark.ProductImportBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ProductImportBenchmark {
+
+    private static final int CATEGORIES = 50;
+
+    private static final int EXISTING = 1000;
+
+    @Param("20000")
+    int rows;
+
+    private byte[] workbook;
+
+    private Path workbookFile;
+
+    private SingleConnectionDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ProductServiceImpl productService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // POI and JdbcTemplate log every part and statement at debug level, which would be most of the time measured
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(ch.qos.logback.classic.Level.INFO);
+
+        try (XSSFWorkbook book = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            Sheet sheet = book.createSheet();
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("category");
+            header.createCell(1).setCellValue("product");
+            header.createCell(2).setCellValue("price");
+            header.createCell(3).setCellValue("status");
+            for (int i = 0; i < rows; i++) {
+                Row row = sheet.createRow(i + 1);
+                row.createCell(0).setCellValue("Category " + i % CATEGORIES);
+                row.createCell(1).setCellValue("Product " + i);
+                row.createCell(2).setCellValue(50 + i % 200);
+                row.createCell(3).setCellValue("true");
+            }
+            book.write(out);
+            workbook = out.toByteArray();
+        }
+        workbookFile = Files.createTempFile("menu-", ".xlsx");
+        Files.write(workbookFile, workbook);
+
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        ProductImportDao productImportDao = new ProductImportDao();
+        ReflectionTestUtils.setField(productImportDao, "jdbcTemplate", jdbcTemplate);
+        ProductImporter productImporter = new ProductImporter();
+        ReflectionTestUtils.setField(productImporter, "productImportDao", productImportDao);
+        ReflectionTestUtils.setField(productImporter, "transactionTemplate", new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ReflectionTestUtils.setField(productImporter, "eventPublisher", (ApplicationEventPublisher) event -> { });
+        ReflectionTestUtils.setField(productImporter, "batchSize", 1000);
+        productService = new ProductServiceImpl();
+        ReflectionTestUtils.setField(productService, "productImporter", productImporter);
+    }
+
+    /** A menu of CATEGORIES categories and the first EXISTING products of the workbook. */
+    @Setup(Level.Invocation)
+    public void resetMenu() {
+        jdbcTemplate.execute("drop table if exists product");
+        jdbcTemplate.execute("drop table if exists category");
+        // same tables as the Category and Product entities create, with the index MySQL creates for the foreign key
+        jdbcTemplate.execute("create table category (id int auto_increment primary key, name varchar(255), version int)");
+        jdbcTemplate.execute("create table product (id int auto_increment primary key, name varchar(255), category_fk int not null, "
+                + "description varchar(255), price int, status varchar(255))");
+        jdbcTemplate.execute("create index product_category_fk on product (category_fk)");
+        for (int i = 0; i < CATEGORIES; i++) {
+            jdbcTemplate.update("insert into category (name, version) values (?, 0)", "Category " + i);
+        }
+        jdbcTemplate.batchUpdate("insert into product (name, category_fk, price, status) values (?, ?, 100, 'true')",
+                IntStream.range(0, EXISTING).boxed().toList(), 1000,
+                (statement, i) -> {
+                    statement.setString(1, "Product " + i);
+                    statement.setInt(2, i % CATEGORIES + 1);
+                });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        dataSource.destroy();
+        Files.delete(workbookFile);
+    }
+
+    /** Reading the rows alone, the part of the import which is not database work. */
+    @Benchmark
+    public int streamRows() throws IOException {
+        int[] cells = new int[1];
+        ExcelRowReader.read(workbookFile.toFile(), (rowNum, row) -> cells[0] += row.size());
+        return cells[0];
+    }
+
+    @Benchmark
+    public int readWorkbook() throws IOException {
+        int cells = 0;
+        try (XSSFWorkbook book = new XSSFWorkbook(new ByteArrayInputStream(workbook))) {
+            for (Row row : book.getSheetAt(0)) {
+                cells += row.getPhysicalNumberOfCells();
+            }
+        }
+        return cells;
+    }
+
+    @Benchmark
+    public Object batchedImport() {
+        return productService.processExcelData(new MockMultipartFile("file", "menu.xlsx", null, workbook));
+    }
+
+    @Benchmark
+    public int rowByRowImport() throws IOException {
+        int imported = 0;
+        try (XSSFWorkbook book = new XSSFWorkbook(new ByteArrayInputStream(workbook))) {
+            for (Row row : book.getSheetAt(0)) {
+                if (row.getRowNum() == 0) continue;
+                String categoryName = row.getCell(0).getStringCellValue();
+                String productName = row.getCell(1).getStringCellValue();
+                List<Integer> category = jdbcTemplate.queryForList("select id from category where name = ?", Integer.class, categoryName);
+                int categoryId;
+                if (category.isEmpty()) {
+                    jdbcTemplate.update("insert into category (name, version) values (?, 0)", categoryName);
+                    categoryId = jdbcTemplate.queryForObject("select id from category where name = ?", Integer.class, categoryName);
+                } else {
+                    categoryId = category.get(0);
+                }
+                if (!jdbcTemplate.queryForList("select id from product where name = ? and category_fk = ?", Integer.class,
+                        productName, categoryId).isEmpty()) {
+                    continue;
+                }
+                jdbcTemplate.update("insert into product (name, category_fk, price, status) values (?, ?, ?, ?)",
+                        productName, categoryId, (int) row.getCell(2).getNumericCellValue(), row.getCell(3).getStringCellValue());
+                imported++;
+            }
+        }
+        return imported;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(ProductImportBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,88 @@
+package com.inn.cafe.Benchmark;
+
+import com.inn.cafe.Events.BillChangedEvent;
+import com.inn.cafe.Events.ChangeType;
+import com.inn.cafe.POJO.Bill;
+import com.inn.cafe.Service.TopProductsTracker;
+import com.inn.cafe.Utils.SpaceSaving;
+import com.inn.cafe.Wrapper.TopProductWrapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top 10 queries of TopProductsTracker after a week of bills (2000 a day, 5 items each, 5000 products with a skewed
+ * popularity): today's sketch, the cached week, and the week merge which runs on the first query after a new bill.
+ *
+ * Run with:
+ *   mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.inn.cafe.Benchmark.TopProductsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TopProductsBenchmark {
+
+    private TopProductsTracker tracker;
+
+    private List<SpaceSaving<Integer>> days;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        tracker = new TopProductsTracker();
+        ReflectionTestUtils.setField(tracker, "capacity", 200);
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        for (int day = 0; day < 7; day++) {
+            for (int i = 0; i < 2000; i++) {
+                StringBuilder json = new StringBuilder("[");
+                for (int item = 0; item < 5; item++) {
+                    int product = (int) Math.min(4999, Math.abs(random.nextGaussian()) * 400);
+                    json.append(item == 0 ? "" : ",").append("{\"id\":").append(product)
+                            .append(",\"name\":\"Product ").append(product).append("\",\"quantity\":").append(1 + random.nextInt(3)).append('}');
+                }
+                Bill bill = new Bill();
+                bill.setCreatedDate(now.minusDays(day));
+                bill.setProductDetails(json.append(']').toString());
+                tracker.onBillChanged(new BillChangedEvent(ChangeType.CREATED, bill));
+            }
+        }
+        days = new ArrayList<>(((java.util.Map<?, SpaceSaving<Integer>>) ReflectionTestUtils.getField(tracker, "days")).values());
+    }
+
+    @Benchmark
+    public List<TopProductWrapper> topOfDay() {
+        return tracker.getTop("day", 10);
+    }
+
+    @Benchmark
+    public List<TopProductWrapper> topOfCachedWeek() {
+        return tracker.getTop("week", 10);
+    }
+
+    @Benchmark
+    public List<SpaceSaving.Counter<Integer>> mergeWeek() {
+        return SpaceSaving.merge(days, 200).top(10);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(TopProductsBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,159 @@
+package com.inn.cafe.DAO;
+
+import com.inn.cafe.Events.ChangeType;
+import com.inn.cafe.Wrapper.CatalogChangeEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogChangeDaoTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 12, 10, 0);
+
+    private String url;
+
+    private SingleConnectionDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private CatalogChangeDao catalogChangeDao;
+
+    @BeforeEach
+    void setUp() {
+        url = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;LOCK_TIMEOUT=10000";
+        dataSource = new SingleConnectionDataSource(url, true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // same tables as the CatalogChange and CatalogVersion entities create
+        jdbcTemplate.execute("create table catalog_change (id bigint primary key, entity varchar(10) not null, "
+                + "entity_id int not null, change_type varchar(10) not null, changed_at timestamp not null)");
+        jdbcTemplate.execute("create table catalog_version (id int primary key, version bigint not null)");
+        catalogChangeDao = dao(jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void testAppendHandsOutIncreasingVersions() {
+        assertArrayEquals(new long[]{0, 0}, catalogChangeDao.getVersionRange());
+
+        assertEquals(1, catalogChangeDao.append("category", 4, ChangeType.CREATED, NOW));
+        assertEquals(2, catalogChangeDao.append("product", 10, ChangeType.CREATED, NOW));
+        assertEquals(3, catalogChangeDao.append("product", 10, ChangeType.DELETED, NOW));
+
+        assertEquals(List.of(new CatalogChangeEntry(2, "product", 10, ChangeType.CREATED),
+                        new CatalogChangeEntry(3, "product", 10, ChangeType.DELETED)),
+                catalogChangeDao.getChangesSince(1));
+        assertArrayEquals(new long[]{1, 3}, catalogChangeDao.getVersionRange());
+    }
+
+    @Test
+    void testAppendAllHandsOutOneVersionPerChange() {
+        catalogChangeDao.append("category", 4, ChangeType.CREATED, NOW);
+
+        catalogChangeDao.appendAll("product", List.of(10, 11, 12), ChangeType.CREATED, NOW);
+        catalogChangeDao.appendAll("product", List.of(), ChangeType.CREATED, NOW);
+
+        assertEquals(List.of(new CatalogChangeEntry(2, "product", 10, ChangeType.CREATED),
+                        new CatalogChangeEntry(3, "product", 11, ChangeType.CREATED),
+                        new CatalogChangeEntry(4, "product", 12, ChangeType.CREATED)),
+                catalogChangeDao.getChangesSince(1));
+        assertEquals(5, catalogChangeDao.append("category", 4, ChangeType.UPDATED, NOW));
+    }
+
+    @Test
+    void testVersionsContinueAfterTheLoggedChanges() {
+        // logged before there was a catalog_version row
+        jdbcTemplate.update("insert into catalog_change values (7, 'product', 1, 'CREATED', ?)", NOW);
+
+        assertEquals(8, catalogChangeDao.append("product", 2, ChangeType.CREATED, NOW));
+        assertEquals(9, catalogChangeDao.append("product", 3, ChangeType.CREATED, NOW));
+    }
+
+    @Test
+    void testVersionIsHandedOutOnlyAfterThePreviousChangeCommitted() throws Exception {
+        catalogChangeDao.append("product", 1, ChangeType.CREATED, NOW);
+        DriverManagerDataSource shared = new DriverManagerDataSource(url);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(shared));
+        CatalogChangeDao instance = dao(new JdbcTemplate(shared));
+        CatalogChangeDao otherInstance = dao(new JdbcTemplate(shared));
+        CountDownLatch appended = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Long> first = executor.submit(() -> transactionTemplate.execute(status -> {
+                long version = instance.append("product", 2, ChangeType.CREATED, NOW);
+                appended.countDown();
+                await(commit);
+                return version;
+            }));
+            assertTrue(appended.await(10, TimeUnit.SECONDS));
+            Future<Long> second = executor.submit(() -> transactionTemplate.execute(
+                    status -> otherInstance.append("product", 3, ChangeType.CREATED, NOW)));
+
+            assertThrows(TimeoutException.class, () -> second.get(200, TimeUnit.MILLISECONDS));  // waits for the first
+            commit.countDown();
+            assertEquals(2, first.get(10, TimeUnit.SECONDS));
+            assertEquals(3, second.get(10, TimeUnit.SECONDS));
+        } finally {
+            commit.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRolledBackVersionIsHandedOutAgain() {
+        DriverManagerDataSource shared = new DriverManagerDataSource(url);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(shared));
+        CatalogChangeDao dao = dao(new JdbcTemplate(shared));
+        catalogChangeDao.append("product", 1, ChangeType.CREATED, NOW);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(2, dao.append("product", 2, ChangeType.CREATED, NOW));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(2, catalogChangeDao.append("product", 3, ChangeType.CREATED, NOW));
+        assertEquals(List.of(new CatalogChangeEntry(2, "product", 3, ChangeType.CREATED)), catalogChangeDao.getChangesSince(1));
+    }
+
+    @Test
+    void testDeleteBeforeKeepsTheLatestChange() {
+        catalogChangeDao.append("product", 1, ChangeType.CREATED, NOW.minusDays(40));
+        catalogChangeDao.append("product", 2, ChangeType.CREATED, NOW.minusDays(35));
+        catalogChangeDao.append("product", 3, ChangeType.CREATED, NOW.minusDays(31));
+
+        assertEquals(2, catalogChangeDao.deleteBefore(NOW.minusDays(30)));
+        assertArrayEquals(new long[]{3, 3}, catalogChangeDao.getVersionRange());
+    }
+
+
+    private static CatalogChangeDao dao(JdbcTemplate jdbcTemplate) {
+        CatalogChangeDao dao = new CatalogChangeDao();
+        ReflectionTestUtils.setField(dao, "jdbcTemplate", jdbcTemplate);
+        return dao;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.inn.cafe.DAO;
+
+import com.inn.cafe.POJO.Bill;
+import com.inn.cafe.Wrapper.SalesWrapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DailySalesDaoTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 12);
+
+    private SingleConnectionDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private DailySalesDao dailySalesDao;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // same tables as the Bill and DailySales entities create
+        jdbcTemplate.execute("create table bill (id int auto_increment primary key, uuid varchar(255), createdby varchar(255), "
+                + "paymentmethod varchar(255), total int, createddate timestamp)");
+        jdbcTemplate.execute("create table daily_sales (id int auto_increment primary key, sales_date date not null, "
+                + "created_by varchar(255) not null, payment_method varchar(255) not null, bill_count int not null, "
+                + "revenue bigint not null, constraint uk_daily_sales unique (sales_date, created_by, payment_method))");
+        dailySalesDao = new DailySalesDao();
+        ReflectionTestUtils.setField(dailySalesDao, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void testAddAndRemoveBillsUpdateTheRollup() {
+        dailySalesDao.addBill(bill("a@x.com", "Cash", 100, DAY.atTime(9, 0)));
+        dailySalesDao.addBill(bill("a@x.com", "Cash", 50, DAY.atTime(18, 0)));
+        dailySalesDao.addBill(bill("b@x.com", "UPI", 30, DAY.atTime(12, 0)));
+        dailySalesDao.addBill(bill("a@x.com", null, 20, DAY.plusDays(1).atTime(8, 0)));
+        dailySalesDao.removeBill(bill("a@x.com", "Cash", 50, DAY.atTime(18, 0)));
+
+        assertEquals(List.of(new SalesWrapper("2025-03-12", 2, 130), new SalesWrapper("2025-03-13", 1, 20)),
+                dailySalesDao.getSales(DAY, DAY.plusDays(1), "day", null));
+        assertEquals(List.of(new SalesWrapper("", 1, 20), new SalesWrapper("Cash", 1, 100), new SalesWrapper("UPI", 1, 30)),
+                dailySalesDao.getSales(DAY, DAY.plusDays(1), "paymentMethod", null));
+        assertEquals(List.of(new SalesWrapper("a@x.com", 2, 120)),
+                dailySalesDao.getSales(DAY, DAY.plusDays(1), "createdBy", "a@x.com"));
+        assertEquals(List.of(new SalesWrapper("2025-03-13", 1, 20)),
+                dailySalesDao.getSales(DAY.plusDays(1), DAY.plusDays(1), "day", null));
+    }
+
+    @Test
+    void testRebuildRecomputesFromBillsIncludingUndatedOnes() {
+        long legacyMillis = DAY.atTime(10, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        jdbcTemplate.update("insert into bill (uuid, createdby, paymentmethod, total, createddate) values (?, ?, ?, ?, ?)",
+                "BILL-2", "a@x.com", "Cash", 100, DAY.atTime(9, 0));
+        jdbcTemplate.update("insert into bill (uuid, createdby, paymentmethod, total, createddate) values (?, ?, ?, ?, null)",
+                "BILL-" + legacyMillis, "a@x.com", "Cash", 40);
+        jdbcTemplate.update("insert into bill (uuid, createdby, paymentmethod, total, createddate) values (?, ?, ?, ?, null)",
+                "no-date", "a@x.com", "Cash", 999);
+        dailySalesDao.addBill(bill("stale@x.com", "Card", 5, DAY.atTime(1, 0)));
+
+        // one bill per batch: the dated one is not read, the one without a timestamp is read but stays undated
+        assertEquals(2, dailySalesDao.dateUndatedBills(0, 1));
+        assertEquals(3, dailySalesDao.dateUndatedBills(2, 1));
+        assertNull(dailySalesDao.dateUndatedBills(3, 1));
+        assertEquals(1, dailySalesDao.rebuild());
+
+        assertEquals(List.of(new SalesWrapper("a@x.com", 2, 140)),
+                dailySalesDao.getSales(DAY, DAY, "createdBy", null));
+        assertEquals(Instant.ofEpochMilli(legacyMillis).atZone(ZoneId.systemDefault()).toLocalDateTime(),
+                jdbcTemplate.queryForObject("select createddate from bill where uuid = ?", LocalDateTime.class, "BILL-" + legacyMillis));
+    }
+
+    @Test
+    void testUnknownGroupingIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> dailySalesDao.getSales(DAY, DAY, "1; drop table bill", null));
+    }
+
+    private static Bill bill(String createdBy, String paymentMethod, int total, LocalDateTime createdDate) {
+        Bill bill = new Bill();
+        bill.setUuid("BILL-x");
+        bill.setCreatedBy(createdBy);
+        bill.setPaymentMethod(paymentMethod);
+        bill.setTotal(total);
+        bill.setCreatedDate(createdDate);
+        return bill;
+    }
+}
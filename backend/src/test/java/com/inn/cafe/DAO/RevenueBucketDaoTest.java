@@ -0,0 +1,113 @@
+package com.inn.cafe.DAO;
+
+import com.inn.cafe.POJO.Bill;
+import com.inn.cafe.POJO.RevenueBucket.Resolution;
+import com.inn.cafe.Wrapper.RevenuePoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevenueBucketDaoTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 12);
+
+    private SingleConnectionDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private RevenueBucketDao revenueBucketDao;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // same tables as the Bill and RevenueBucket entities create
+        jdbcTemplate.execute("create table bill (id int auto_increment primary key, uuid varchar(255), total int, createddate timestamp)");
+        jdbcTemplate.execute("create table revenue_bucket (id int auto_increment primary key, resolution varchar(3) not null, "
+                + "bucket_start timestamp not null, bill_count int not null, revenue bigint not null, "
+                + "constraint uk_revenue_bucket unique (resolution, bucket_start))");
+        revenueBucketDao = new RevenueBucketDao();
+        ReflectionTestUtils.setField(revenueBucketDao, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void testBillsAreBucketedAtEveryResolution() {
+        revenueBucketDao.addBill(bill(100, DAY.atTime(9, 5)));
+        revenueBucketDao.addBill(bill(50, DAY.atTime(9, 14, 59)));
+        revenueBucketDao.addBill(bill(30, DAY.atTime(9, 40)));
+        revenueBucketDao.addBill(bill(20, DAY.atTime(23, 59)));
+        revenueBucketDao.removeBill(bill(50, DAY.atTime(9, 14, 59)));
+
+        assertEquals(List.of(new RevenuePoint(DAY.atTime(9, 0), 1, 100), new RevenuePoint(DAY.atTime(9, 15), 0, 0),
+                        new RevenuePoint(DAY.atTime(9, 30), 1, 30), new RevenuePoint(DAY.atTime(9, 45), 0, 0)),
+                revenueBucketDao.getSeries(Resolution.MINUTES_15, DAY.atTime(9, 7), DAY.atTime(10, 0)));
+        assertEquals(List.of(new RevenuePoint(DAY.atTime(9, 0), 2, 130)),
+                revenueBucketDao.getSeries(Resolution.HOUR, DAY.atTime(9, 0), DAY.atTime(10, 0)));
+        assertEquals(List.of(new RevenuePoint(DAY.atStartOfDay(), 3, 150), new RevenuePoint(DAY.plusDays(1).atStartOfDay(), 0, 0)),
+                revenueBucketDao.getSeries(Resolution.DAY, DAY.atStartOfDay(), DAY.plusDays(2).atStartOfDay()));
+    }
+
+    @Test
+    void testRebuildAndDownsample() {
+        jdbcTemplate.update("insert into bill (uuid, total, createddate) values (?, ?, ?)", "BILL-1", 100, DAY.atTime(9, 5));
+        jdbcTemplate.update("insert into bill (uuid, total, createddate) values (?, ?, ?)", "BILL-2", 40, DAY.atTime(13, 0));
+        revenueBucketDao.addBill(bill(5, DAY.minusDays(3).atTime(1, 0)));  // stale, not in the bill table
+
+        assertEquals(5, revenueBucketDao.rebuild());  // 2 quarter hours, 2 hours, 1 day
+        assertEquals(2, revenueBucketDao.deleteBefore(Resolution.MINUTES_15, DAY.plusDays(1).atStartOfDay()));
+
+        assertEquals(List.of(new RevenuePoint(DAY.atStartOfDay(), 2, 140)),
+                revenueBucketDao.getSeries(Resolution.DAY, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay()));
+        assertEquals(0, revenueBucketDao.getSeries(Resolution.MINUTES_15, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay())
+                .stream().mapToLong(RevenuePoint::billCount).sum());
+    }
+
+    @Test
+    void testRemovingABillOlderThanTheRetentionKeepsPrunedBucketsRemoved() {
+        revenueBucketDao.addBill(bill(100, DAY.atTime(9, 5)));
+        revenueBucketDao.addBill(bill(40, DAY.atTime(9, 20)));
+        // RevenueBucketRetention downsampled the day: quarter hours and hours are gone, the day is kept
+        revenueBucketDao.deleteBefore(Resolution.MINUTES_15, DAY.plusDays(1).atStartOfDay());
+        revenueBucketDao.deleteBefore(Resolution.HOUR, DAY.plusDays(1).atStartOfDay());
+
+        revenueBucketDao.removeBill(bill(100, DAY.atTime(9, 5)));
+
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from revenue_bucket", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from revenue_bucket where bill_count < 0 or revenue < 0", Integer.class));
+        assertEquals(List.of(new RevenuePoint(DAY.atStartOfDay(), 1, 40)),
+                revenueBucketDao.getSeries(Resolution.DAY, DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay()));
+    }
+
+    @Test
+    void testBucketStart() {
+        LocalDateTime time = DAY.atTime(14, 44, 59);
+
+        assertEquals(DAY.atTime(14, 30), Resolution.MINUTES_15.bucketStart(time));
+        assertEquals(DAY.atTime(14, 0), Resolution.HOUR.bucketStart(time));
+        assertEquals(DAY.atStartOfDay(), Resolution.DAY.bucketStart(time));
+        assertThrows(IllegalArgumentException.class, () -> Resolution.of("5m"));
+    }
+
+    private static Bill bill(int total, LocalDateTime createdDate) {
+        Bill bill = new Bill();
+        bill.setUuid("BILL-x");
+        bill.setTotal(total);
+        bill.setCreatedDate(createdDate);
+        return bill;
+    }
+}
@@ -0,0 +1,157 @@
+package com.inn.cafe.Idempotency;
+
+import com.google.common.hash.Hashing;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyFilterTest {
+
+    private IdempotencyFilter filter;
+
+    private InMemoryIdempotencyStore store;
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private int status = 200;
+
+    private String body = "{\"totalAmount\":\"10\"}";
+
+    private String readBody;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryIdempotencyStore();
+        ReflectionTestUtils.setField(store, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(store, "maxKeys", 100L);
+        store.init();
+        filter = new IdempotencyFilter();
+        ReflectionTestUtils.setField(filter, "idempotencyStore", store);
+        ReflectionTestUtils.setField(filter, "paths", Set.of("/bill/generateReport"));
+        login("cashier@example.com");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testRetryGetsTheFirstResponseWithoutRunningAgain() throws Exception {
+        MockHttpServletResponse first = post("/bill/generateReport", "key-1");
+        MockHttpServletResponse retry = post("/bill/generateReport", "key-1");
+
+        assertEquals(1, calls.get());
+        assertEquals(200, retry.getStatus());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals("{\"uuid\":\"BILL-1\"}", retry.getContentAsString());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void testRetryWhileFirstRequestIsRunningIsConflict() throws Exception {
+        store.reserve(IdempotencyFilter.getStoreKey("cashier@example.com", "/bill/generateReport", "key-2"),
+                Hashing.sha256().hashString(body, StandardCharsets.UTF_8).toString());
+
+        MockHttpServletResponse retry = post("/bill/generateReport", "key-2");
+
+        assertEquals(409, retry.getStatus());
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void testKeyReusedWithAnotherBodyIsRejected() throws Exception {
+        post("/bill/generateReport", "key-5");
+        body = "{\"totalAmount\":\"99\"}";
+        MockHttpServletResponse other = post("/bill/generateReport", "key-5");
+
+        assertEquals(422, other.getStatus());
+        assertNull(other.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testControllerReadsTheBody() throws Exception {
+        post("/bill/generateReport", "key-6");
+
+        assertEquals(body, readBody);
+    }
+
+    @Test
+    void testLongKeysFitTheStore() {
+        String key = IdempotencyFilter.getStoreKey("a".repeat(255), "/bill/generateReport", "k".repeat(255));
+
+        assertEquals(64, key.length());
+        assertNotEquals(key, IdempotencyFilter.getStoreKey("a".repeat(255), "/bill/generateReport", "k".repeat(254)));
+    }
+
+    @Test
+    void testServerErrorIsNotStored() throws Exception {
+        status = 500;
+        post("/bill/generateReport", "key-3");
+        status = 200;
+        MockHttpServletResponse retry = post("/bill/generateReport", "key-3");
+
+        assertEquals(2, calls.get());
+        assertEquals(200, retry.getStatus());
+    }
+
+    @Test
+    void testKeysArePerUserAndOnlyForConfiguredPaths() throws Exception {
+        post("/bill/generateReport", "key-4");
+        login("other@example.com");
+        post("/bill/generateReport", "key-4");
+        post("/bill/delete/1", "key-4");
+        post("/bill/delete/1", "key-4");
+        post("/bill/generateReport", null);
+
+        assertEquals(5, calls.get());
+    }
+
+    @Test
+    void testInvalidKeyIsRejected() throws Exception {
+        assertEquals(400, post("/bill/generateReport", " ").getStatus());
+        assertEquals(400, post("/bill/generateReport", "k".repeat(256)).getStatus());
+        assertEquals(0, calls.get());
+    }
+
+    private MockHttpServletResponse post(String path, String idempotencyKey) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (idempotencyKey != null) {
+            request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                readBody = new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                resp.setStatus(status);
+                resp.setContentType("application/json");
+                resp.getWriter().write("{\"uuid\":\"BILL-" + calls.incrementAndGet() + "\"}");
+            }
+        }));
+        return response;
+    }
+
+    private void login(String user) {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(user, null));
+    }
+}
@@ -0,0 +1,84 @@
+package com.inn.cafe.Idempotency;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcIdempotencyStoreTest {
+
+    private EmbeddedDatabase database;
+
+    private JdbcIdempotencyStore store;
+
+    private final AtomicLong clock = new AtomicLong(1_741_800_000_000L);
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        // same table as the IdempotencyKey entity creates
+        jdbcTemplate.execute("create table idempotency_key (idem_key varchar(64) primary key, request_hash varchar(64), status int, "
+                + "content_type varchar(255), body blob, created_at timestamp not null)");
+        store = new JdbcIdempotencyStore();
+        ReflectionTestUtils.setField(store, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(store, "ttlMinutes", 60L);
+        ReflectionTestUtils.setField(store, "pendingTimeoutSeconds", 30L);
+        ReflectionTestUtils.setField(store, "clock", (LongSupplier) clock::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void testReserveCompleteAndGet() {
+        assertTrue(store.reserve("k", "h1"));
+        assertFalse(store.reserve("k", "h1"));
+        assertNull(store.get("k"));
+        assertEquals("h1", store.getRequestHash("k"));
+        assertNull(store.getRequestHash("unknown"));
+
+        store.complete("k", new IdempotentResponse(200, "application/json", "{}".getBytes(StandardCharsets.UTF_8)));
+
+        IdempotentResponse stored = store.get("k");
+        assertEquals(200, stored.status());
+        assertEquals("{}", new String(stored.body(), StandardCharsets.UTF_8));
+        assertFalse(store.reserve("k", "h1"));
+    }
+
+    @Test
+    void testReleaseLetsTheRetryRun() {
+        assertTrue(store.reserve("k", "h1"));
+        store.release("k");
+
+        assertTrue(store.reserve("k", "h1"));
+    }
+
+    @Test
+    void testAbandonedAndExpiredKeysCanBeTakenOver() {
+        assertTrue(store.reserve("pending", "h1"));
+        assertTrue(store.reserve("done", "h1"));
+        store.complete("done", new IdempotentResponse(200, null, new byte[0]));
+
+        clock.addAndGet(TimeUnit.SECONDS.toMillis(31));
+        assertTrue(store.reserve("pending", "h1"));
+        assertFalse(store.reserve("done", "h1"));
+
+        clock.addAndGet(TimeUnit.MINUTES.toMillis(61));
+        assertNull(store.get("done"));
+        assertTrue(store.reserve("done", "h1"));
+    }
+}
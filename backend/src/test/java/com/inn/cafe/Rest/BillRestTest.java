@@ -0,0 +1,65 @@
+package com.inn.cafe.Rest;
+
+import com.inn.cafe.RestImpl.BillRestImpl;
+import com.inn.cafe.Service.BillService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class BillRestTest {
+
+    @InjectMocks
+    private BillRestImpl billRest;
+
+    @Mock
+    private BillService billService;
+
+    private MockMvc mockMvc;
+
+    private final byte[] pdf = "%PDF-1.4 invoice body".getBytes(StandardCharsets.US_ASCII);
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.standaloneSetup(billRest).build();
+        Resource resource = new ByteArrayResource(pdf);
+        when(billService.getPdf(anyMap(), any())).thenReturn(ResponseEntity.ok().contentType(MediaType.APPLICATION_PDF).body(resource));
+    }
+
+    @Test
+    void testGetPdf_FullDownloadHasContentLength() throws Exception {
+        mockMvc.perform(get("/bill/getPdf").contentType(MediaType.APPLICATION_JSON).content("{\"uuid\":\"BILL-1\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, pdf.length))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().bytes(pdf));
+    }
+
+    @Test
+    void testGetPdf_RangeRequestReturnsPartialContent() throws Exception {
+        mockMvc.perform(get("/bill/getPdf").contentType(MediaType.APPLICATION_JSON).content("{\"uuid\":\"BILL-1\"}")
+                        .header(HttpHeaders.RANGE, "bytes=0-7"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-7/" + pdf.length))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 8))
+                .andExpect(content().string("%PDF-1.4"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.DAO.BillDao;
+import com.inn.cafe.DAO.BillItemDao;
+import com.inn.cafe.POJO.Bill;
+import com.inn.cafe.POJO.BillItem;
+import com.inn.cafe.ServiceImpl.BillItemServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BillItemServiceTest {
+
+    @InjectMocks
+    private BillItemServiceImpl billItemService;
+
+    @Mock
+    private BillDao billDao;
+
+    @Mock
+    private BillItemDao billItemDao;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(billItemService, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(billItemService, "backfillBatchSize", 2);
+    }
+
+    @Test
+    void testGetBillItems_ParsesProductDetails() {
+        Bill bill = bill(7, "[{\"id\":1,\"name\":\"Coffee\",\"category\":\"Drinks\",\"quantity\":2,\"price\":100.0,\"total\":200.0},"
+                + "{\"id\":\"2\",\"name\":\"Cookie\",\"category\":\"Bakery\",\"quantity\":\"1\",\"price\":\"50\",\"total\":50}]");
+
+        List<BillItem> items = billItemService.getBillItems(bill);
+
+        assertEquals(2, items.size());
+        BillItem coffee = items.get(0);
+        assertEquals(7, coffee.getBillId());
+        assertEquals(1, coffee.getProductId());
+        assertEquals("Drinks", coffee.getCategory());
+        assertEquals(2, coffee.getQuantity());
+        assertEquals(100.0, coffee.getPrice());
+        assertEquals(200.0, coffee.getTotal());
+        assertEquals(2, items.get(1).getProductId());
+        assertEquals(50.0, items.get(1).getPrice());
+    }
+
+    @Test
+    void testGetBillItems_InvalidJsonIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> billItemService.getBillItems(bill(1, "not json")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBackfill_WalksBillsInKeysetBatches() {
+        String oneItem = "[{\"id\":1,\"name\":\"Coffee\",\"category\":\"Drinks\",\"quantity\":1,\"price\":100.0,\"total\":100.0}]";
+        when(billDao.getBillsWithoutItems(eq(0), any(Pageable.class))).thenReturn(List.of(bill(3, oneItem), bill(5, "broken")));
+        when(billDao.getBillsWithoutItems(eq(5), any(Pageable.class))).thenReturn(List.of(bill(9, oneItem)));
+        when(billDao.getBillsWithoutItems(eq(9), any(Pageable.class))).thenReturn(List.of());
+
+        int backfilled = billItemService.backfill();
+
+        assertEquals(2, backfilled);
+        ArgumentCaptor<List<BillItem>> batches = ArgumentCaptor.forClass(List.class);
+        verify(billItemDao, times(2)).insertItems(batches.capture());
+        assertEquals(3, batches.getAllValues().get(0).get(0).getBillId());
+        assertEquals(9, batches.getAllValues().get(1).get(0).getBillId());
+    }
+
+    private static Bill bill(Integer id, String productDetails) {
+        Bill bill = new Bill();
+        bill.setId(id);
+        bill.setUuid("BILL-" + id);
+        bill.setProductDetails(productDetails);
+        return bill;
+    }
+}
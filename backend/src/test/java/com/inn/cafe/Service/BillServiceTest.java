@@ -0,0 +1,440 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.DAO.BillDao;
+import com.inn.cafe.DAO.DailySalesDao;
+import com.inn.cafe.DAO.RevenueBucketDao;
+import com.inn.cafe.JWT.JwtFilter;
+import com.inn.cafe.POJO.Bill;
+import com.inn.cafe.ServiceImpl.BillServiceImpl;
+import com.inn.cafe.Utils.BillIdGenerator;
+import com.inn.cafe.Wrapper.BillWrapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BillServiceTest {
+
+    @InjectMocks
+    private BillServiceImpl billService;
+
+    @Mock
+    private InvoiceStore invoiceStore;
+
+    @Mock
+    private InvoiceRenderService invoiceRenderService;
+
+    @Mock
+    private BillDao billDao;
+
+    @Mock
+    private JwtFilter jwtFilter;
+
+    @Mock
+    private BillIdGenerator billIdGenerator;
+
+    @Mock
+    private BillItemService billItemService;
+
+    @Mock
+    private DailySalesDao dailySalesDao;
+
+    @Mock
+    private RevenueBucketDao revenueBucketDao;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private InvoiceCache invoiceCache;
+
+    private Map<String, Object> requestMap;
+
+    @BeforeEach
+    void setUp() {
+        invoiceCache = InvoiceRenderServiceTest.invoiceCache(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(billService, "invoiceCache", invoiceCache);
+        ReflectionTestUtils.setField(billService, "exportMaxBills", 2);
+        ReflectionTestUtils.setField(billService, "exportRenderAhead", 1);
+        ReflectionTestUtils.setField(billService, "maxPageSize", 2);
+        requestMap = new HashMap<>();
+        requestMap.put("uuid", "BILL-1741800668365");
+    }
+
+    @Test
+    void testGenerateReport_SavesTheBillAndQueuesItsInvoice() throws Exception {
+        CompletableFuture<Void> pending = new CompletableFuture<>();
+        mockInsertBill();
+        when(invoiceRenderService.submit(eq("BILL-1741800668365"), anyMap())).thenReturn(pending);
+
+        ResponseEntity<String> response = billService.generateReport(billRequest());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().contains("BILL-1741800668365"));
+        assertFalse(pending.isDone());  // returned while the invoice is still queued
+        verify(billDao).save(any(Bill.class));
+        verify(invoiceRenderService, never()).render(anyString(), anyMap());
+        verifyNoInteractions(invoiceStore);
+    }
+
+    @Test
+    void testGenerateReport_FullRenderQueueStillReturnsTheUuid() {
+        mockInsertBill();
+        when(invoiceRenderService.submit(eq("BILL-1741800668365"), anyMap()))
+                .thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException("queue full")));
+
+        ResponseEntity<String> response = billService.generateReport(billRequest());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());  // getPdf renders the invoice on demand
+        assertTrue(response.getBody().contains("BILL-1741800668365"));
+        verify(billDao).save(any(Bill.class));
+    }
+
+    @Test
+    void testGetPdf_MatchingETagReturnsNotModifiedWithoutIO() {
+        when(billDao.getExistingUuids(List.of("BILL-1741800668365"))).thenReturn(List.of("BILL-1741800668365"));
+
+        ResponseEntity<Resource> response = billService.getPdf(requestMap, "W/\"BILL-1741800668365\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        verifyNoInteractions(invoiceStore, invoiceRenderService);
+    }
+
+    @Test
+    void testGetPdf_MatchingETagOfDeletedBillIsNotFound() {
+        when(billDao.getExistingUuids(List.of("BILL-1741800668365"))).thenReturn(List.of());
+        when(invoiceRenderService.awaitRender(eq("BILL-1741800668365"), anyLong())).thenReturn(true);
+        when(invoiceStore.exists("BILL-1741800668365")).thenReturn(true);
+
+        ResponseEntity<Resource> response = billService.getPdf(requestMap, "W/\"BILL-1741800668365\"");
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void testGetPdf_SecondDownloadIsServedFromCache() throws Exception {
+        when(invoiceRenderService.awaitRender(eq("BILL-1741800668365"), anyLong())).thenReturn(true);
+        when(invoiceStore.exists("BILL-1741800668365")).thenReturn(true);
+        when(invoiceStore.load("BILL-1741800668365")).thenReturn(new ByteArrayResource("pdf".getBytes(StandardCharsets.UTF_8)));
+
+        ResponseEntity<Resource> first = billService.getPdf(requestMap, null);
+        ResponseEntity<Resource> second = billService.getPdf(requestMap, "W/\"BILL-other\"");
+
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertEquals("W/\"BILL-1741800668365\"", first.getHeaders().getETag());
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertEquals(3, second.getBody().contentLength());
+        verify(invoiceStore, times(1)).load("BILL-1741800668365");
+    }
+
+    @Test
+    void testGetPdf_PendingRenderReturnsAccepted() {
+        when(invoiceRenderService.awaitRender(eq("BILL-1741800668365"), anyLong())).thenReturn(false);
+
+        ResponseEntity<Resource> response = billService.getPdf(requestMap, null);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        verifyNoInteractions(invoiceStore);
+    }
+
+    @Test
+    void testGetPdf_FinishedRenderIsServed() {
+        when(invoiceRenderService.awaitRender(eq("BILL-1741800668365"), anyLong())).thenReturn(false, true);
+        when(invoiceStore.exists("BILL-1741800668365")).thenReturn(true);
+        when(invoiceStore.load("BILL-1741800668365")).thenReturn(new ByteArrayResource("pdf".getBytes(StandardCharsets.UTF_8)));
+
+        ResponseEntity<Resource> pending = billService.getPdf(requestMap, null);
+        ResponseEntity<Resource> retry = billService.getPdf(requestMap, null);
+
+        assertEquals(HttpStatus.ACCEPTED, pending.getStatusCode());
+        assertEquals("1", pending.getHeaders().getFirst("Retry-After"));
+        assertEquals(HttpStatus.OK, retry.getStatusCode());
+    }
+
+    @Test
+    void testGetPdf_RegenerationStillRunningReturnsAccepted() throws Exception {
+        when(invoiceRenderService.awaitRender(eq("BILL-1741800668365"), anyLong())).thenReturn(true);
+        when(invoiceStore.exists("BILL-1741800668365")).thenReturn(false);
+        when(billDao.getBillsByUuids(List.of("BILL-1741800668365"))).thenReturn(List.of(bill("BILL-1741800668365")));
+        doThrow(new TimeoutException("still rendering")).when(invoiceRenderService).render(eq("BILL-1741800668365"), anyMap());
+
+        ResponseEntity<Resource> response = billService.getPdf(requestMap, null);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+    }
+
+    @Test
+    void testGetPdf_RejectedRenderIsRenderedFromTheSavedBill() throws Exception {
+        mockInsertBill();
+        when(invoiceRenderService.submit(eq("BILL-1741800668365"), anyMap()))
+                .thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException("queue full")));
+        assertEquals(HttpStatus.OK, billService.generateReport(billRequest()).getStatusCode());
+        when(invoiceRenderService.awaitRender(eq("BILL-1741800668365"), anyLong())).thenReturn(true);
+        when(invoiceStore.exists("BILL-1741800668365")).thenReturn(false);
+        when(billDao.getBillsByUuids(List.of("BILL-1741800668365"))).thenReturn(List.of(bill("BILL-1741800668365")));
+        when(invoiceStore.load("BILL-1741800668365")).thenReturn(pdf("BILL-1741800668365"));
+
+        // a download request has only the uuid
+        ResponseEntity<Resource> response = billService.getPdf(new HashMap<>(Map.of("uuid", "BILL-1741800668365")), null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("pdf BILL-1741800668365", new String(response.getBody().getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        verify(invoiceRenderService).render(eq("BILL-1741800668365"), argThat(data -> "John Doe".equals(data.get("name"))));
+    }
+
+    @Test
+    void testGetPdf_MissingInvoiceOfUnknownBillIsNotFound() throws Exception {
+        when(invoiceRenderService.awaitRender(eq("BILL-1741800668365"), anyLong())).thenReturn(true);
+        when(invoiceStore.exists("BILL-1741800668365")).thenReturn(false);
+        when(billDao.getBillsByUuids(List.of("BILL-1741800668365"))).thenReturn(List.of());
+
+        ResponseEntity<Resource> response = billService.getPdf(requestMap, null);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(invoiceRenderService, never()).render(anyString(), anyMap());
+    }
+
+    @Test
+    void testGetPdf_InvalidUuidIsRejected() {
+        requestMap.put("uuid", "../secret");
+
+        ResponseEntity<Resource> response = billService.getPdf(requestMap, null);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(invoiceStore);
+    }
+
+    @Test
+    void testExportPdf_StreamsStoredAndRenderedInvoices() throws Exception {
+        when(jwtFilter.isAdmin()).thenReturn(true);
+        when(billDao.getBillsByUuids(List.of("BILL-1", "BILL-2"))).thenReturn(List.of(bill("BILL-1"), bill("BILL-2")));
+        when(invoiceStore.exists("BILL-1")).thenReturn(true);
+        when(invoiceStore.exists("BILL-2")).thenReturn(false);
+        when(invoiceRenderService.submit(eq("BILL-2"), anyMap())).thenReturn(CompletableFuture.completedFuture(null));
+        when(invoiceStore.load(anyString())).thenAnswer(call -> pdf(call.getArgument(0)));
+
+        Map<String, String> entries = export(Map.of("uuids", List.of("BILL-1", "BILL-2")));
+
+        assertEquals(Map.of("BILL-1.pdf", "pdf BILL-1", "BILL-2.pdf", "pdf BILL-2"), entries);
+        verify(invoiceRenderService, never()).submit(eq("BILL-1"), anyMap());
+    }
+
+    @Test
+    void testExportPdf_RejectedRenderFallsBackToExportThread() throws Exception {
+        when(jwtFilter.isAdmin()).thenReturn(true);
+        when(billDao.getBillsByUuids(List.of("BILL-1"))).thenReturn(List.of(bill("BILL-1")));
+        when(invoiceStore.exists("BILL-1")).thenReturn(false);
+        when(invoiceRenderService.submit(eq("BILL-1"), anyMap()))
+                .thenReturn(CompletableFuture.failedFuture(new RejectedExecutionException()));
+        when(invoiceStore.load("BILL-1")).thenReturn(pdf("BILL-1"));
+
+        Map<String, String> entries = export(Map.of("uuids", List.of("BILL-1")));
+
+        assertEquals(Set.of("BILL-1.pdf"), entries.keySet());
+        verify(invoiceRenderService).render(eq("BILL-1"), anyMap());
+    }
+
+    @Test
+    void testExportPdf_OnlyOwnBillsForNonAdmin() throws Exception {
+        Bill other = bill("BILL-2");
+        other.setCreatedBy("someone@example.com");
+        when(jwtFilter.isAdmin()).thenReturn(false);
+        when(jwtFilter.getCurrentUser()).thenReturn("cashier@example.com");
+        when(billDao.getBillsByUuids(List.of("BILL-1", "BILL-2"))).thenReturn(List.of(bill("BILL-1"), other));
+        when(invoiceStore.exists("BILL-1")).thenReturn(true);
+        when(invoiceStore.load("BILL-1")).thenReturn(pdf("BILL-1"));
+
+        Map<String, String> entries = export(Map.of("uuids", List.of("BILL-1", "BILL-2")));
+
+        assertEquals(Set.of("BILL-1.pdf"), entries.keySet());
+    }
+
+    @Test
+    void testExportPdf_DateRangeLimitCountsOnlyOwnBillsForNonAdmin() throws Exception {
+        LocalDateTime from = LocalDate.of(2025, 3, 1).atStartOfDay();
+        LocalDateTime to = LocalDate.of(2025, 4, 1).atStartOfDay();
+        when(jwtFilter.isAdmin()).thenReturn(false);
+        when(jwtFilter.getCurrentUser()).thenReturn("cashier@example.com");
+        // more than exportMaxBills bills of other users in the range
+        List<Bill> all = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Bill other = bill("BILL-" + (100 + i));
+            other.setCreatedBy("someone@example.com");
+            all.add(other);
+        }
+        all.add(bill("BILL-1"));
+        lenient().when(billDao.getBillsByCreatedDate(from, to, null, PageRequest.of(0, 3))).thenReturn(all.subList(0, 3));
+        when(billDao.getBillsByCreatedDate(from, to, "cashier@example.com", PageRequest.of(0, 3))).thenReturn(List.of(bill("BILL-1")));
+        when(invoiceStore.exists("BILL-1")).thenReturn(true);
+        when(invoiceStore.load("BILL-1")).thenReturn(pdf("BILL-1"));
+
+        Map<String, String> entries = export(Map.of("fromDate", "2025-03-01", "toDate", "2025-03-31"));
+
+        assertEquals(Map.of("BILL-1.pdf", "pdf BILL-1"), entries);
+    }
+
+    @Test
+    void testExportPdf_DateRangeWithTooManyBillsIsRejected() {
+        when(jwtFilter.isAdmin()).thenReturn(true);
+        when(billDao.getBillsByCreatedDate(any(), any(), isNull(), eq(PageRequest.of(0, 3))))
+                .thenReturn(List.of(bill("BILL-1"), bill("BILL-2"), bill("BILL-3")));
+
+        ResponseEntity<StreamingResponseBody> response = billService.exportPdf(Map.of("fromDate", "2025-03-01", "toDate", "2025-03-31"));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+    }
+
+    @Test
+    void testExportPdf_TooManyBillsIsRejected() {
+        ResponseEntity<StreamingResponseBody> response =
+                billService.exportPdf(Map.of("uuids", List.of("BILL-1", "BILL-2", "BILL-3")));
+
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, response.getStatusCode());
+        verifyNoInteractions(billDao);
+    }
+
+    @Test
+    void testExportPdf_InvalidRequestIsRejected() {
+        assertEquals(HttpStatus.BAD_REQUEST, billService.exportPdf(Map.of("uuids", List.of("../secret"))).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, billService.exportPdf(Map.of("fromDate", "2025-13-01", "toDate", "2025-13-31")).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, billService.exportPdf(Map.of()).getStatusCode());
+    }
+
+    private Map<String, String> export(Map<String, Object> request) throws Exception {
+        ResponseEntity<StreamingResponseBody> response = billService.exportPdf(request);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    private static Bill bill(String uuid) {
+        Bill bill = new Bill();
+        bill.setUuid(uuid);
+        bill.setName("John Doe");
+        bill.setTotal(250);
+        bill.setProductDetails("[]");
+        bill.setCreatedBy("cashier@example.com");
+        return bill;
+    }
+
+    private static Resource pdf(String uuid) {
+        return new ByteArrayResource(("pdf " + uuid).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testGetBills_ReturnsCappedPageWithNextCursor() {
+        when(jwtFilter.isAdmin()).thenReturn(true);
+        when(billDao.getBillPage(Integer.MAX_VALUE, null, null, null, PageRequest.of(0, 3)))
+                .thenReturn(List.of(row(30), row(20), row(10)));
+
+        ResponseEntity<List<BillWrapper>> response = billService.getBills(null, 50, null, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().size());
+        assertEquals("20", response.getHeaders().getFirst(BillServiceImpl.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void testGetBills_LastPageHasNoCursorAndUserOnlySeesOwnBills() {
+        when(jwtFilter.isAdmin()).thenReturn(false);
+        when(jwtFilter.getCurrentUser()).thenReturn("cashier@example.com");
+        when(billDao.getBillPage(eq(20), eq("cashier@example.com"), eq(LocalDate.of(2025, 3, 1).atStartOfDay()),
+                eq(LocalDate.of(2025, 4, 1).atStartOfDay()), eq(PageRequest.of(0, 3)))).thenReturn(List.of(row(10)));
+
+        ResponseEntity<List<BillWrapper>> response =
+                billService.getBills(20, null, "2025-03-01", "2025-03-31", "someone@example.com");
+
+        assertEquals(1, response.getBody().size());
+        assertNull(response.getHeaders().getFirst(BillServiceImpl.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void testGetBills_InvalidDateIsRejected() {
+        when(jwtFilter.isAdmin()).thenReturn(true);
+
+        assertEquals(HttpStatus.BAD_REQUEST, billService.getBills(null, null, "01-03-2025", null, null).getStatusCode());
+        verifyNoInteractions(billDao);
+    }
+
+    @Test
+    void testGetBill_OtherUsersBillIsNotFound() {
+        Bill other = bill("BILL-2");
+        other.setCreatedBy("someone@example.com");
+        when(billDao.findById(2)).thenReturn(Optional.of(other));
+        when(jwtFilter.isAdmin()).thenReturn(false);
+        when(jwtFilter.getCurrentUser()).thenReturn("cashier@example.com");
+
+        assertEquals(HttpStatus.NOT_FOUND, billService.getBill(2).getStatusCode());
+    }
+
+    private static BillWrapper row(int id) {
+        return new BillWrapper(id, "BILL-" + id, "John Doe", null, null, "Cash", 250, "cashier@example.com", null);
+    }
+
+    private void mockInsertBill() {
+        when(billIdGenerator.nextUUID()).thenReturn("BILL-1741800668365");
+        doAnswer(call -> {
+            call.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private static Map<String, Object> billRequest() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("name", "John Doe");
+        map.put("contactNumber", "9999999999");
+        map.put("email", "john@example.com");
+        map.put("paymentMethod", "Cash");
+        map.put("totalAmount", "100");
+        map.put("productDetails", "[{\"id\":1,\"name\":\"Coffee\",\"category\":\"Drinks\",\"quantity\":1,\"price\":100.0,\"total\":100.0}]");
+        map.put("isGenerate", true);
+        return map;
+    }
+}
@@ -0,0 +1,88 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.DAO.CatalogChangeDao;
+import com.inn.cafe.DAO.CategoryDao;
+import com.inn.cafe.DAO.ProductDao;
+import com.inn.cafe.Events.ChangeType;
+import com.inn.cafe.Events.ProductChangedEvent;
+import com.inn.cafe.POJO.Category;
+import com.inn.cafe.Wrapper.CatalogChangeEntry;
+import com.inn.cafe.Wrapper.CatalogChanges;
+import com.inn.cafe.Wrapper.ProductWrapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogChangeLogTest {
+
+    @InjectMocks
+    private CatalogChangeLog catalogChangeLog;
+
+    @Mock
+    private CatalogChangeDao catalogChangeDao;
+
+    @Mock
+    private ProductDao productDao;
+
+    @Mock
+    private CategoryDao categoryDao;
+
+    @Test
+    void testChangesAreCollapsedToTheCurrentState() {
+        when(catalogChangeDao.getVersionRange()).thenReturn(new long[]{1, 14});
+        when(catalogChangeDao.getChangesSince(10)).thenReturn(List.of(
+                new CatalogChangeEntry(11, "product", 5, ChangeType.UPDATED),
+                new CatalogChangeEntry(12, "category", 2, ChangeType.CREATED),
+                new CatalogChangeEntry(13, "product", 5, ChangeType.UPDATED),
+                new CatalogChangeEntry(14, "product", 6, ChangeType.DELETED)));
+        ProductWrapper latte = new ProductWrapper(5, "Latte", "", 120, "true", 2, "Coffee");
+        when(productDao.getProductsByIds(Set.of(5, 6))).thenReturn(List.of(latte));
+        Category coffee = new Category();
+        coffee.setId(2);
+        coffee.setName("Coffee");
+        when(categoryDao.findAllById(Set.of(2))).thenReturn(List.of(coffee));
+
+        CatalogChanges changes = catalogChangeLog.getChanges(10);
+
+        assertEquals(14, changes.version());
+        assertFalse(changes.resync());
+        assertEquals(List.of(latte), changes.products());
+        assertEquals(List.of(6), changes.deletedProducts());
+        assertEquals("Coffee", changes.categories().get(0).getName());
+        assertEquals(List.of(), changes.deletedCategories());
+    }
+
+    @Test
+    void testClientBehindTheCompactedLogMustResync() {
+        when(catalogChangeDao.getVersionRange()).thenReturn(new long[]{20, 25});
+
+        assertTrue(catalogChangeLog.getChanges(10).resync());
+        assertTrue(catalogChangeLog.getChanges(26).resync());  // a version this log never handed out
+        assertFalse(catalogChangeLog.getChanges(19).resync());
+        assertEquals(25, catalogChangeLog.getChanges(10).version());
+        assertThrows(IllegalArgumentException.class, () -> catalogChangeLog.getChanges(-1));
+    }
+
+    @Test
+    void testChangesAreAppended() {
+        catalogChangeLog.onProductChanged(new ProductChangedEvent(ChangeType.DELETED, 6, 2));
+        doThrow(new RuntimeException("database down")).when(catalogChangeDao).append(eq("product"), eq(7), any(), any());
+
+        // thrown before the commit, so the change is rolled back with its log row
+        assertThrows(RuntimeException.class,
+                () -> catalogChangeLog.onProductChanged(new ProductChangedEvent(ChangeType.CREATED, 7, 2)));
+
+        verify(catalogChangeDao).append(eq("product"), eq(6), eq(ChangeType.DELETED), any());
+    }
+}
@@ -22,7 +22,7 @@ public class CategoryServiceIT {
     @Test
     void testGetAllCategories() {
         String filterValue = "false";
-        List<Category> categories = (List<Category>) categoryService.getAllCategory(filterValue);
+        List<Category> categories = (List<Category>) categoryService.getAllCategory(filterValue, null, null);
         assertNotNull(categories);
     }
 }
\ No newline at end of file
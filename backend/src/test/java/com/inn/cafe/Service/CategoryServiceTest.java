@@ -11,6 +11,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -31,6 +32,12 @@ class CategoryServiceTest {
     @Mock
     private JwtFilter jwtFilter;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private MenuCatalog menuCatalog;
+
     private Map<String, String> requestMap;
     private Category category;
 
@@ -68,10 +75,15 @@ class CategoryServiceTest {
 
     @Test
     void testGetAllCategories() {
-        List<Category> categoryList = Collections.singletonList(category);
-        when(categoryDao.findAll()).thenReturn(categoryList);
+        Category empty = new Category();
+        empty.setId(2);
+        empty.setName("Desserts");
+        // the menu is read from its snapshot, active categories are those with an active product
+        MenuCatalog.Snapshot menu = new MenuCatalog.Snapshot(7, "\"7-1f\"", 0, List.of(), Map.of(), Map.of(),
+                List.of(category, empty), Collections.singletonList(category));
+        when(menuCatalog.current()).thenReturn(menu);
 
-        ResponseEntity<List<Category>> response = categoryService.getAllCategory("true");
+        ResponseEntity<List<Category>> response = categoryService.getAllCategory("true", null, null);
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -79,6 +91,34 @@ class CategoryServiceTest {
         assertFalse(response.getBody().isEmpty());
         assertEquals(1, response.getBody().size());  // Ensure a category is returned
         assertEquals("Beverages", response.getBody().get(0).getName());
+        assertEquals(2, categoryService.getAllCategory(null, null, null).getBody().size());
+        verifyNoInteractions(categoryDao);
+    }
+
+    @Test
+    void testGetAllCategories_NotModified() {
+        long lastModified = 1_741_773_600_000L;  // Wed, 12 Mar 2025 10:00:00 GMT
+        MenuCatalog.Snapshot menu = new MenuCatalog.Snapshot(7, "\"7-1f\"", lastModified, List.of(), Map.of(), Map.of(),
+                List.of(category), List.of(category));
+        when(menuCatalog.current()).thenReturn(menu);
+
+        ResponseEntity<List<Category>> response = categoryService.getAllCategory(null, "\"7-1f\"", null);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals("\"7-1f\"", response.getHeaders().getETag());
+        assertEquals(lastModified, response.getHeaders().getLastModified());
+        verifyNoInteractions(categoryDao);
+
+        response = categoryService.getAllCategory(null, null, "Wed, 12 Mar 2025 10:00:00 GMT");
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+
+        response = categoryService.getAllCategory(null, "\"6-1f\"", null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(category), response.getBody());
+
+        response = categoryService.getAllCategory(null, null, "Wed, 12 Mar 2025 09:00:00 GMT");
+        assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
     @Test
@@ -0,0 +1,79 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.DAO.BillDao;
+import com.inn.cafe.DAO.CategoryDao;
+import com.inn.cafe.DAO.ProductDao;
+import com.inn.cafe.Events.BillChangedEvent;
+import com.inn.cafe.Events.CategoryChangedEvent;
+import com.inn.cafe.Events.ChangeType;
+import com.inn.cafe.Events.ProductChangedEvent;
+import com.inn.cafe.POJO.Bill;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DashBoardCountersTest {
+
+    @InjectMocks
+    private DashBoardCounters counters;
+
+    @Mock
+    private CategoryDao categoryDao;
+
+    @Mock
+    private ProductDao productDao;
+
+    @Mock
+    private BillDao billDao;
+
+    @BeforeEach
+    void setUp() {
+        when(categoryDao.count()).thenReturn(3L);
+        when(productDao.count()).thenReturn(10L);
+        when(billDao.count()).thenReturn(100L);
+    }
+
+    @Test
+    void testFirstReadSeedsFromDatabaseOnce() {
+        assertEquals(3, counters.getCategoryCount());
+        assertEquals(10, counters.getProductCount());
+        assertEquals(100, counters.getBillCount());
+
+        verify(billDao, times(1)).count();
+    }
+
+    @Test
+    void testEventsMoveCountersWithoutQueries() {
+        counters.reconcile();
+
+        counters.onCategoryChanged(new CategoryChangedEvent(ChangeType.CREATED, 4));
+        counters.onProductChanged(new ProductChangedEvent(ChangeType.CREATED, 11, 1));
+        counters.onProductChanged(new ProductChangedEvent(ChangeType.UPDATED, 11, 1));
+        counters.onProductChanged(new ProductChangedEvent(ChangeType.DELETED, 2, 1));
+        counters.onBillChanged(new BillChangedEvent(ChangeType.CREATED, new Bill()));
+        counters.onBillChanged(new BillChangedEvent(ChangeType.CREATED, new Bill()));
+
+        assertEquals(4, counters.getCategoryCount());
+        assertEquals(10, counters.getProductCount());
+        assertEquals(102, counters.getBillCount());
+        verify(billDao, times(1)).count();
+    }
+
+    @Test
+    void testReconcileCorrectsDrift() {
+        counters.reconcile();
+        counters.onBillChanged(new BillChangedEvent(ChangeType.CREATED, new Bill()));  // bill saved ...
+        when(billDao.count()).thenReturn(100L);                                         // ... but rolled back
+
+        assertEquals(1, counters.reconcile());
+        assertEquals(100, counters.getBillCount());
+        assertEquals(0, counters.reconcile());
+    }
+}
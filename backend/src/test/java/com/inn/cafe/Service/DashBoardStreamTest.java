@@ -0,0 +1,209 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.DAO.DailySalesDao;
+import com.inn.cafe.Events.BillChangedEvent;
+import com.inn.cafe.Events.ChangeType;
+import com.inn.cafe.POJO.Bill;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DashBoardStreamTest {
+
+    @InjectMocks
+    private DashBoardStream stream;
+
+    @Mock
+    private DashBoardCounters dashBoardCounters;
+
+    @Mock
+    private DailySalesDao dailySalesDao;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private final List<TestEmitter> emitters = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(stream, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(stream, "maxConnections", 2);
+        ReflectionTestUtils.setField(stream, "queueSize", 3);
+        ReflectionTestUtils.setField(stream, "writeTimeoutMillis", 60_000L);
+        ReflectionTestUtils.setField(stream, "heartbeatSeconds", 3600L);
+        ReflectionTestUtils.setField(stream, "timeoutMillis", 60_000L);
+        ReflectionTestUtils.setField(stream, "emitters", (LongFunction<SseEmitter>) timeout -> {
+            TestEmitter emitter = new TestEmitter();
+            emitters.add(emitter);
+            return emitter;
+        });
+        lenient().when(dailySalesDao.getSales(any(), any(), any(), any())).thenReturn(List.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        emitters.forEach(TestEmitter::unblock);
+        stream.shutdown();
+    }
+
+    @Test
+    void testConnectionsAreCappedBeforeReadingTheSnapshot() {
+        stream.init();
+        assertNotNull(stream.subscribe());
+        assertNotNull(stream.subscribe());
+
+        assertNull(stream.subscribe());
+        assertEquals(2.0, meterRegistry.get("dashboard.stream.subscribers").gauge().value());
+        verify(dashBoardCounters, times(2)).getBillCount();
+    }
+
+    @Test
+    void testChangeWhileTheSnapshotIsReadIsSentAfterIt() throws Exception {
+        stream.init();
+        when(dailySalesDao.getSales(any(), any(), any(), any())).thenAnswer(call -> {
+            stream.onBillChanged(new BillChangedEvent(ChangeType.CREATED, new Bill()));
+            return List.of();
+        });
+
+        stream.subscribe();
+
+        TestEmitter emitter = emitters.get(0);
+        await(() -> emitter.events.size() == 2);
+        assertTrue(emitter.events.get(0).contains("snapshot"), emitter.events.get(0));
+        assertTrue(emitter.events.get(1).contains("delta"), emitter.events.get(1));
+    }
+
+    @Test
+    void testStalledClientDoesNotHoldUpOthers() throws Exception {
+        stream.init();
+        stream.subscribe();
+        emitters.get(0).block();
+        stream.subscribe();
+
+        stream.onBillChanged(new BillChangedEvent(ChangeType.CREATED, new Bill()));
+
+        TestEmitter other = emitters.get(1);
+        await(() -> other.events.size() == 2);
+        assertEquals(2, stream.getSubscriberCount());
+    }
+
+    @Test
+    void testStalledClientIsDroppedAfterTheWriteTimeout() throws Exception {
+        ReflectionTestUtils.setField(stream, "writeTimeoutMillis", 100L);
+        stream.init();
+        TestEmitter emitter = new TestEmitter();
+        emitter.block();
+        emitters.add(emitter);
+        ReflectionTestUtils.setField(stream, "emitters", (LongFunction<SseEmitter>) timeout -> emitter);
+        stream.subscribe();  // the snapshot write blocks
+
+        await(() -> meterRegistry.get("dashboard.stream.dropped").counter().count() == 1.0);
+        assertEquals(0, stream.getSubscriberCount());
+        assertFalse(emitter.completed.await(100, TimeUnit.MILLISECONDS));  // can't be completed during the write
+
+        emitter.unblock();
+        assertTrue(emitter.completed.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testSlowSubscriberIsDropped() throws Exception {
+        stream.init();
+        stream.subscribe();
+        TestEmitter emitter = emitters.get(0);
+        await(() -> emitter.events.size() == 1);  // the snapshot
+        emitter.block();
+        stream.onBillChanged(new BillChangedEvent(ChangeType.CREATED, new Bill()));  // blocked in its write
+        await(() -> emitter.sending);
+
+        for (int i = 0; i < 4; i++) {
+            stream.onBillChanged(new BillChangedEvent(ChangeType.CREATED, new Bill()));
+        }
+
+        assertEquals(0, stream.getSubscriberCount());
+        assertEquals(1.0, meterRegistry.get("dashboard.stream.dropped").counter().count());
+        emitter.unblock();
+        assertTrue(emitter.completed.await(10, TimeUnit.SECONDS));
+        assertEquals(2, emitter.events.size());  // the queued events are not written any more
+    }
+
+    @Test
+    void testUpdatesAreNotPublished() {
+        stream.init();
+        stream.subscribe();
+
+        for (int i = 0; i < 10; i++) {
+            stream.onBillChanged(new BillChangedEvent(ChangeType.UPDATED, new Bill()));
+        }
+
+        assertEquals(1, stream.getSubscriberCount());
+        assertEquals(0.0, meterRegistry.get("dashboard.stream.dropped").counter().count());
+    }
+
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in 10 s");
+            Thread.sleep(5);
+        }
+    }
+
+    /** Records the events written, a write can be made to block like one to a client which does not read. */
+    private static class TestEmitter extends SseEmitter {
+
+        final List<String> events = new CopyOnWriteArrayList<>();
+
+        final CountDownLatch completed = new CountDownLatch(1);
+
+        volatile CountDownLatch gate = new CountDownLatch(0);
+
+        volatile boolean sending;
+
+        void block() {
+            gate = new CountDownLatch(1);
+        }
+
+        void unblock() {
+            gate.countDown();
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending = true;
+            try {
+                gate.await();
+            } catch (InterruptedException ex) {
+                throw new IOException(ex);
+            } finally {
+                sending = false;
+            }
+            events.add(builder.build().stream().map(data -> String.valueOf(data.getData())).collect(Collectors.joining()));
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+    }
+}
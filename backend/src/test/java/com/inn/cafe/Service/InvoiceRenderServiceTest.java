@@ -0,0 +1,249 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.ServiceImpl.InMemoryInvoiceStore;
+import com.inn.cafe.ServiceImpl.InvoiceRenderServiceImpl;
+import com.inn.cafe.ServiceImpl.LocalInvoiceStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvoiceRenderServiceTest {
+
+    private InvoiceRenderServiceImpl renderService;
+
+    private CountingStore store;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @TempDir
+    Path root;
+
+    @BeforeEach
+    void setUp() {
+        store = new CountingStore();
+        meterRegistry = new SimpleMeterRegistry();
+        renderService = new InvoiceRenderServiceImpl();
+        ReflectionTestUtils.setField(renderService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(renderService, "invoiceStore", store);
+        ReflectionTestUtils.setField(renderService, "invoiceCache", invoiceCache(meterRegistry));
+        ReflectionTestUtils.setField(renderService, "threads", 1);
+        ReflectionTestUtils.setField(renderService, "queueCapacity", 1);
+        ReflectionTestUtils.setField(renderService, "renderWaitMillis", 10_000L);
+        renderService.init();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        renderService.shutdown();
+    }
+
+    @Test
+    void testSubmit_RendersInBackground() throws Exception {
+        renderService.submit("BILL-1", billData()).get(10, TimeUnit.SECONDS);
+
+        assertTrue(store.exists("BILL-1"));
+        assertTrue(renderService.awaitRender("BILL-1", 0));
+        assertEquals(1, meterRegistry.get("invoice.render.latency").timer().count());
+    }
+
+    @Test
+    void testRender_ConcurrentCallersShareOneRender() throws Exception {
+        store.blockSaves();
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(callers.submit(() -> {
+                renderService.render("BILL-2", billData());
+                return null;
+            }));
+        }
+        Thread.sleep(200);  // let every caller reach the single-flight map
+        store.releaseSaves();
+        for (Future<?> result : results) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+        callers.shutdown();
+
+        assertEquals(1, store.saves.get());
+        assertTrue(store.exists("BILL-2"));
+    }
+
+    @Test
+    void testRender_NoHalfWrittenInvoiceIsServed() throws Exception {
+        AtomicInteger saves = new AtomicInteger();
+        LocalInvoiceStore slowStore = new LocalInvoiceStore() {
+            @Override
+            public void save(String uuid, InvoiceWriter writer) throws Exception {
+                saves.incrementAndGet();
+                super.save(uuid, out -> writer.writeTo(new FilterOutputStream(out) {
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        try {
+                            Thread.sleep(1);  // a slow disk: the file is written in many steps
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
+                        out.write(b, off, len);
+                    }
+                }));
+            }
+        };
+        ReflectionTestUtils.setField(slowStore, "location", root.toString());
+        ReflectionTestUtils.setField(renderService, "invoiceStore", slowStore);
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(callers.submit(() -> {
+                renderService.render("BILL-1741800668365", billData());
+                return null;
+            }));
+        }
+        List<String> partialReads = new ArrayList<>();
+        while (results.stream().anyMatch(result -> !result.isDone())) {
+            Resource resource = slowStore.load("BILL-1741800668365");
+            if (resource != null) {
+                String pdf = new String(resource.getInputStream().readAllBytes(), StandardCharsets.ISO_8859_1);
+                if (!pdf.startsWith("%PDF") || !pdf.stripTrailing().endsWith("%%EOF")) {
+                    partialReads.add(pdf);
+                }
+            }
+        }
+        for (Future<?> result : results) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+        callers.shutdown();
+
+        assertEquals(1, saves.get());
+        assertEquals(List.of(), partialReads);
+        assertTrue(slowStore.exists("BILL-1741800668365"));
+    }
+
+    @Test
+    void testRender_CallerWaitsForTheRenderInFlightOnlyUntilTheTimeout() throws Exception {
+        ReflectionTestUtils.setField(renderService, "renderWaitMillis", 50L);
+        store.blockSaves();
+        CompletableFuture<Void> running = renderService.submit("BILL-11", billData());
+
+        assertThrows(TimeoutException.class, () -> renderService.render("BILL-11", billData()));
+        store.releaseSaves();
+        running.get(10, TimeUnit.SECONDS);
+        assertEquals(1, store.saves.get());
+    }
+
+    @Test
+    void testSubmit_FullQueueIsRejectedAndCounted() {
+        store.blockSaves();
+        renderService.submit("BILL-3", billData());  // running
+        renderService.submit("BILL-4", billData());  // queued
+        CompletableFuture<Void> rejected = renderService.submit("BILL-5", billData());
+
+        assertTrue(rejected.isCompletedExceptionally());
+        assertEquals(1.0, meterRegistry.get("invoice.render.rejected").counter().count());
+        assertFalse(renderService.awaitRender("BILL-4", 50));  // still pending
+        store.releaseSaves();
+        assertTrue(renderService.awaitRender("BILL-4", 10_000));
+    }
+
+    @Test
+    void testSubmit_PendingJobsAreReportedUntilRendered() throws Exception {
+        store.blockSaves();
+        CompletableFuture<Void> running = renderService.submit("BILL-6", billData());
+        CompletableFuture<Void> queued = renderService.submit("BILL-7", billData());
+        awaitGauge("invoice.render.active", 1.0);
+
+        assertEquals(1.0, meterRegistry.get("invoice.render.queue.depth").gauge().value());
+        assertFalse(renderService.awaitRender("BILL-7", 50));
+        assertSame(queued, renderService.submit("BILL-7", billData()));  // not queued twice
+        assertFalse(store.exists("BILL-6"));
+
+        store.releaseSaves();
+        running.get(10, TimeUnit.SECONDS);
+        queued.get(10, TimeUnit.SECONDS);
+        assertEquals(0.0, meterRegistry.get("invoice.render.queue.depth").gauge().value());
+        assertEquals(2, store.saves.get());
+        assertEquals(0.0, meterRegistry.get("invoice.render.rejected").counter().count());
+    }
+
+    @Test
+    void testSubmit_RejectedJobIsRenderedOnDemand() throws Exception {
+        store.blockSaves();
+        renderService.submit("BILL-8", billData());
+        renderService.submit("BILL-9", billData());
+        CompletableFuture<Void> rejected = renderService.submit("BILL-10", billData());
+        ExecutionException ex = assertThrows(ExecutionException.class, rejected::get);
+
+        assertInstanceOf(RejectedExecutionException.class, ex.getCause());
+        assertTrue(renderService.awaitRender("BILL-10", 0));  // nothing in flight, getPdf renders it itself
+        store.releaseSaves();
+        renderService.render("BILL-10", billData());
+        assertTrue(store.exists("BILL-10"));
+    }
+
+    static InvoiceCache invoiceCache(SimpleMeterRegistry meterRegistry) {
+        InvoiceCache invoiceCache = new InvoiceCache();
+        ReflectionTestUtils.setField(invoiceCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(invoiceCache, "maxBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(invoiceCache, "maxEntryBytes", 64L * 1024);
+        invoiceCache.init();
+        return invoiceCache;
+    }
+
+    private void awaitGauge(String name, double value) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (meterRegistry.get(name).gauge().value() != value) {
+            assertTrue(System.currentTimeMillis() < deadline, name + " did not reach " + value);
+            Thread.sleep(10);
+        }
+    }
+
+    private Map<String, Object> billData() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("name", "John Doe");
+        map.put("contactNumber", "9999999999");
+        map.put("email", "john@example.com");
+        map.put("paymentMethod", "Cash");
+        map.put("totalAmount", "250");
+        map.put("productDetails", "[{\"id\":1,\"name\":\"Coffee\",\"category\":\"Drinks\",\"quantity\":2,\"price\":100.0,\"total\":200.0},"
+                + "{\"id\":2,\"name\":\"Cookie\",\"category\":\"Bakery\",\"quantity\":1,\"price\":50.0,\"total\":50.0}]");
+        return map;
+    }
+
+    /** In-memory store which counts saves and can hold them back to keep renders in flight. */
+    private static class CountingStore extends InMemoryInvoiceStore {
+        final AtomicInteger saves = new AtomicInteger();
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+
+        void blockSaves() {
+            gate = new CountDownLatch(1);
+        }
+
+        void releaseSaves() {
+            gate.countDown();
+        }
+
+        @Override
+        public void save(String uuid, InvoiceWriter writer) throws Exception {
+            gate.await();
+            saves.incrementAndGet();
+            super.save(uuid, writer);
+        }
+    }
+}
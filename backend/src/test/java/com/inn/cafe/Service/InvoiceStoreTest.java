@@ -0,0 +1,122 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.ServiceImpl.InMemoryInvoiceStore;
+import com.inn.cafe.ServiceImpl.LocalInvoiceStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.StreamUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvoiceStoreTest {
+
+    @TempDir
+    Path root;
+
+    private LocalInvoiceStore localStore;
+
+    @BeforeEach
+    void setUp() {
+        localStore = new LocalInvoiceStore();
+        ReflectionTestUtils.setField(localStore, "location", root.toString());
+    }
+
+    @Test
+    void testLocalStore_ShardsByMonthAndHash() throws Exception {
+        // 1741800668365 = 2025-03-12 UTC
+        localStore.save("BILL-1741800668365", out -> out.write("pdf".getBytes(StandardCharsets.UTF_8)));
+
+        List<Path> files = listFiles();
+        assertEquals(1, files.size());
+        Path relative = root.relativize(files.get(0));
+        assertEquals(4, relative.getNameCount());
+        assertEquals("2025", relative.getName(0).toString());
+        assertEquals("03", relative.getName(1).toString());
+        assertTrue(relative.getName(2).toString().matches("[0-9a-f]{2}"));
+        assertEquals("BILL-1741800668365.pdf", relative.getFileName().toString());
+
+        assertTrue(localStore.exists("BILL-1741800668365"));
+        assertEquals("pdf", read(localStore.load("BILL-1741800668365")));
+    }
+
+    @Test
+    void testLocalStore_FailedWriteLeavesNothingBehind() {
+        assertThrows(IllegalStateException.class, () -> localStore.save("BILL-1741800668365", out -> {
+            out.write("half".getBytes(StandardCharsets.UTF_8));
+            throw new IllegalStateException("render failed");
+        }));
+
+        assertFalse(localStore.exists("BILL-1741800668365"));
+        assertTrue(listFiles().isEmpty());
+    }
+
+    @Test
+    void testLocalStore_ReadsLegacyFlatFiles() throws Exception {
+        Files.write(root.resolve("BILL-1741867597941.pdf"), "old".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(localStore.exists("BILL-1741867597941"));
+        assertEquals("old", read(localStore.load("BILL-1741867597941")));
+        assertTrue(localStore.delete("BILL-1741867597941"));
+        assertNull(localStore.load("BILL-1741867597941"));
+    }
+
+    @Test
+    void testLocalStore_RejectsPathsOutsideTheStore() {
+        assertThrows(IllegalArgumentException.class, () -> localStore.exists("../../etc/passwd"));
+    }
+
+    @Test
+    void testLocalStore_ListsShardedAndLegacyInvoicesButNotQuarantined() throws Exception {
+        localStore.save("BILL-1741800668365", out -> out.write("pdf".getBytes(StandardCharsets.UTF_8)));
+        localStore.save("BILL-1741800668366", out -> out.write("pdf".getBytes(StandardCharsets.UTF_8)));
+        Files.write(root.resolve("BILL-1741867597941.pdf"), "old".getBytes(StandardCharsets.UTF_8));
+        Files.write(root.resolve("notes.txt"), "x".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(localStore.quarantine("BILL-1741800668366"));
+
+        assertEquals(List.of("BILL-1741800668365", "BILL-1741867597941"), listUuids());
+        assertFalse(localStore.exists("BILL-1741800668366"));
+        assertTrue(Files.exists(root.resolve("quarantine").resolve("BILL-1741800668366.pdf")));
+        assertFalse(localStore.quarantine("BILL-1741800668366"));
+    }
+
+    @Test
+    void testInMemoryStore() throws Exception {
+        InvoiceStore store = new InMemoryInvoiceStore();
+        assertFalse(store.exists("BILL-1"));
+
+        store.save("BILL-1", out -> out.write("pdf".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("pdf", read(store.load("BILL-1")));
+        assertTrue(store.delete("BILL-1"));
+        assertNull(store.load("BILL-1"));
+    }
+
+    private List<String> listUuids() throws Exception {
+        try (Stream<InvoiceStore.StoredInvoice> invoices = localStore.list()) {
+            return invoices.map(InvoiceStore.StoredInvoice::uuid).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private List<Path> listFiles() {
+        try (Stream<Path> walk = Files.walk(root)) {
+            return walk.filter(Files::isRegularFile).collect(Collectors.toList());
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private String read(Resource resource) throws Exception {
+        return StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,99 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.DAO.BillDao;
+import com.inn.cafe.ServiceImpl.InMemoryInvoiceStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InvoiceSweeperTest {
+
+    @Mock
+    private BillDao billDao;
+
+    private InMemoryInvoiceStore store;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private InvoiceSweeper sweeper;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new InMemoryInvoiceStore();
+        meterRegistry = new SimpleMeterRegistry();
+        sweeper = sweeper("quarantine");
+        for (int i = 1; i <= 5; i++) {
+            store.save("BILL-" + i, out -> out.write("pdf".getBytes(StandardCharsets.UTF_8)));
+        }
+        // bills 2 and 4 were deleted
+        lenient().when(billDao.getExistingUuids(anyCollection())).thenAnswer(call -> call.<Collection<String>>getArgument(0).stream()
+                .filter(uuid -> !uuid.equals("BILL-2") && !uuid.equals("BILL-4"))
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void testSweep_QuarantinesOrphansInBatches() {
+        assertEquals(2, sweeper.sweep());
+
+        assertFalse(store.exists("BILL-2"));
+        assertTrue(store.isQuarantined("BILL-2"));
+        assertTrue(store.isQuarantined("BILL-4"));
+        assertTrue(store.exists("BILL-1") && store.exists("BILL-3") && store.exists("BILL-5"));
+        verify(billDao, times(3)).getExistingUuids(anyCollection());  // batches of 2
+        assertEquals(5.0, meterRegistry.get("invoice.sweeper.scanned").counter().count());
+        assertEquals(2.0, meterRegistry.get("invoice.sweeper.orphans").tag("action", "quarantine").counter().count());
+        assertEquals(1, meterRegistry.get("invoice.sweeper.duration").timer().count());
+    }
+
+    @Test
+    void testSweep_DeleteAction() {
+        sweeper = sweeper("delete");
+
+        assertEquals(2, sweeper.sweep());
+
+        assertFalse(store.exists("BILL-4"));
+        assertFalse(store.isQuarantined("BILL-4"));
+    }
+
+    @Test
+    void testSweep_SkipsYoungInvoices() {
+        ReflectionTestUtils.setField(sweeper, "clock", Clock.systemUTC());
+
+        assertEquals(0, sweeper.sweep());
+
+        assertTrue(store.exists("BILL-2"));
+        verifyNoInteractions(billDao);
+    }
+
+    private InvoiceSweeper sweeper(String action) {
+        InvoiceSweeper sweeper = new InvoiceSweeper();
+        ReflectionTestUtils.setField(sweeper, "invoiceStore", store);
+        ReflectionTestUtils.setField(sweeper, "invoiceCache", InvoiceRenderServiceTest.invoiceCache(meterRegistry));
+        ReflectionTestUtils.setField(sweeper, "billDao", billDao);
+        ReflectionTestUtils.setField(sweeper, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(sweeper, "action", action);
+        ReflectionTestUtils.setField(sweeper, "batchSize", 2);
+        ReflectionTestUtils.setField(sweeper, "minAgeMinutes", 60L);
+        ReflectionTestUtils.setField(sweeper, "maxFilesPerSecond", 1000.0);
+        // two hours from now, so the invoices saved by the test are old enough
+        ReflectionTestUtils.setField(sweeper, "clock", Clock.offset(Clock.systemUTC(), Duration.ofHours(2)));
+        sweeper.init();
+        return sweeper;
+    }
+}
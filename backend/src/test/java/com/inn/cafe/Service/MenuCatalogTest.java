@@ -0,0 +1,252 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.DAO.CatalogChangeDao;
+import com.inn.cafe.DAO.CategoryDao;
+import com.inn.cafe.DAO.ProductDao;
+import com.inn.cafe.Events.CatalogImportedEvent;
+import com.inn.cafe.Events.CategoryChangedEvent;
+import com.inn.cafe.Events.ChangeType;
+import com.inn.cafe.Events.ProductChangedEvent;
+import com.inn.cafe.POJO.Category;
+import com.inn.cafe.Wrapper.ProductWrapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MenuCatalogTest {
+
+    private static final long CHANGED_AT = 1_741_773_600_000L;
+
+    @InjectMocks
+    private MenuCatalog menuCatalog;
+
+    @Mock
+    private CategoryDao categoryDao;
+
+    @Mock
+    private ProductDao productDao;
+
+    @Mock
+    private CatalogChangeDao catalogChangeDao;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(menuCatalog, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(menuCatalog, "maxAgeMillis", 600_000L);
+        lenient().when(catalogChangeDao.getLatestChange()).thenReturn(new long[]{5, CHANGED_AT});
+        when(categoryDao.findAll()).thenReturn(List.of(category(2, "Snacks"), category(1, "Coffee"), category(3, "Empty")));
+        when(productDao.getAllProduct()).thenReturn(List.of(
+                product(11, "Latte", "true", 1, "Coffee"),
+                product(10, "Espresso", "true", 1, "Coffee"),
+                product(12, "Mocha", "false", 1, "Coffee"),
+                product(20, "Cookie", "false", 2, "Snacks")));
+        menuCatalog.init();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        menuCatalog.shutdown();
+    }
+
+    @Test
+    void testSnapshotHasTheShapesOfTheQueries() {
+        MenuCatalog.Snapshot menu = menuCatalog.current();
+
+        assertEquals(5, menu.version());
+        assertEquals(List.of(10, 11, 12, 20), menu.products().stream().map(ProductWrapper::getId).toList());
+        assertEquals(List.of(new ProductWrapper(10, "Espresso"), new ProductWrapper(11, "Latte")), menu.getByCategory(1));
+        assertEquals(List.of(), menu.getByCategory(2));
+        assertEquals(new ProductWrapper(12, "Mocha", "Mocha with milk", 120), menu.getProductById(12));
+        assertNull(menu.getProductById(99));
+        assertEquals(List.of(1, 2, 3), menu.categories().stream().map(Category::getId).toList());
+        assertEquals(3, menu.categories().get(0).getProducts().size());
+        assertEquals(List.of(1), menu.activeCategories().stream().map(Category::getId).toList());
+        assertEquals("5", menu.headers().getFirst(MenuCatalog.VERSION_HEADER));
+        assertTrue(menu.eTag().matches("\"5-[0-9a-f]+\""), menu.eTag());
+        assertEquals(menu.eTag(), menu.headers().getETag());
+        assertEquals(CHANGED_AT, menu.headers().getLastModified());
+    }
+
+    @Test
+    void testInstancesAgreeOnETagAndLastModified() throws Exception {
+        MenuCatalog other = new MenuCatalog();
+        ReflectionTestUtils.setField(other, "categoryDao", categoryDao);
+        ReflectionTestUtils.setField(other, "productDao", productDao);
+        ReflectionTestUtils.setField(other, "catalogChangeDao", catalogChangeDao);
+        ReflectionTestUtils.setField(other, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(other, "maxAgeMillis", 600_000L);
+        other.init();
+        other.shutdown();
+
+        assertEquals(menuCatalog.current().eTag(), other.current().eTag());
+        assertEquals(menuCatalog.current().lastModified(), other.current().lastModified());
+    }
+
+    @Test
+    void testConditionalRequests() {
+        MenuCatalog.Snapshot menu = menuCatalog.current();
+
+        assertTrue(menu.isNotModified(menu.eTag(), null));
+        assertFalse(menu.isNotModified("\"4-0\"", null));
+        assertFalse(menu.isNotModified("\"4-0\"", "Wed, 12 Mar 2025 10:00:00 GMT"));  // If-None-Match decides
+        assertTrue(menu.isNotModified(null, "Wed, 12 Mar 2025 10:00:00 GMT"));
+        assertTrue(menu.isNotModified(null, "Thu, 13 Mar 2025 08:00:00 GMT"));
+        assertFalse(menu.isNotModified(null, "Wed, 12 Mar 2025 09:59:59 GMT"));
+        assertFalse(menu.isNotModified(null, "yesterday"));
+        assertFalse(menu.isNotModified(null, null));
+    }
+
+    @Test
+    void testReadsShareOneSnapshotUntilAChangeIsLoaded() throws Exception {
+        MenuCatalog.Snapshot first = menuCatalog.current();
+
+        assertSame(first, menuCatalog.current());
+        verify(productDao, times(1)).getAllProduct();
+
+        when(productDao.getAllProduct()).thenReturn(List.of(product(10, "Espresso", "false", 1, "Coffee")));
+        when(catalogChangeDao.getLatestChange()).thenReturn(new long[]{6, CHANGED_AT + 60_000});
+        menuCatalog.onProductChanged(new ProductChangedEvent(ChangeType.DELETED, 11, 1));
+
+        await(() -> menuCatalog.current().version() == 6);
+        MenuCatalog.Snapshot second = menuCatalog.current();
+        assertNotEquals(first.eTag(), second.eTag());
+        assertEquals(CHANGED_AT + 60_000, second.lastModified());
+        assertEquals(List.of(), second.getByCategory(1));
+        assertSame(second, menuCatalog.current());
+        verify(productDao, times(2)).getAllProduct();
+        assertEquals(List.of(new ProductWrapper(10, "Espresso"), new ProductWrapper(11, "Latte")), first.getByCategory(1));
+    }
+
+    @Test
+    void testReadsDoNotWaitForALoad() throws Exception {
+        MenuCatalog.Snapshot first = menuCatalog.current();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        when(productDao.getAllProduct()).thenAnswer(call -> {
+            if (loads.incrementAndGet() == 1) {
+                loading.countDown();
+                assertTrue(release.await(10, TimeUnit.SECONDS));
+            }
+            return List.of(product(10, "Espresso " + loads.get(), "true", 1, "Coffee"));
+        });
+
+        menuCatalog.onProductChanged(new ProductChangedEvent(ChangeType.UPDATED, 10, 1));
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        // committed during the load: together they queue a single load after it
+        menuCatalog.onProductChanged(new ProductChangedEvent(ChangeType.UPDATED, 10, 1));
+        menuCatalog.onCatalogImported(new CatalogImportedEvent(List.of(), List.of(13, 14)));
+
+        assertSame(first, menuCatalog.current());
+        assertEquals(1.0, reads("stale"));
+        release.countDown();
+        await(() -> menuCatalog.current().getProductById(10).getName().equals("Espresso 2"));
+        menuCatalog.shutdown();
+        assertEquals(2, loads.get());
+        double fresh = reads("fresh");
+        menuCatalog.current();
+        assertEquals(fresh + 1, reads("fresh"));
+        assertEquals(3.0, meterRegistry.get("menu.snapshot.loads").tag("result", "success").counter().count());
+    }
+
+    @Test
+    void testFailedLoadKeepsTheSnapshot() throws Exception {
+        MenuCatalog.Snapshot first = menuCatalog.current();
+        CountDownLatch failed = new CountDownLatch(1);
+        when(productDao.getAllProduct()).thenAnswer(call -> {
+            failed.countDown();
+            throw new IllegalStateException("database down");
+        });
+
+        menuCatalog.onCategoryChanged(new CategoryChangedEvent(ChangeType.UPDATED, 3));
+
+        assertTrue(failed.await(10, TimeUnit.SECONDS));
+        menuCatalog.shutdown();
+        assertSame(first, menuCatalog.current());
+        assertEquals(1.0, meterRegistry.get("menu.snapshot.loads").tag("result", "failure").counter().count());
+        assertEquals(1.0, reads("stale"));  // still missing the change
+    }
+
+    @Test
+    void testChangeOutsideTheServicesChangesETagAndLastModified() throws Exception {
+        MenuCatalog.Snapshot first = menuCatalog.current();
+        when(productDao.getAllProduct()).thenReturn(List.of(product(10, "Espresso", "false", 1, "Coffee")));
+
+        menuCatalog.scheduledRefresh();
+        menuCatalog.shutdown();
+
+        MenuCatalog.Snapshot second = menuCatalog.current();
+        assertEquals(5, second.version());
+        assertNotEquals(first.eTag(), second.eTag());
+        assertTrue(second.lastModified() > CHANGED_AT);
+    }
+
+    @Test
+    void testExpiredSnapshotIsServedWhileItIsLoaded() throws Exception {
+        MenuCatalog.Snapshot first = menuCatalog.current();
+        assertEquals(1.0, reads("fresh"));
+        ReflectionTestUtils.setField(menuCatalog, "maxAgeMillis", 0L);
+        Thread.sleep(1);
+
+        assertSame(first, menuCatalog.current());
+
+        assertEquals(1.0, reads("stale"));
+        menuCatalog.shutdown();
+        verify(productDao, times(2)).getAllProduct();
+        assertTrue(meterRegistry.get("menu.snapshot.age").gauge().value() >= 0);
+    }
+
+    @Test
+    void testUnchangedMenuKeepsItsVersion() throws Exception {
+        MenuCatalog.Snapshot first = menuCatalog.current();
+
+        menuCatalog.scheduledRefresh();
+
+        menuCatalog.shutdown();  // waits for the load to finish
+        verify(productDao, times(2)).getAllProduct();
+        assertSame(first, menuCatalog.current());
+    }
+
+
+    private double reads(String state) {
+        return meterRegistry.get("menu.snapshot.reads").tag("state", state).counter().count();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in 10 s");
+            Thread.sleep(5);
+        }
+    }
+
+    private static Category category(int id, String name) {
+        Category category = new Category();
+        category.setId(id);
+        category.setName(name);
+        return category;
+    }
+
+    private static ProductWrapper product(int id, String name, String status, int categoryId, String categoryName) {
+        return new ProductWrapper(id, name, name + " with milk", 100 + (id - 10) * 10, status, categoryId, categoryName);
+    }
+}
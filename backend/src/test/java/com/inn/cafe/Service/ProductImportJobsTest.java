@@ -0,0 +1,152 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.Wrapper.ProductImportJobStatus;
+import com.inn.cafe.Wrapper.ProductImportJobStatus.State;
+import com.inn.cafe.Wrapper.ProductImportResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductImportJobsTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-01T10:00:00Z");
+
+    @Mock
+    private ExcelService excelService;
+
+    private ProductImportJobs jobs;
+
+    @BeforeEach
+    void setUp() {
+        jobs = new ProductImportJobs();
+        ReflectionTestUtils.setField(jobs, "excelService", excelService);
+        ReflectionTestUtils.setField(jobs, "threads", 1);
+        ReflectionTestUtils.setField(jobs, "queueCapacity", 1);
+        ReflectionTestUtils.setField(jobs, "retentionMinutes", 60L);
+        ReflectionTestUtils.setField(jobs, "clock", Clock.fixed(NOW, ZoneId.of("UTC")));
+        jobs.init();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        jobs.shutdown();
+    }
+
+    @Test
+    void testJobReportsProgressAndSkippedRows() throws Exception {
+        when(excelService.importExcelFile(any(File.class), any(ProductImportListener.class))).thenAnswer(call -> {
+            assertEquals("menu", Files.readString(call.<File>getArgument(0).toPath()));  // the upload, copied
+            ProductImportListener listener = call.getArgument(1);
+            listener.sheetSize(4);
+            for (int rowNum = 1; rowNum <= 3; rowNum++) {
+                listener.rowRead(rowNum);
+            }
+            listener.rowSkipped(2, "Invalid price format.");
+            listener.rowSkipped(3, "product \"Latte\" already exists in category Coffee");
+            listener.batchImported(1, 0);
+            return new ProductImportResult(1, 0, 2);
+        });
+
+        ProductImportJobStatus queued = jobs.submit(file());
+        ProductImportJobStatus status = await(queued.id());
+
+        assertEquals("menu.xlsx", queued.fileName());
+        assertEquals(State.SUCCEEDED, status.state());
+        assertEquals(3, status.rowsRead());
+        assertEquals(4, status.totalRows());
+        assertEquals(100.0, status.progressPercent());
+        assertTrue(status.rowsPerSecond() > 0);
+        assertEquals(1, status.imported());
+        assertEquals(2, status.skipped());
+        assertNull(status.error());
+        // rows numbered as in Excel
+        assertEquals("row,error\n3,\"Invalid price format.\"\n4,\"product \"\"Latte\"\" already exists in category Coffee\"\n",
+                new String(jobs.getErrorReport(queued.id()).getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testFailedImportIsReported() throws Exception {
+        when(excelService.importExcelFile(any(File.class), any(ProductImportListener.class)))
+                .thenThrow(new Exception("Excel file is empty or has no valid data."));
+
+        ProductImportJobStatus status = await(jobs.submit(file()).id());
+
+        assertEquals(State.FAILED, status.state());
+        assertEquals("Excel file is empty or has no valid data.", status.error());
+    }
+
+    @Test
+    void testFullQueueRejectsUploads() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(excelService.importExcelFile(any(File.class), any(ProductImportListener.class))).thenAnswer(call -> {
+            release.await(10, TimeUnit.SECONDS);
+            return new ProductImportResult(1, 0, 0);
+        });
+
+        ProductImportJobStatus running = jobs.submit(file());
+        ProductImportJobStatus queued = jobs.submit(file());  // waits for the only worker
+        assertThrows(RejectedExecutionException.class, () -> jobs.submit(file()));
+
+        release.countDown();
+        assertEquals(State.SUCCEEDED, await(running.id()).state());
+        assertEquals(State.SUCCEEDED, await(queued.id()).state());
+    }
+
+    @Test
+    void testFinishedJobsAreRemovedAfterRetention() throws Exception {
+        when(excelService.importExcelFile(any(File.class), any(ProductImportListener.class))).thenReturn(new ProductImportResult(1, 0, 0));
+        String id = await(jobs.submit(file()).id()).id();
+        File report = jobs.getErrorReport(id).getFile();
+
+        assertEquals(0, jobs.removeFinished());
+        ReflectionTestUtils.setField(jobs, "clock", Clock.fixed(NOW.plus(Duration.ofMinutes(61)), ZoneId.of("UTC")));
+        assertEquals(1, jobs.removeFinished());
+
+        assertNull(jobs.getStatus(id));
+        assertNull(jobs.getErrorReport(id));
+        assertFalse(report.exists());
+    }
+
+    @Test
+    void testUnknownJob() {
+        assertNull(jobs.getStatus("nope"));
+        assertNull(jobs.getErrorReport("nope"));
+    }
+
+
+    private static MockMultipartFile file() {
+        return new MockMultipartFile("file", "menu.xlsx", null, "menu".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ProductImportJobStatus await(String id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        ProductImportJobStatus status = jobs.getStatus(id);
+        while (status.state() == State.QUEUED || status.state() == State.RUNNING) {
+            assertTrue(System.currentTimeMillis() < deadline, "job did not finish: " + status);
+            Thread.sleep(10);
+            status = jobs.getStatus(id);
+        }
+        return status;
+    }
+}
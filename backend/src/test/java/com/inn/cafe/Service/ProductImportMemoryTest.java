@@ -0,0 +1,116 @@
+package com.inn.cafe.Service;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.inn.cafe.DAO.ProductImportDao;
+import com.inn.cafe.Wrapper.ProductImportResult;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Imports a menu file of 500000 rows in a JVM with a heap of 64 MB, through ExcelService like /product/uploadExcel,
+ * into an H2 database on disk. Loading this file as an XSSFWorkbook runs out of memory even with a heap of 1 GB.
+ *
+ * Takes about a minute, so it only runs with mvn test -Pslow-tests.
+ */
+@Tag("slow")
+class ProductImportMemoryTest {
+
+    private static final int ROWS = 500_000;
+
+    private static final int CATEGORIES = 50;
+
+    private static final String MAX_HEAP = "-Xmx64m";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testLargeFileImportsInSmallHeap() throws Exception {
+        Path file = dir.resolve("menu.xlsx");
+        // with a shared strings table, as Excel writes files; only the streaming writer keeps the test's heap small
+        try (SXSSFWorkbook book = new SXSSFWorkbook(null, 100, true, true); OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = book.createSheet();
+            Row header = sheet.createRow(0);
+            List<String> columns = List.of("name", "description", "price", "category_name", "status");
+            for (int i = 0; i < columns.size(); i++) {
+                header.createCell(i).setCellValue(columns.get(i));
+            }
+            for (int i = 1; i <= ROWS; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue("Product " + i);
+                row.createCell(1).setCellValue("Made fresh every morning");
+                row.createCell(2).setCellValue(50 + i % 200);
+                row.createCell(3).setCellValue("Category " + i % CATEGORIES);
+                row.createCell(4).setCellValue(true);
+            }
+            book.write(out);
+            book.dispose();
+        }
+
+        Path output = dir.resolve("import.log");
+        Process process = new ProcessBuilder(Paths.get(System.getProperty("java.home"), "bin", "java").toString(), MAX_HEAP,
+                "-cp", System.getProperty("java.class.path"), ImportMain.class.getName(), file.toString(), dir.resolve("menu").toString())
+                .redirectErrorStream(true)
+                .redirectOutput(output.toFile())
+                .start();
+        assertTrue(process.waitFor(5, TimeUnit.MINUTES), "import did not finish in 5 minutes");
+        String log = Files.readString(output);
+        assertEquals(0, process.exitValue(), log);
+        assertTrue(log.contains(new ProductImportResult(ROWS, 0, 0) + " " + ROWS), log);
+    }
+
+
+    /** Runs in the child JVM: imports the file (args[0]) into a new H2 database (args[1]). */
+    static class ImportMain {
+
+        public static void main(String[] args) throws Exception {
+            ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+
+            SingleConnectionDataSource dataSource = new SingleConnectionDataSource("jdbc:h2:file:" + args[1] + ";MODE=MySQL", true);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            // same tables as the Category and Product entities create
+            jdbcTemplate.execute("create table category (id int auto_increment primary key, name varchar(255), version int)");
+            jdbcTemplate.execute("create table product (id int auto_increment primary key, name varchar(255), category_fk int not null, "
+                    + "description varchar(255), price int, status varchar(255))");
+            for (int i = 0; i < CATEGORIES; i++) {
+                jdbcTemplate.update("insert into category (name, version) values (?, 0)", "Category " + i);
+            }
+
+            ProductImportDao productImportDao = new ProductImportDao();
+            ReflectionTestUtils.setField(productImportDao, "jdbcTemplate", jdbcTemplate);
+            ProductImporter productImporter = new ProductImporter();
+            ReflectionTestUtils.setField(productImporter, "productImportDao", productImportDao);
+            ReflectionTestUtils.setField(productImporter, "transactionTemplate", new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+            ReflectionTestUtils.setField(productImporter, "eventPublisher", (ApplicationEventPublisher) event -> { });
+            ReflectionTestUtils.setField(productImporter, "batchSize", 1000);
+            ExcelService excelService = new ExcelService();
+            ReflectionTestUtils.setField(excelService, "productImporter", productImporter);
+
+            ProductImportResult result = excelService.importExcelFile(new File(args[0]), ProductImportListener.NONE);
+            System.out.println(result + " " + jdbcTemplate.queryForObject("select count(*) from product", Integer.class));
+            dataSource.destroy();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.DAO.ProductImportDao;
+import com.inn.cafe.Events.CatalogImportedEvent;
+import com.inn.cafe.Wrapper.ProductImportResult;
+import com.inn.cafe.Wrapper.ProductImportRow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductImporterTest {
+
+    private SingleConnectionDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private ProductImporter productImporter;
+
+    private final List<CatalogImportedEvent> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        // same tables as the Category and Product entities create
+        jdbcTemplate.execute("create table category (id int auto_increment primary key, name varchar(255), version int)");
+        jdbcTemplate.execute("create table product (id int auto_increment primary key, name varchar(255), category_fk int not null, "
+                + "description varchar(255), price int, status varchar(255))");
+        jdbcTemplate.update("insert into category (name, version) values ('Coffee', 0)");
+        jdbcTemplate.update("insert into product (name, category_fk, price, status) values ('Latte', 1, 120, 'true')");
+
+        ProductImportDao productImportDao = new ProductImportDao();
+        ReflectionTestUtils.setField(productImportDao, "jdbcTemplate", jdbcTemplate);
+        productImporter = new ProductImporter();
+        ReflectionTestUtils.setField(productImporter, "productImportDao", productImportDao);
+        ReflectionTestUtils.setField(productImporter, "transactionTemplate", new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ReflectionTestUtils.setField(productImporter, "eventPublisher", (ApplicationEventPublisher) event -> events.add((CatalogImportedEvent) event));
+        ReflectionTestUtils.setField(productImporter, "batchSize", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void testImportCreatesCategoriesAndSkipsKnownProducts() {
+        ProductImportResult result = productImporter.importRows(List.of(
+                row(1, "coffee ", "latte"),       // already on the menu, names ignore case and spaces
+                row(2, "Coffee", "Mocha"),
+                row(3, "Tea", "Green Tea"),
+                row(4, "TEA", "green tea"),       // twice in the file
+                row(5, "Tea", "Chai"),
+                row(6, "", "Nameless"),
+                row(7, "Snacks", "Cookie")).iterator(), true);
+
+        assertEquals(new ProductImportResult(4, 2, 3), result);
+        assertEquals(List.of("Coffee", "Tea", "Snacks"), jdbcTemplate.queryForList("select name from category order by id", String.class));
+        assertEquals(List.of("Latte/1", "Mocha/1", "Green Tea/2", "Chai/2", "Cookie/3"),
+                jdbcTemplate.queryForList("select concat(name, '/', category_fk) from product order by id", String.class));
+        // one event per batch of 2 products, with the generated ids
+        assertEquals(List.of(new CatalogImportedEvent(List.of(2), List.of(2, 3)), new CatalogImportedEvent(List.of(3), List.of(4, 5))), events);
+    }
+
+    @Test
+    void testUnknownCategoriesAreSkippedWhenNotCreated() {
+        ProductImportResult result = productImporter.importRows(List.of(row(1, "Tea", "Chai"), row(2, "Coffee", "Mocha")).iterator(), false);
+
+        assertEquals(new ProductImportResult(1, 0, 1), result);
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from category", Integer.class));
+        assertEquals(List.of(new CatalogImportedEvent(List.of(), List.of(2))), events);
+    }
+
+    private static ProductImportRow row(int rowNum, String category, String name) {
+        return new ProductImportRow(rowNum, category, name, "", 100, "true");
+    }
+}
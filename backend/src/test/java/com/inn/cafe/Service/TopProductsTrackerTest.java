@@ -0,0 +1,108 @@
+package com.inn.cafe.Service;
+
+import com.inn.cafe.Events.BillChangedEvent;
+import com.inn.cafe.Events.ChangeType;
+import com.inn.cafe.POJO.Bill;
+import com.inn.cafe.Wrapper.TopProductWrapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopProductsTrackerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 12);
+
+    @TempDir
+    Path dir;
+
+    private TopProductsTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = tracker(TODAY);
+    }
+
+    @Test
+    void testDayAndWeekWindows() {
+        tracker.onBillChanged(created(TODAY, item(1, "Coffee", 2), item(2, "Cookie", 1)));
+        tracker.onBillChanged(created(TODAY, item(1, "Coffee", 1)));
+        tracker.onBillChanged(created(TODAY.minusDays(3), item(2, "Cookie", 5)));
+        tracker.onBillChanged(created(TODAY.minusDays(7), item(3, "Tea", 50)));  // older than a week
+
+        assertEquals(List.of(new TopProductWrapper(1, "Coffee", 3, 0), new TopProductWrapper(2, "Cookie", 1, 0)),
+                tracker.getTop("day", 10));
+        assertEquals(List.of(new TopProductWrapper(2, "Cookie", 6, 0)), tracker.getTop("week", 1));
+        assertThrows(IllegalArgumentException.class, () -> tracker.getTop("month", 10));
+    }
+
+    @Test
+    void testDeletedBillIsTakenBack() {
+        tracker.onBillChanged(created(TODAY, item(1, "Coffee", 2)));
+        tracker.onBillChanged(created(TODAY, item(1, "Coffee", 3)));
+        assertEquals(5, tracker.getTop("week", 1).get(0).quantity());  // cached week is invalidated below
+
+        Bill deleted = created(TODAY, item(1, "Coffee", 3)).bill();
+        tracker.onBillChanged(new BillChangedEvent(ChangeType.DELETED, deleted));
+
+        assertEquals(2, tracker.getTop("day", 1).get(0).quantity());
+        assertEquals(2, tracker.getTop("week", 1).get(0).quantity());
+    }
+
+    @Test
+    void testCheckpointSurvivesRestartAndWindowSlides() throws Exception {
+        tracker.onBillChanged(created(TODAY.minusDays(1), item(1, "Coffee", 4)));
+        tracker.onBillChanged(created(TODAY, item(2, "Cookie", 1)));
+        tracker.checkpoint();
+
+        TopProductsTracker restarted = tracker(TODAY);
+        restarted.load();
+        assertEquals(List.of(new TopProductWrapper(1, "Coffee", 4, 0), new TopProductWrapper(2, "Cookie", 1, 0)),
+                restarted.getTop("week", 10));
+
+        TopProductsTracker nextWeek = tracker(TODAY.plusDays(6));
+        nextWeek.load();
+        assertEquals(List.of(new TopProductWrapper(2, "Cookie", 1, 0)), nextWeek.getTop("week", 10));
+        assertTrue(nextWeek.getTop("day", 10).isEmpty());
+    }
+
+    @Test
+    void testUnreadableCheckpointStartsEmpty() throws Exception {
+        Files.writeString(dir.resolve("top-products.json"), "{not json");
+
+        tracker.load();
+
+        assertTrue(tracker.getTop("week", 10).isEmpty());
+    }
+
+    private TopProductsTracker tracker(LocalDate today) {
+        TopProductsTracker tracker = new TopProductsTracker();
+        ReflectionTestUtils.setField(tracker, "capacity", 10);
+        ReflectionTestUtils.setField(tracker, "checkpointFile", dir.resolve("top-products.json").toString());
+        ReflectionTestUtils.setField(tracker, "clock",
+                Clock.fixed(today.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+        return tracker;
+    }
+
+    private static BillChangedEvent created(LocalDate day, String... items) {
+        Bill bill = new Bill();
+        bill.setUuid("BILL-1");
+        bill.setCreatedDate(day.atTime(10, 0));
+        bill.setProductDetails("[" + String.join(",", items) + "]");
+        return new BillChangedEvent(ChangeType.CREATED, bill);
+    }
+
+    private static String item(int id, String name, int quantity) {
+        return "{\"id\":" + id + ",\"name\":\"" + name + "\",\"category\":\"Menu\",\"quantity\":" + quantity
+                + ",\"price\":10.0,\"total\":" + 10.0 * quantity + "}";
+    }
+}
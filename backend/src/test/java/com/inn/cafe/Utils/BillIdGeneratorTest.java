@@ -0,0 +1,115 @@
+package com.inn.cafe.Utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BillIdGeneratorTest {
+
+    private static final long NOW = 1741800668365L;
+
+    @Test
+    void testNextId_UniqueAndIncreasingUnderContention() throws Exception {
+        BillIdGenerator generator = generator(3, System::currentTimeMillis);
+        int threads = 8;
+        int idsPerThread = 50_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                long[] ids = new long[idsPerThread];
+                for (int i = 0; i < idsPerThread; i++) {
+                    ids[i] = generator.nextId();
+                }
+                return ids;
+            }));
+        }
+        start.countDown();
+
+        Set<Long> all = new HashSet<>();
+        for (Future<long[]> result : results) {
+            long[] ids = result.get(30, TimeUnit.SECONDS);
+            for (int i = 0; i < ids.length; i++) {
+                assertTrue(all.add(ids[i]), "duplicate id " + ids[i]);
+                if (i > 0) {
+                    assertTrue(ids[i] > ids[i - 1], "ids of one thread must increase");
+                }
+            }
+        }
+        pool.shutdown();
+        assertEquals(threads * idsPerThread, all.size());
+    }
+
+    @Test
+    void testNextId_DifferentNodesNeverCollide() {
+        BillIdGenerator node1 = generator(1, () -> NOW);
+        BillIdGenerator node2 = generator(2, () -> NOW);
+
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(ids.add(node1.nextId()));
+            assertTrue(ids.add(node2.nextId()));
+        }
+    }
+
+    @Test
+    void testNextId_ClockGoingBackDoesNotReuseIds() {
+        AtomicLong clock = new AtomicLong(NOW);
+        BillIdGenerator generator = generator(0, clock::get);
+
+        long before = generator.nextId();
+        clock.set(NOW - 5_000);
+        long after = generator.nextId();
+
+        assertTrue(after > before);
+    }
+
+    @Test
+    void testNextId_SequenceOverflowMovesToNextMillisecond() {
+        BillIdGenerator generator = generator(0, () -> NOW);
+        long last = 0;
+        for (int i = 0; i <= 1 << BillIdGenerator.SEQUENCE_BITS; i++) {
+            long id = generator.nextId();
+            assertTrue(id > last);
+            last = id;
+        }
+        assertEquals(NOW + 1, BillIdGenerator.getTimestamp(last));
+    }
+
+    @Test
+    void testNextUUID_EncodesCreationTime() {
+        String uuid = generator(7, () -> NOW).nextUUID();
+
+        assertTrue(uuid.matches("BILL-\\d{19}"), uuid);
+        assertTrue(CafeUtils.isValidBillUUID(uuid));
+        assertEquals(NOW, CafeUtils.getTimestampFromUUID(uuid));
+        assertEquals(NOW, CafeUtils.getTimestampFromUUID("BILL-" + NOW));  // uuids made before BillIdGenerator
+    }
+
+    @Test
+    void testInit_RejectsNodeIdOutOfRange() {
+        BillIdGenerator generator = new BillIdGenerator();
+        ReflectionTestUtils.setField(generator, "nodeId", BillIdGenerator.MAX_NODE_ID + 1);
+
+        assertThrows(IllegalStateException.class, generator::init);
+    }
+
+    private static BillIdGenerator generator(int nodeId, LongSupplier clock) {
+        BillIdGenerator generator = new BillIdGenerator();
+        ReflectionTestUtils.setField(generator, "nodeId", nodeId);
+        ReflectionTestUtils.setField(generator, "clock", clock);
+        generator.init();
+        return generator;
+    }
+}
@@ -0,0 +1,129 @@
+package com.inn.cafe.Utils;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExcelRowReaderTest {
+
+    private static final List<String> EXPECTED = List.of(
+            "0 [Category, Product, Price, Status]",
+            "1 [Coffee, Latte, 120.0, true]",
+            "2 [Tea, null, 80.5, false]",           // a blank cell in between
+            "4 [Snacks, Cookie, 60.0, null, 7.0]"); // row 3 has no cells, a formula with its cached result
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testXlsxWithSharedStrings() throws IOException {
+        assertEquals(EXPECTED, read(write(new XSSFWorkbook(), "menu.xlsx")));
+    }
+
+    @Test
+    void testXlsxWithInlineStrings() throws IOException {
+        assertEquals(EXPECTED, read(write(new SXSSFWorkbook(), "menu.xlsx")));
+    }
+
+    @Test
+    void testXls() throws IOException {
+        assertEquals(EXPECTED, read(write(new HSSFWorkbook(), "menu.xls")));
+    }
+
+    @Test
+    void testRichTextIsReadAsItsText() throws IOException {
+        Path file = dir.resolve("rich.xlsx");
+        try (XSSFWorkbook book = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            XSSFRichTextString text = new XSSFRichTextString("Iced Latte");
+            text.applyFont(0, 4, book.createFont());
+            book.createSheet().createRow(0).createCell(0).setCellValue(text);
+            book.write(out);
+        }
+        assertEquals(List.of("0 [Iced Latte]"), read(file));
+    }
+
+    @Test
+    void testSheetSize() throws IOException {
+        for (Path file : List.of(write(new XSSFWorkbook(), "menu.xlsx"), write(new SXSSFWorkbook(), "streamed.xlsx"),
+                write(new HSSFWorkbook(), "menu.xls"))) {
+            List<Integer> sizes = new ArrayList<>();
+            ExcelRowReader.read(file.toFile(), new ExcelRowReader.RowHandler() {
+                @Override
+                public void sheetSize(int rows) {
+                    sizes.add(rows);
+                }
+
+                @Override
+                public void row(int rowNum, List<Object> cells) {
+                    assertEquals(List.of(5), sizes, "before the first row");
+                }
+            });
+            assertEquals(List.of(5), sizes, file.toString());
+        }
+    }
+
+    @Test
+    void testOtherFilesAreRejected() throws IOException {
+        Path file = Files.writeString(dir.resolve("menu.csv"), "Coffee,Latte,120,true");
+        assertThrows(IOException.class, () -> ExcelRowReader.read(file.toFile(), (rowNum, cells) -> { }));
+    }
+
+    @Test
+    void testIsEmpty() {
+        assertTrue(ExcelRowReader.isEmpty(Arrays.asList(null, " ", null)));
+        assertFalse(ExcelRowReader.isEmpty(Arrays.asList(null, 0.0)));
+    }
+
+
+    private Path write(Workbook book, String name) throws IOException {
+        Path file = dir.resolve(name);
+        try (book; OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = book.createSheet();
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("Category");
+            header.createCell(1).setCellValue("Product");
+            header.createCell(2).setCellValue("Price");
+            header.createCell(3).setCellValue("Status");
+            Row latte = sheet.createRow(1);
+            latte.createCell(0).setCellValue("Coffee");
+            latte.createCell(1).setCellValue("Latte");
+            latte.createCell(2).setCellValue(120);
+            latte.createCell(3).setCellValue(true);
+            Row tea = sheet.createRow(2);
+            tea.createCell(0).setCellValue("Tea");
+            tea.createCell(1);
+            tea.createCell(2).setCellValue(80.5);
+            tea.createCell(3).setCellValue(false);
+            Row cookie = sheet.createRow(4);
+            cookie.createCell(0).setCellValue("Snacks");
+            cookie.createCell(1).setCellValue("Cookie");
+            cookie.createCell(2).setCellValue(60);
+            cookie.createCell(4).setCellFormula("3+4");
+            book.getCreationHelper().createFormulaEvaluator().evaluateAll();
+            book.write(out);
+        }
+        return file;
+    }
+
+    private static List<String> read(Path file) throws IOException {
+        List<String> rows = new ArrayList<>();
+        ExcelRowReader.read(file.toFile(), (rowNum, cells) -> rows.add(rowNum + " " + cells));
+        return rows;
+    }
+}
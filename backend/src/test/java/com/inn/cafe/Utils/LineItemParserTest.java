@@ -0,0 +1,44 @@
+package com.inn.cafe.Utils;
+
+import com.inn.cafe.Wrapper.LineItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineItemParserTest {
+
+    @Test
+    void testParse_ReadsTypedLineItems() {
+        List<LineItem> items = LineItemParser.parse(
+                "[{\"id\":1,\"name\":\"Coffee\",\"category\":\"Drinks\",\"quantity\":2,\"price\":100.0,\"total\":200.0},"
+                        + "{\"id\":2,\"name\":\"Cookie\",\"category\":\"Bakery\",\"quantity\":1,\"price\":50,\"total\":50}]");
+
+        assertEquals(List.of(new LineItem(1, "Coffee", "Drinks", 2, 100.0, 200.0),
+                new LineItem(2, "Cookie", "Bakery", 1, 50.0, 50.0)), items);
+    }
+
+    @Test
+    void testParse_AcceptsNumbersAsStringsNullsAndUnknownKeys() {
+        List<LineItem> items = LineItemParser.parse(
+                "[{\"id\":\"3\",\"name\":\"Tea\",\"category\":null,\"quantity\":\"4\",\"price\":\"12.5\",\"total\":\"50\","
+                        + "\"note\":{\"extra\":[1,2]}}]");
+
+        assertEquals(List.of(new LineItem(3, "Tea", null, 4, 12.5, 50.0)), items);
+    }
+
+    @Test
+    void testParse_EmptyInput() {
+        assertTrue(LineItemParser.parse(null).isEmpty());
+        assertTrue(LineItemParser.parse("[]").isEmpty());
+    }
+
+    @Test
+    void testParse_InvalidJsonIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> LineItemParser.parse("not json"));
+        assertThrows(IllegalArgumentException.class, () -> LineItemParser.parse("[{\"quantity\":\"two\"}]"));
+        assertThrows(IllegalArgumentException.class, () -> LineItemParser.parse("[{\"id\":1}"));
+        assertThrows(IllegalArgumentException.class, () -> LineItemParser.parse("[] []"));
+    }
+}
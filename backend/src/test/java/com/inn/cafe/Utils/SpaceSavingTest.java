@@ -0,0 +1,58 @@
+package com.inn.cafe.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingTest {
+
+    @Test
+    void testHeavyHittersAreFoundWithinTheirBounds() {
+        SpaceSaving<Integer> sketch = new SpaceSaving<>(20);
+        Map<Integer, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // a third of the sales goes to products 0-4, the rest is spread over 1000 products
+            int product = random.nextInt(3) == 0 ? random.nextInt(5) : 5 + random.nextInt(1000);
+            sketch.offer(product, 1);
+            exact.merge(product, 1L, Long::sum);
+        }
+
+        List<SpaceSaving.Counter<Integer>> top = sketch.top(5);
+
+        assertEquals(Set.of(0, 1, 2, 3, 4), top.stream().map(SpaceSaving.Counter::key).collect(Collectors.toSet()));
+        for (SpaceSaving.Counter<Integer> counter : sketch.counters()) {
+            long count = exact.get(counter.key());
+            assertTrue(counter.count() >= count && counter.count() - counter.error() <= count, counter.toString());
+        }
+    }
+
+    @Test
+    void testNewKeyReplacesTheSmallestCounter() {
+        SpaceSaving<String> sketch = new SpaceSaving<>(2);
+        sketch.offer("coffee", 5);
+        sketch.offer("tea", 2);
+        sketch.offer("cookie", 1);
+        sketch.retract("coffee", 1);
+
+        assertEquals(List.of(new SpaceSaving.Counter<>("coffee", 4, 0), new SpaceSaving.Counter<>("cookie", 3, 2)), sketch.top(10));
+    }
+
+    @Test
+    void testMergeAddsTheMinimumOfFullSketchesForMissingKeys() {
+        SpaceSaving<String> monday = new SpaceSaving<>(2);
+        monday.offer("coffee", 10);
+        monday.offer("tea", 4);
+        SpaceSaving<String> tuesday = new SpaceSaving<>(3);
+        tuesday.offer("coffee", 6);
+        tuesday.offer("cookie", 7);
+
+        SpaceSaving<String> week = SpaceSaving.merge(List.of(monday, tuesday), 2);
+
+        // tea / cookie could have been evicted on monday with up to 4; tuesday is not full
+        assertEquals(List.of(new SpaceSaving.Counter<>("coffee", 16, 0), new SpaceSaving.Counter<>("cookie", 11, 4)), week.top(10));
+    }
+}
@@ -9,16 +9,19 @@ const Bills = () => {
   const [error, setError] = useState('');
   const [selectedBill, setSelectedBill] = useState<IBill | null>(null);
   const [showModal, setShowModal] = useState(false);
+  const [nextCursor, setNextCursor] = useState<number | null>(null);
 
   useEffect(() => {
     fetchBills();
   }, []);
 
-  const fetchBills = async () => {
+  // without a cursor the first page is loaded again, with one the next page is added below
+  const fetchBills = async (cursor?: number) => {
     setLoading(true);
     try {
-      const response = await billService.getAllBills();
-      setBills(response.data);
+      const response = await billService.getAllBills(cursor);
+      setBills((previous) => (cursor ? [...previous, ...response.data] : response.data));
+      setNextCursor(billService.getNextCursor(response));
     } catch (err) {
       console.error('Failed to fetch bills:', err);
       setError('Failed to load bills. Please try again later.');
@@ -28,9 +31,15 @@ const Bills = () => {
     }
   };
 
-  const handleViewBill = (bill: IBill) => {
-    setSelectedBill(bill);
-    setShowModal(true);
+  const handleViewBill = async (bill: IBill) => {
+    try {
+      const response = await billService.getBill(bill.id);
+      setSelectedBill(response.data);
+      setShowModal(true);
+    } catch (err) {
+      console.error('Failed to load bill:', err);
+      toast.error('Failed to load bill details');
+    }
   };
 
   const handleDownload = async (billId: number, fileName: string) => {
@@ -165,6 +174,18 @@ const Bills = () => {
               </tbody>
             </table>
           </div>
+
+          {nextCursor && (
+            <div className="px-6 py-4 border-t border-gray-200 text-center">
+              <button
+                onClick={() => fetchBills(nextCursor)}
+                disabled={loading}
+                className="px-4 py-2 border border-gray-300 rounded-md text-sm font-medium text-gray-700 bg-white hover:bg-gray-50 disabled:opacity-50"
+              >
+                {loading ? 'Loading...' : 'Load more'}
+              </button>
+            </div>
+          )}
         </div>
       </div>
 
@@ -24,21 +24,21 @@ const OrderHistory = () => {
   const [error, setError] = useState('');
   const [selectedOrder, setSelectedOrder] = useState<IBill | null>(null);
   const [showModal, setShowModal] = useState(false);
+  const [nextCursor, setNextCursor] = useState<number | null>(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   useEffect(() => {
     const fetchOrders = async () => {
       setLoading(true);
       try {
         if (isAuthenticated && user) {
+          // the backend only returns the bills of the current user (all bills for admin), newest first
           const response = await billService.getAllBills();
-
-          // Filter bills for the current user if needed
-          // This depends on your backend implementation
-          // You might filter by email if that's how your backend tracks users
-          const userOrders = response.data;
-          setOrders(userOrders);
+          setOrders(response.data);
+          setNextCursor(billService.getNextCursor(response));
         } else {
           setOrders([]);
+          setNextCursor(null);
         }
       } catch (err) {
         console.error('Failed to fetch orders:', err);
@@ -51,9 +51,30 @@ const OrderHistory = () => {
     fetchOrders();
   }, [isAuthenticated, user]);
 
-  const handleViewOrder = (order: IBill) => {
-    setSelectedOrder(order);
-    setShowModal(true);
+  const loadMoreOrders = async () => {
+    if (!nextCursor) {
+      return;
+    }
+    setLoadingMore(true);
+    try {
+      const response = await billService.getAllBills(nextCursor);
+      setOrders((previous) => [...previous, ...response.data]);
+      setNextCursor(billService.getNextCursor(response));
+    } catch (err) {
+      console.error('Failed to fetch more orders:', err);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
+  const handleViewOrder = async (order: IBill) => {
+    try {
+      const response = await billService.getBill(order.id);
+      setSelectedOrder(response.data);
+      setShowModal(true);
+    } catch (err) {
+      console.error('Failed to load order:', err);
+    }
   };
 
   const handleDownload = async (billId: number) => {
@@ -184,6 +205,18 @@ const OrderHistory = () => {
               </tbody>
             </table>
           </div>
+
+          {nextCursor && (
+            <div className="px-6 py-4 border-t border-gray-200 text-center">
+              <button
+                onClick={loadMoreOrders}
+                disabled={loadingMore}
+                className="px-4 py-2 border border-gray-300 rounded-md text-sm font-medium text-gray-700 bg-white hover:bg-gray-50 disabled:opacity-50"
+              >
+                {loadingMore ? 'Loading...' : 'Load more'}
+              </button>
+            </div>
+          )}
         </div>
       )}
 
@@ -1,3 +1,4 @@
+import { AxiosResponse } from 'axios';
 import api from './api';
 
 export interface IBillProduct {
@@ -35,8 +36,21 @@ const billService = {
     return api.post<{ uuid: string }>('/bill/generateReport', data);
   },
 
-  getAllBills: () => {
-    return api.get<IBill[]>('/bill/getBills');
+  // bills come one page at a time (newest first), the list rows have no productDetails;
+  // pass the X-Next-Cursor response header as cursor to load the next page
+  getAllBills: (cursor?: number, size?: number) => {
+    return api.get<IBill[]>('/bill/getBills', { params: { cursor, size } });
+  },
+
+  // the cursor of the page after this one, null on the last page
+  getNextCursor: (response: AxiosResponse) => {
+    const cursor = response.headers['x-next-cursor'];
+    return cursor ? Number(cursor) : null;
+  },
+
+  // one bill with its productDetails
+  getBill: (id: number) => {
+    return api.get<IBill>(`/bill/get/${id}`);
   },
 
   downloadBill: (id: number) => {